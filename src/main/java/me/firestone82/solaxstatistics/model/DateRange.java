@@ -0,0 +1,141 @@
+package me.firestone82.solaxstatistics.model;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Half-open time range {@code [from, to)}.
+ */
+public record DateRange(LocalDateTime from, LocalDateTime to) {
+
+    public DateRange {
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("Range end " + to + " is before its start " + from);
+        }
+    }
+
+    public static DateRange of(YearMonth yearMonth) {
+        return new DateRange(yearMonth.atDay(1).atStartOfDay(), yearMonth.plusMonths(1).atDay(1).atStartOfDay());
+    }
+
+    /**
+     * Range covering whole days, both ends inclusive.
+     */
+    public static DateRange ofDays(LocalDate firstDay, LocalDate lastDay) {
+        return new DateRange(firstDay.atStartOfDay(), lastDay.plusDays(1).atStartOfDay());
+    }
+
+    /**
+     * Parses {@code yyyy-MM}, {@code yyyy-MM-dd} or ISO date-times. A plain month or day as the end
+     * is taken as exclusive, so {@code 2025-01/2025-03} covers January and February.
+     */
+    public static DateRange parse(String from, String to) {
+        return new DateRange(parseBound(from), parseBound(to));
+    }
+
+    private static LocalDateTime parseBound(String text) {
+        String value = text.trim();
+
+        if (value.length() == 7) {
+            return YearMonth.parse(value).atDay(1).atStartOfDay();
+        }
+
+        if (value.length() == 10) {
+            return LocalDate.parse(value).atStartOfDay();
+        }
+
+        return LocalDateTime.parse(value);
+    }
+
+    public boolean contains(LocalDateTime dateTime) {
+        return !dateTime.isBefore(from) && dateTime.isBefore(to);
+    }
+
+    /**
+     * Membership of a series timestamp. Interval series stamped at the interval end (Solax, CEZ) belong to
+     * the range when the stamp is in {@code (from, to]}, series stamped at the start (prices) in {@code [from, to)}.
+     */
+    public boolean containsStamp(LocalDateTime stamp, boolean endStamped) {
+        return endStamped
+                ? stamp.isAfter(from) && !stamp.isAfter(to)
+                : contains(stamp);
+    }
+
+    /**
+     * Returns the view of a series sorted by instant that falls into the range. Stamps are resolved to
+     * {@link Timeline#PRAGUE} epoch seconds in series order, since the repeated autumn hour is not sorted by
+     * its local stamps, and the bounds are located by binary search on them.
+     *
+     * @see #containsStamp(LocalDateTime, boolean)
+     */
+    public <T> List<T> slice(List<T> sorted, Function<T, LocalDateTime> timeOf, boolean endStamped) {
+        Timeline.Resolver resolver = Timeline.PRAGUE.resolver();
+        long[] instants = new long[sorted.size()];
+
+        for (int i = 0; i < instants.length; i++) {
+            instants[i] = resolver.epochSecond(timeOf.apply(sorted.get(i)));
+        }
+
+        int start = search(instants, Timeline.PRAGUE.resolver().epochSecond(from), endStamped);
+        int end = search(instants, Timeline.PRAGUE.resolver().epochSecond(to), endStamped);
+
+        return sorted.subList(start, Math.max(start, end));
+    }
+
+    /**
+     * Index of the first instant after the key, or at/after it when {@code afterOnly} is false.
+     */
+    private static int search(long[] instants, long key, boolean afterOnly) {
+        int low = 0;
+        int high = instants.length;
+
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+
+            if (instants[mid] < key || (afterOnly && instants[mid] == key)) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+
+        return low;
+    }
+
+    public boolean isEmpty() {
+        return !from.isBefore(to);
+    }
+
+    public LocalDate firstDay() {
+        return from.toLocalDate();
+    }
+
+    /**
+     * Last day with at least part of it inside the range.
+     */
+    public LocalDate lastDay() {
+        return to.minusNanos(1).toLocalDate();
+    }
+
+    /**
+     * Months overlapping the range, in order.
+     */
+    public List<YearMonth> months() {
+        List<YearMonth> months = new ArrayList<>();
+
+        for (YearMonth month = YearMonth.from(firstDay()); !month.isAfter(YearMonth.from(lastDay())); month = month.plusMonths(1)) {
+            months.add(month);
+        }
+
+        return months;
+    }
+
+    @Override
+    public String toString() {
+        return "[" + from + ", " + to + ")";
+    }
+}
@@ -5,10 +5,11 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.ToString;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.List;
-import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.NavigableMap;
+import java.util.TreeMap;
 
 @Data
 @ToString
@@ -19,15 +20,30 @@ public class EnergyEntry {
     private double importMWh;
     private double exportMWh;
 
-    public static Map<LocalDateTime, EnergyEntry> aggregateHourly(List<EnergyEntry> data) {
-        return data.stream().collect(Collectors.groupingBy(
-                e -> e.getDateTime().minusMinutes(15).withMinute(0).withSecond(0).withNano(0),
-                Collectors.collectingAndThen(Collectors.toList(), list -> {
-                    LocalDateTime date = list.getFirst().getDateTime().withMinute(0).withSecond(0).withNano(0);
-                    double sumImport = list.stream().mapToDouble(EnergyEntry::getImportMWh).sum() / 4.0;
-                    double sumExport = list.stream().mapToDouble(EnergyEntry::getExportMWh).sum() / 4.0;
-                    return new EnergyEntry(date, sumImport, sumExport);
-                })
-        ));
+    /**
+     * Quarter-hours summed into intervals of the resolution, keyed by the epoch second of the interval
+     * start. Around DST changes this gives 23 or 25 hours per day.
+     */
+    public static NavigableMap<Long, EnergyEntry> aggregate(List<EnergyEntry> data, Duration resolution) {
+        long[] buckets = Timeline.PRAGUE.buckets(data, EnergyEntry::getDateTime, 15 * 60, resolution.toSeconds());
+        Timeline.Resolver resolver = Timeline.PRAGUE.resolver();
+        NavigableMap<Long, EnergyEntry> aggregated = new TreeMap<>();
+
+        // Entries come sorted, so every interval is a run
+        for (int from = 0, to; from < buckets.length; from = to) {
+            to = from + 1;
+            while (to < buckets.length && buckets[to] == buckets[from]) {
+                to++;
+            }
+
+            List<EnergyEntry> run = data.subList(from, to);
+            double sumImport = run.stream().mapToDouble(EnergyEntry::getImportMWh).sum() / 4.0;
+            double sumExport = run.stream().mapToDouble(EnergyEntry::getExportMWh).sum() / 4.0;
+
+            aggregated.merge(buckets[from], new EnergyEntry(resolver.local(buckets[from]), sumImport, sumExport), (a, b) ->
+                    new EnergyEntry(a.getDateTime(), a.getImportMWh() + b.getImportMWh(), a.getExportMWh() + b.getExportMWh()));
+        }
+
+        return aggregated;
     }
 }
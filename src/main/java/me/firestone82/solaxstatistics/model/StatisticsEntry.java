@@ -5,40 +5,68 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.ToString;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
 import java.util.stream.Collectors;
 
 @Data
 @ToString
 @AllArgsConstructor
 @NoArgsConstructor
-public class StatisticsEntry implements Cloneable {
+public class StatisticsEntry {
     private LocalDateTime dateTime;
     private double yieldMWh;
     private double exportMWh;
     private double consumptionMWh;
     private double importMWh;
+    // CounterDeltaEngine.Flag mask of the interval, 0 for clean intervals
+    private int quality;
 
-    public void subtract(StatisticsEntry other) {
-        this.yieldMWh -= other.yieldMWh;
-        this.exportMWh -= other.exportMWh;
-        this.consumptionMWh -= other.consumptionMWh;
-        this.importMWh -= other.importMWh;
+    public StatisticsEntry(LocalDateTime dateTime, double yieldMWh, double exportMWh, double consumptionMWh, double importMWh) {
+        this(dateTime, yieldMWh, exportMWh, consumptionMWh, importMWh, 0);
     }
 
-    public static Map<LocalDateTime, StatisticsEntry> aggregateHourly(List<StatisticsEntry> data) {
-        return data.stream().collect(Collectors.groupingBy(
-                e -> e.getDateTime().minusMinutes(5).withMinute(0).withSecond(0).withNano(0),
-                Collectors.collectingAndThen(Collectors.toList(), list -> new StatisticsEntry(
-                        list.getFirst().getDateTime().withMinute(0).withSecond(0).withNano(0),
-                        list.stream().mapToDouble(StatisticsEntry::getYieldMWh).sum(),
-                        list.stream().mapToDouble(StatisticsEntry::getExportMWh).sum(),
-                        list.stream().mapToDouble(StatisticsEntry::getConsumptionMWh).sum(),
-                        list.stream().mapToDouble(StatisticsEntry::getImportMWh).sum()
-                ))
-        ));
+    /**
+     * Intervals of the source, stamped at their end, summed into intervals of the resolution and keyed by
+     * the epoch second of the interval start. Around DST changes this gives 23 or 25 hours per day.
+     */
+    public static NavigableMap<Long, StatisticsEntry> aggregate(List<StatisticsEntry> data, Duration sourceInterval, Duration resolution) {
+        long[] buckets = Timeline.PRAGUE.buckets(data, StatisticsEntry::getDateTime, sourceInterval.toSeconds(), resolution.toSeconds());
+        Timeline.Resolver resolver = Timeline.PRAGUE.resolver();
+        NavigableMap<Long, StatisticsEntry> aggregated = new TreeMap<>();
+
+        // Entries come sorted, so every interval is a run
+        for (int from = 0, to; from < buckets.length; from = to) {
+            to = from + 1;
+            while (to < buckets.length && buckets[to] == buckets[from]) {
+                to++;
+            }
+
+            List<StatisticsEntry> run = data.subList(from, to);
+            StatisticsEntry interval = new StatisticsEntry(
+                    resolver.local(buckets[from]),
+                    run.stream().mapToDouble(StatisticsEntry::getYieldMWh).sum(),
+                    run.stream().mapToDouble(StatisticsEntry::getExportMWh).sum(),
+                    run.stream().mapToDouble(StatisticsEntry::getConsumptionMWh).sum(),
+                    run.stream().mapToDouble(StatisticsEntry::getImportMWh).sum(),
+                    run.stream().mapToInt(StatisticsEntry::getQuality).reduce(0, (x, y) -> x | y)
+            );
+
+            aggregated.merge(buckets[from], interval, (x, y) -> new StatisticsEntry(
+                    x.getDateTime(),
+                    x.getYieldMWh() + y.getYieldMWh(),
+                    x.getExportMWh() + y.getExportMWh(),
+                    x.getConsumptionMWh() + y.getConsumptionMWh(),
+                    x.getImportMWh() + y.getImportMWh(),
+                    x.getQuality() | y.getQuality()
+            ));
+        }
+
+        return aggregated;
     }
 
     public static Map<LocalDateTime, StatisticsEntry> aggregateDaily(List<StatisticsEntry> data) {
@@ -49,17 +77,9 @@ public class StatisticsEntry implements Cloneable {
                         list.stream().mapToDouble(StatisticsEntry::getYieldMWh).sum(),
                         list.stream().mapToDouble(StatisticsEntry::getExportMWh).sum(),
                         list.stream().mapToDouble(StatisticsEntry::getConsumptionMWh).sum(),
-                        list.stream().mapToDouble(StatisticsEntry::getImportMWh).sum()
+                        list.stream().mapToDouble(StatisticsEntry::getImportMWh).sum(),
+                        list.stream().mapToInt(StatisticsEntry::getQuality).reduce(0, (a, b) -> a | b)
                 ))
         ));
     }
-
-    @Override
-    public StatisticsEntry clone() {
-        try {
-            return (StatisticsEntry) super.clone();
-        } catch (CloneNotSupportedException e) {
-            throw new AssertionError();
-        }
-    }
 }
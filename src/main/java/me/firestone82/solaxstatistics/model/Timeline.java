@@ -0,0 +1,228 @@
+package me.firestone82.solaxstatistics.model;
+
+import java.time.*;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Maps the wall-clock stamps of the series to epoch seconds of a zone, so intervals are bucketed with
+ * arithmetic and the days around DST changes get their real length: 23 hours in spring, 25 in autumn.
+ * <p>
+ * Sources stamp intervals in local time, so the hour repeated in autumn arrives with the same stamps
+ * twice. A {@link Resolver} walks the stamps in source order and maps a repeated stamp to the later
+ * offset once the earlier one has been passed. Hours are bucketed on the epoch, which matches local
+ * hours for zones with whole-hour offsets such as Europe/Prague.
+ */
+public final class Timeline {
+    public static final Timeline PRAGUE = new Timeline(ZoneId.of("Europe/Prague"));
+    public static final long HOUR = 3600;
+
+    private final ZoneId zone;
+    private final ZoneRules rules;
+
+    public Timeline(ZoneId zone) {
+        this.zone = zone;
+        this.rules = zone.getRules();
+    }
+
+    public ZoneId zone() {
+        return zone;
+    }
+
+    /**
+     * Resolver for one pass over stamps in source order. Not thread safe.
+     */
+    public Resolver resolver() {
+        return new Resolver(Long.MIN_VALUE, 0);
+    }
+
+    /**
+     * Resolver for a series of one stamp per interval. With intervals shorter than the repeated autumn
+     * hour, a stamp equal to the one before it is the same instant again, not the later pass.
+     */
+    public Resolver resolver(Duration interval) {
+        return new Resolver(Long.MIN_VALUE, interval.toSeconds());
+    }
+
+    /**
+     * Resolver for stamps following the given instant, e.g. the start of a requested range. A repeated
+     * autumn stamp is taken from the later pass when the instant is already past the earlier one.
+     */
+    public Resolver resolver(long previousEpochSecond) {
+        return new Resolver(previousEpochSecond, 0);
+    }
+
+    public static long hourStart(long epochSecond) {
+        return bucketStart(epochSecond, HOUR);
+    }
+
+    /**
+     * Start of the bucket of {@code bucketSeconds} the instant falls into. Buckets dividing an hour line up
+     * with local quarter-hours and hours like the hours themselves.
+     */
+    public static long bucketStart(long epochSecond, long bucketSeconds) {
+        return Math.floorDiv(epochSecond, bucketSeconds) * bucketSeconds;
+    }
+
+    public long dayStart(LocalDate day) {
+        return day.atStartOfDay(zone).toEpochSecond();
+    }
+
+    /**
+     * Length of the local day, 23 or 25 on DST changes.
+     */
+    public int hoursIn(LocalDate day) {
+        return (int) ((dayStart(day.plusDays(1)) - dayStart(day)) / HOUR);
+    }
+
+    /**
+     * Epoch second of the hour each interval falls into. Stamps are taken as interval ends when
+     * {@code stampShiftSeconds} is the interval length, or as interval starts when it is 0.
+     */
+    public <T> long[] hours(List<T> entries, Function<T, LocalDateTime> timeOf, long stampShiftSeconds) {
+        return buckets(entries, timeOf, stampShiftSeconds, HOUR);
+    }
+
+    /**
+     * Epoch second of the bucket of {@code bucketSeconds} each interval falls into, stamps taken like in
+     * {@link #hours}.
+     */
+    public <T> long[] buckets(List<T> entries, Function<T, LocalDateTime> timeOf, long stampShiftSeconds, long bucketSeconds) {
+        Resolver resolver = resolver();
+        long[] buckets = new long[entries.size()];
+
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = bucketStart(resolver.epochSecond(timeOf.apply(entries.get(i))) - stampShiftSeconds, bucketSeconds);
+        }
+
+        return buckets;
+    }
+
+    /**
+     * The entries ordered by instant, reusing the list when it already is (the common case). Entries with
+     * the same instant keep their order.
+     */
+    public <T> List<T> sorted(List<T> entries, Function<T, LocalDateTime> timeOf) {
+        Resolver resolver = resolver();
+        long[] instants = new long[entries.size()];
+        boolean ordered = true;
+
+        for (int i = 0; i < instants.length; i++) {
+            instants[i] = resolver.epochSecond(timeOf.apply(entries.get(i)));
+            ordered &= i == 0 || instants[i - 1] <= instants[i];
+        }
+
+        if (ordered) {
+            return entries;
+        }
+
+        Integer[] order = new Integer[instants.length];
+        Arrays.setAll(order, i -> i);
+        Arrays.sort(order, (a, b) -> Long.compare(instants[a], instants[b]));
+
+        List<T> sorted = new ArrayList<>(instants.length);
+        for (Integer index : order) {
+            sorted.add(entries.get(index));
+        }
+
+        return sorted;
+    }
+
+    /**
+     * Converts between local stamps and epoch seconds. The offset of the current stretch between two
+     * transitions is cached, only stamps outside of it look at the zone rules.
+     */
+    public final class Resolver {
+        // Instants [from, to) have the offset, local seconds [localFrom, localTo) map to them unambiguously
+        private long from = Long.MAX_VALUE;
+        private long to = Long.MIN_VALUE;
+        private long localFrom = Long.MAX_VALUE;
+        private long localTo = Long.MIN_VALUE;
+        private int offset;
+        private long previous;
+        // Interval of the series, 0 when unknown
+        private final long intervalSeconds;
+
+        private Resolver(long previous, long intervalSeconds) {
+            this.previous = previous;
+            this.intervalSeconds = intervalSeconds;
+        }
+
+        public long epochSecond(LocalDateTime dateTime) {
+            long local = dateTime.toEpochSecond(ZoneOffset.UTC);
+
+            if (local < localFrom || local >= localTo) {
+                previous = resolveTransition(dateTime, local);
+                return previous;
+            }
+
+            previous = local - offset;
+            return previous;
+        }
+
+        /**
+         * Wall-clock time of the instant in minutes since the epoch, local time taken as UTC.
+         */
+        public long localMinute(long epochSecond) {
+            return Math.floorDiv(localSecond(epochSecond), 60);
+        }
+
+        public LocalDateTime local(long epochSecond) {
+            return LocalDateTime.ofEpochSecond(localSecond(epochSecond), 0, ZoneOffset.UTC);
+        }
+
+        private long localSecond(long epochSecond) {
+            if (epochSecond < from || epochSecond >= to) {
+                cacheAround(epochSecond);
+            }
+
+            return epochSecond + offset;
+        }
+
+        private long resolveTransition(LocalDateTime dateTime, long local) {
+            List<ZoneOffset> offsets = rules.getValidOffsets(dateTime);
+
+            if (offsets.size() == 1) {
+                long instant = local - offsets.getFirst().getTotalSeconds();
+                cacheAround(instant);
+                return instant;
+            }
+
+            ZoneOffsetTransition transition = rules.getTransition(dateTime);
+            long before = local - transition.getOffsetBefore().getTotalSeconds();
+
+            if (offsets.isEmpty()) {
+                // Stamp inside the spring gap, shifted forward like ZonedDateTime does
+                return before;
+            }
+
+            // Repeated autumn stamp: the later pass once the earlier one has been passed
+            long after = local - transition.getOffsetAfter().getTotalSeconds();
+            long overlap = transition.getDuration().abs().getSeconds();
+            long overlapEnd = transition.toEpochSecond() + overlap;
+
+            // A series stepping less than the overlap never repeats a stamp right after itself, it is a duplicate
+            if (previous == before && intervalSeconds > 0 && intervalSeconds < overlap) {
+                return before;
+            }
+
+            return previous >= before && previous < overlapEnd ? after : before;
+        }
+
+        private void cacheAround(long instant) {
+            Instant at = Instant.ofEpochSecond(instant);
+            ZoneOffsetTransition last = rules.previousTransition(at.plusSeconds(1));
+            ZoneOffsetTransition next = rules.nextTransition(at);
+
+            offset = rules.getOffset(at).getTotalSeconds();
+            from = last == null ? Long.MIN_VALUE / 4 : last.toEpochSecond();
+            to = next == null ? Long.MAX_VALUE / 4 : next.toEpochSecond();
+            localFrom = from + Math.max(offset, last == null ? offset : last.getOffsetBefore().getTotalSeconds());
+            localTo = to + Math.min(offset, next == null ? offset : next.getOffsetAfter().getTotalSeconds());
+        }
+    }
+}
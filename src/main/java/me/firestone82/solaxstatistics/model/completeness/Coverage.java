@@ -0,0 +1,60 @@
+package me.firestone82.solaxstatistics.model.completeness;
+
+import me.firestone82.solaxstatistics.model.DateRange;
+
+import java.time.*;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Expected stamps of a series: one every {@code resolution}, stamped at the interval start or end. Stamps
+ * are local wall-clock times, so the hour skipped by the spring DST change is never expected and the hour
+ * repeated in autumn is expected once. The closing midnight of end-stamped series is optional, sources
+ * differ in reporting it.
+ */
+public record Coverage(Duration resolution, boolean endStamped) {
+
+    /**
+     * Days of the range with expected stamps missing, mapped to how many are missing. Only stamps up to
+     * {@code until} are expected.
+     */
+    public SortedMap<LocalDate, Integer> missing(Collection<LocalDateTime> stamps, DateRange range, LocalDateTime until, ZoneId zone) {
+        Set<LocalDateTime> present = stamps instanceof Set<LocalDateTime> set ? set : new HashSet<>(stamps);
+        SortedMap<LocalDate, Integer> missing = new TreeMap<>();
+        long step = resolution.toMinutes();
+
+        for (LocalDate day = range.firstDay(); !day.isAfter(range.lastDay()); day = day.plusDays(1)) {
+            LocalDateTime dayStart = day.atStartOfDay();
+            LocalDateTime first = endStamped ? dayStart.plusMinutes(step) : dayStart;
+            // The last start of the day, or for end stamps the last one before the optional closing midnight
+            LocalDateTime last = dayStart.plusDays(1).minusMinutes(step);
+            int count = 0;
+
+            for (LocalDateTime stamp = first; !stamp.isAfter(last) && !stamp.isAfter(until); stamp = stamp.plusMinutes(step)) {
+                if (!range.containsStamp(stamp, endStamped) || isSkipped(stamp, zone)) {
+                    continue;
+                }
+
+                if (!present.contains(stamp)) {
+                    count++;
+                }
+            }
+
+            if (count > 0) {
+                missing.put(day, count);
+            }
+        }
+
+        return missing;
+    }
+
+    /**
+     * Whether the local time falls into a DST gap and never exists.
+     */
+    private static boolean isSkipped(LocalDateTime stamp, ZoneId zone) {
+        return zone.getRules().getValidOffsets(stamp).isEmpty();
+    }
+}
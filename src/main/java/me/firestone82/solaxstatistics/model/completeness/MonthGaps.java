@@ -0,0 +1,15 @@
+package me.firestone82.solaxstatistics.model.completeness;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Days of a cached month still missing expected intervals, as of the last check.
+ *
+ * @param days             incomplete days, {@code yyyy-MM-dd}
+ * @param missingIntervals expected intervals missing over all of them
+ * @param checkedAt        when the month was last checked
+ * @param attempts         re-fetches tried so far without completing the month
+ */
+public record MonthGaps(List<String> days, int missingIntervals, LocalDateTime checkedAt, int attempts) {
+}
@@ -0,0 +1,171 @@
+package me.firestone82.solaxstatistics.model.live;
+
+import me.firestone82.solaxstatistics.model.Timeline;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.OptionalLong;
+
+/**
+ * Fixed-size rolling window of the latest interval deltas with running hourly and daily aggregates.
+ * Intervals, hours and days are three rings of the same layout, one slot per bucket and one primitive
+ * array per metric. Appending an interval adds it to its bucket in every ring, so reading any bucket still
+ * in the window is a single slot lookup. Energy is in kWh, cost in CZK.
+ * <p>
+ * Intervals and hours are keyed by {@link Timeline#PRAGUE} epoch seconds, so the hour repeated in autumn
+ * is two hours and its second pass is kept. Days are keyed by the local date.
+ */
+public class LiveWindow {
+    private final long intervalSeconds;
+    private final long windowSeconds;
+    private final Ring intervals;
+    private final Ring hours;
+    private final Ring days;
+    private final Timeline.Resolver resolver = Timeline.PRAGUE.resolver();
+
+    private long latestEnd = Long.MIN_VALUE;
+
+    public LiveWindow(int intervalMinutes, int windowDays) {
+        if (1440 % intervalMinutes != 0) {
+            throw new IllegalArgumentException("Interval of " + intervalMinutes + " minutes does not divide a day");
+        }
+
+        this.intervalSeconds = intervalMinutes * 60L;
+        this.windowSeconds = windowDays * 86400L;
+        this.intervals = new Ring(windowDays * (1440 / intervalMinutes));
+        this.hours = new Ring(windowDays * 24);
+        this.days = new Ring(windowDays);
+    }
+
+    /**
+     * Adds the interval ending at the epoch second {@code end}. Intervals already in the window, or older
+     * than it, are ignored; a missing interval before the latest one is merged in.
+     *
+     * @return whether the interval was added
+     */
+    public synchronized boolean append(long end, double yield, double export, double consumption, double importEnergy, double cost) {
+        long start = end - intervalSeconds;
+        long interval = Math.floorDiv(start, intervalSeconds);
+
+        if ((latestEnd != Long.MIN_VALUE && end <= latestEnd - windowSeconds) || !intervals.isNew(interval)) {
+            return false;
+        }
+
+        intervals.add(interval, yield, export, consumption, importEnergy, cost);
+        hours.add(Math.floorDiv(start, Timeline.HOUR), yield, export, consumption, importEnergy, cost);
+        days.add(resolver.local(start).toLocalDate().toEpochDay(), yield, export, consumption, importEnergy, cost);
+        latestEnd = Math.max(latestEnd, end);
+
+        return true;
+    }
+
+    /**
+     * Epoch second ending the latest interval.
+     */
+    public synchronized OptionalLong getLatest() {
+        return latestEnd == Long.MIN_VALUE ? OptionalLong.empty() : OptionalLong.of(latestEnd);
+    }
+
+    public synchronized Optional<Totals> latestInterval() {
+        return latestEnd == Long.MIN_VALUE ? Optional.empty() : interval(latestEnd - intervalSeconds);
+    }
+
+    /**
+     * Totals of the interval, hour or day containing the epoch second, empty once it left the window.
+     */
+    public synchronized Optional<Totals> interval(long epochSecond) {
+        long bucket = Math.floorDiv(epochSecond, intervalSeconds);
+        LocalDateTime from = resolver.local(bucket * intervalSeconds);
+
+        return intervals.get(bucket, from, from.plusSeconds(intervalSeconds));
+    }
+
+    public synchronized Optional<Totals> hour(long epochSecond) {
+        long bucket = Math.floorDiv(epochSecond, Timeline.HOUR);
+        LocalDateTime from = resolver.local(bucket * Timeline.HOUR);
+
+        return hours.get(bucket, from, from.plusHours(1));
+    }
+
+    public synchronized Optional<Totals> day(long epochSecond) {
+        LocalDate day = resolver.local(epochSecond).toLocalDate();
+
+        return days.get(day.toEpochDay(), day.atStartOfDay(), day.plusDays(1).atStartOfDay());
+    }
+
+    /**
+     * Aggregated bucket, {@code intervals} is the number of intervals added to it so far.
+     */
+    public record Totals(LocalDateTime from, LocalDateTime to, int intervals, double yield, double export, double consumption, double importEnergy, double cost) {
+    }
+
+    /**
+     * Buckets in slot {@code bucket % capacity}. A slot holding an older bucket is cleared when a newer
+     * bucket claims it, a bucket older than the one in its slot has left the window.
+     */
+    private static final class Ring {
+        private final long[] buckets;
+        private final int[] counts;
+        private final double[] yield;
+        private final double[] export;
+        private final double[] consumption;
+        private final double[] importEnergy;
+        private final double[] cost;
+
+        private Ring(int capacity) {
+            this.buckets = new long[capacity];
+            this.counts = new int[capacity];
+            this.yield = new double[capacity];
+            this.export = new double[capacity];
+            this.consumption = new double[capacity];
+            this.importEnergy = new double[capacity];
+            this.cost = new double[capacity];
+
+            Arrays.fill(buckets, Long.MIN_VALUE);
+        }
+
+        /**
+         * Whether the bucket is not in its slot yet and has not left the window.
+         */
+        private boolean isNew(long bucket) {
+            return buckets[(int) Math.floorMod(bucket, buckets.length)] < bucket;
+        }
+
+        private void add(long bucket, double yield, double export, double consumption, double importEnergy, double cost) {
+            int slot = (int) Math.floorMod(bucket, buckets.length);
+
+            if (buckets[slot] > bucket) {
+                return;
+            }
+
+            if (buckets[slot] != bucket) {
+                buckets[slot] = bucket;
+                counts[slot] = 0;
+                this.yield[slot] = 0;
+                this.export[slot] = 0;
+                this.consumption[slot] = 0;
+                this.importEnergy[slot] = 0;
+                this.cost[slot] = 0;
+            }
+
+            counts[slot]++;
+            this.yield[slot] += yield;
+            this.export[slot] += export;
+            this.consumption[slot] += consumption;
+            this.importEnergy[slot] += importEnergy;
+            this.cost[slot] += cost;
+        }
+
+        private Optional<Totals> get(long bucket, LocalDateTime from, LocalDateTime to) {
+            int slot = (int) Math.floorMod(bucket, buckets.length);
+
+            if (buckets[slot] != bucket) {
+                return Optional.empty();
+            }
+
+            return Optional.of(new Totals(from, to, counts[slot], yield[slot], export[slot], consumption[slot], importEnergy[slot], cost[slot]));
+        }
+    }
+}
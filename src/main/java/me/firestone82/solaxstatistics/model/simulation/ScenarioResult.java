@@ -0,0 +1,29 @@
+package me.firestone82.solaxstatistics.model.simulation;
+
+/**
+ * Totals of one what-if scenario over the simulated range. Energy in kWh, money in CZK.
+ *
+ * @param netCost       import cost minus export revenue
+ * @param vsBaseline    net cost difference to the configured tariff without a battery, negative is cheaper
+ * @param batteryCycles discharged energy over battery capacity
+ */
+public record ScenarioResult(
+        int rank,
+        String name,
+        String tariff,
+        Double exportFee,
+        String battery,
+        double importGrid,
+        double exportGrid,
+        double importCost,
+        double exportRevenue,
+        double savings,
+        double netCost,
+        double vsBaseline,
+        double batteryCycles
+) {
+
+    public ScenarioResult ranked(int rank, double baselineCost) {
+        return new ScenarioResult(rank, name, tariff, exportFee, battery, importGrid, exportGrid, importCost, exportRevenue, savings, netCost, netCost - baselineCost, batteryCycles);
+    }
+}
@@ -0,0 +1,94 @@
+package me.firestone82.solaxstatistics.model.summary;
+
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Cost model of a single slot of a {@link HourlySeries}, an hour or a shorter settlement interval, shared
+ * by the monthly summary and the what-if simulation. One instance is reused across slots, {@link #compute}
+ * overwrites all outputs.
+ */
+@Getter
+public class HourCost {
+    private double consumption;
+    private double yield;
+    private double importPriceGrid;
+    private double exportPriceGrid;
+    private double importGrid;
+    private double importSelf;
+    private double importCostGrid;
+    private double importCostSelf;
+    private double exportGrid;
+    private double exportSelf;
+    private double exportRevenueGrid;
+    private double exportRevenueSelf;
+    private double selfConsumed;
+    private double savings;
+    private double selfUsePercentage;
+
+    /**
+     * Computes the slot at {@code index}. Prices are CZK/kWh, a grid import price of 0 means the spot price converted to CZK/kWh.
+     * {@code discharged} and {@code charged} are kWh of an additional battery that replaced grid import and
+     * absorbed grid export, 0 for the metered history.
+     */
+    public HourCost compute(HourlySeries series, int index, double gridImportPrice, double selfImportPrice, double gridExportFee, double discharged, double charged) {
+        boolean noExport = series.getNoExport()[index];
+        double solaxImport = series.getSolaxImport()[index] - discharged;
+        double solaxExport = series.getSolaxExport()[index] - charged;
+
+        consumption = series.getConsumption()[index];
+        yield = series.getYield()[index];
+
+        // Prices
+        // Spot price is CZK/MWh
+        importPriceGrid = gridImportPrice > 0 ? gridImportPrice : series.getSpotPrice()[index] / 1000;
+        exportPriceGrid = series.getSpotPrice()[index] / 1000;
+        double exportPriceSelf = 0.0; // Late calculation
+
+        // Import
+        importGrid = noExport ? solaxImport : series.getGridImport()[index] - discharged;
+        importSelf = Math.max(solaxImport - importGrid, 0);
+        importCostGrid = importGrid * importPriceGrid;
+        importCostSelf = importSelf * selfImportPrice;
+
+        // Export
+        exportGrid = noExport ? solaxExport : series.getGridExport()[index] - charged;
+        exportSelf = Math.max(solaxExport - exportGrid, 0);
+        exportRevenueGrid = (exportGrid * exportPriceGrid) - (exportGrid * gridExportFee);
+        exportRevenueSelf = exportSelf * exportPriceSelf;
+
+        if (noExport) {
+            exportRevenueGrid = 0.0;
+            exportRevenueSelf = 0.0;
+        }
+
+        // Self consumption
+        selfConsumed = consumption - importGrid - importSelf;
+        savings = selfConsumed * importPriceGrid;
+        selfUsePercentage = consumption == 0 ? 100.0 : Math.max((selfConsumed / consumption) * 100.0, 0);
+
+        return this;
+    }
+
+    /**
+     * Writes the slot into a row of the table.
+     */
+    public void writeTo(SummaryTable table, int row, long minute) {
+        table.setMinute(row, minute);
+        table.set(SummaryMetric.YIELD, row, yield);
+        table.set(SummaryMetric.CONSUMPTION, row, consumption);
+        table.set(SummaryMetric.EXPORT_PRICE_GRID, row, exportPriceGrid);
+        table.set(SummaryMetric.IMPORT_GRID, row, importGrid);
+        table.set(SummaryMetric.IMPORT_SELF, row, importSelf);
+        table.set(SummaryMetric.IMPORT_COST_GRID, row, importCostGrid);
+        table.set(SummaryMetric.IMPORT_COST_SELF, row, importCostSelf);
+        table.set(SummaryMetric.EXPORT_GRID, row, exportGrid);
+        table.set(SummaryMetric.EXPORT_SELF, row, exportSelf);
+        table.set(SummaryMetric.EXPORT_REVENUE_GRID, row, exportRevenueGrid);
+        table.set(SummaryMetric.EXPORT_REVENUE_SELF, row, exportRevenueSelf);
+        table.set(SummaryMetric.SELF_CONSUMMATED, row, selfConsumed);
+        table.set(SummaryMetric.SAVINGS, row, savings);
+        table.set(SummaryMetric.SELF_USE_PERCENTAGE, row, selfUsePercentage);
+    }
+}
@@ -0,0 +1,192 @@
+package me.firestone82.solaxstatistics.model.summary;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import me.firestone82.solaxstatistics.model.EnergyEntry;
+import me.firestone82.solaxstatistics.model.PriceEntry;
+import me.firestone82.solaxstatistics.model.StatisticsEntry;
+import me.firestone82.solaxstatistics.model.Timeline;
+import me.firestone82.solaxstatistics.model.tariff.TariffSchedule;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+
+/**
+ * CEZ, Solax and price inputs of the cost model aligned into primitive arrays, one slot per settlement
+ * interval that has all three. Slots are hours by default, or quarter- and half-hours of the configured
+ * resolution. Energy is in kWh per slot, the spot price in CZK/MWh. Arrays are never modified after
+ * {@link #align}, so one series can be shared by concurrent readers.
+ * <p>
+ * Slots are aligned on their epoch second, so the repeated autumn hour gives slots with the same
+ * wall-clock time twice and the skipped spring hour gives no slots at all.
+ */
+@Slf4j
+@Getter
+public class HourlySeries {
+    // Before 2025-02, no export to grid was possible
+    private static final long EXPORT_SINCE_MINUTE = LocalDateTime.of(2025, 2, 1, 0, 0).toEpochSecond(ZoneOffset.UTC) / 60;
+
+    private final int size;
+    private final long resolutionSeconds;
+    // Epoch second of the slot start
+    private final long[] instants;
+    // Wall-clock slot start in minutes since the epoch, local time taken as UTC like SummaryTable
+    private final long[] minutes;
+    // Wall-clock hours since the hour of the first slot, index into tables from TariffSchedule#hourly
+    private final int[] hourOffsets;
+    private final double[] consumption;
+    private final double[] yield;
+    private final double[] solaxImport;
+    private final double[] solaxExport;
+    private final double[] gridImport;
+    private final double[] gridExport;
+    private final double[] spotPrice;
+    private final boolean[] noExport;
+
+    private HourlySeries(int size, long resolutionSeconds) {
+        this.size = size;
+        this.resolutionSeconds = resolutionSeconds;
+        this.instants = new long[size];
+        this.minutes = new long[size];
+        this.hourOffsets = new int[size];
+        this.consumption = new double[size];
+        this.yield = new double[size];
+        this.solaxImport = new double[size];
+        this.solaxExport = new double[size];
+        this.gridImport = new double[size];
+        this.gridExport = new double[size];
+        this.spotPrice = new double[size];
+        this.noExport = new boolean[size];
+    }
+
+    /**
+     * Aligns the sources by CEZ interval, all keyed by the epoch second of the interval start and
+     * aggregated to the same resolution. A missing Solax interval takes the previous one, intervals
+     * without energy or price are skipped.
+     */
+    public static HourlySeries align(NavigableMap<Long, EnergyEntry> cezData, NavigableMap<Long, StatisticsEntry> solaxData, List<PriceEntry> priceData, Duration resolution) {
+        Timeline.Resolver resolver = Timeline.PRAGUE.resolver();
+        long resolutionSeconds = resolution.toSeconds();
+
+        // Prices are stamped at the start, the first price of every interval counts
+        long[] priceBuckets = Timeline.PRAGUE.buckets(priceData, PriceEntry::getDateTime, 0, resolutionSeconds);
+        NavigableMap<Long, PriceEntry> priceMap = new TreeMap<>();
+        for (int i = 0; i < priceBuckets.length; i++) {
+            priceMap.putIfAbsent(priceBuckets[i], priceData.get(i));
+        }
+
+        HourlySeries series = new HourlySeries(cezData.size(), resolutionSeconds);
+        long firstHourMinute = cezData.isEmpty() ? 0 : hourMinute(resolver.localMinute(cezData.firstKey()));
+        int index = 0;
+
+        for (Map.Entry<Long, EnergyEntry> e : cezData.entrySet()) {
+            long instant = e.getKey();
+            EnergyEntry energyEntry = e.getValue();
+            PriceEntry priceEntry = price(priceMap, instant);
+
+            // Try exact match first; otherwise take the previous (floor) entry.
+            StatisticsEntry statisticsEntry = solaxData.get(instant);
+            if (statisticsEntry == null) {
+                Map.Entry<Long, StatisticsEntry> floor = solaxData.floorEntry(instant);
+
+                statisticsEntry = (floor != null) ? floor.getValue() : null;
+                if (statisticsEntry != null) {
+                    log.debug("Using previous StatisticsEntry from {} for {}", resolver.local(floor.getKey()), resolver.local(instant));
+                }
+            }
+
+            if (energyEntry == null || priceEntry == null || statisticsEntry == null) {
+                log.warn("Missing data for date: {} (energy={}, price={}, stats={})", resolver.local(instant), energyEntry != null, priceEntry != null, statisticsEntry != null);
+                continue;
+            }
+
+            long minute = resolver.localMinute(instant);
+            series.instants[index] = instant;
+            series.minutes[index] = minute;
+            series.hourOffsets[index] = (int) ((hourMinute(minute) - firstHourMinute) / 60);
+            // Solax (convert MWh -> kWh)
+            series.consumption[index] = statisticsEntry.getConsumptionMWh() * 1000;
+            series.yield[index] = statisticsEntry.getYieldMWh() * 1000;
+            series.solaxImport[index] = statisticsEntry.getImportMWh() * 1000;
+            series.solaxExport[index] = statisticsEntry.getExportMWh() * 1000;
+            series.gridImport[index] = energyEntry.getImportMWh();
+            series.gridExport[index] = energyEntry.getExportMWh();
+            series.spotPrice[index] = priceEntry.getCzkPriceMWh();
+            series.noExport[index] = minute < EXPORT_SINCE_MINUTE;
+            index++;
+        }
+
+        return index == series.size ? series : series.truncate(index);
+    }
+
+    /**
+     * Length of a slot in hours, e.g. 0.25 for quarter-hours.
+     */
+    public double slotHours() {
+        return (double) resolutionSeconds / Timeline.HOUR;
+    }
+
+    /**
+     * Wall-clock start of the slot, slots of the repeated autumn hour give the same times twice.
+     */
+    public LocalDateTime date(int index) {
+        return LocalDateTime.ofEpochSecond(minutes[index] * 60, 0, ZoneOffset.UTC);
+    }
+
+    /**
+     * Prices of the schedule at every slot of the series, taken from the hour the slot is in.
+     */
+    public double[] prices(TariffSchedule schedule) {
+        double[] prices = new double[size];
+        if (size == 0) {
+            return prices;
+        }
+
+        double[] table = schedule.hourly(date(0), hourOffsets[size - 1] + 1);
+        for (int i = 0; i < size; i++) {
+            prices[i] = table[hourOffsets[i]];
+        }
+
+        return prices;
+    }
+
+    private HourlySeries truncate(int newSize) {
+        HourlySeries copy = new HourlySeries(newSize, resolutionSeconds);
+        System.arraycopy(instants, 0, copy.instants, 0, newSize);
+        System.arraycopy(minutes, 0, copy.minutes, 0, newSize);
+        System.arraycopy(consumption, 0, copy.consumption, 0, newSize);
+        System.arraycopy(yield, 0, copy.yield, 0, newSize);
+        System.arraycopy(solaxImport, 0, copy.solaxImport, 0, newSize);
+        System.arraycopy(solaxExport, 0, copy.solaxExport, 0, newSize);
+        System.arraycopy(gridImport, 0, copy.gridImport, 0, newSize);
+        System.arraycopy(gridExport, 0, copy.gridExport, 0, newSize);
+        System.arraycopy(spotPrice, 0, copy.spotPrice, 0, newSize);
+        System.arraycopy(noExport, 0, copy.noExport, 0, newSize);
+
+        // Offsets are relative to the hour of the first kept slot
+        for (int i = 0; i < newSize; i++) {
+            copy.hourOffsets[i] = hourOffsets[i] - hourOffsets[0];
+        }
+
+        return copy;
+    }
+
+    /**
+     * Price of the interval, or of the hour it is in when prices are coarser than the resolution.
+     */
+    private static PriceEntry price(NavigableMap<Long, PriceEntry> priceMap, long instant) {
+        PriceEntry exact = priceMap.get(instant);
+        if (exact != null) {
+            return exact;
+        }
+
+        Map.Entry<Long, PriceEntry> floor = priceMap.floorEntry(instant);
+        return floor != null && Timeline.hourStart(floor.getKey()) == Timeline.hourStart(instant) ? floor.getValue() : null;
+    }
+
+    private static long hourMinute(long minute) {
+        return minute - Math.floorMod(minute, 60);
+    }
+}
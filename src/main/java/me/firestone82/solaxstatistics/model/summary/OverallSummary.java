@@ -1,51 +1,68 @@
 package me.firestone82.solaxstatistics.model.summary;
 
 import lombok.Getter;
+import me.firestone82.solaxstatistics.model.DateRange;
+import me.firestone82.solaxstatistics.model.tariff.Tariffs;
 
 import java.time.YearMonth;
-import java.util.ArrayList;
-import java.util.List;
 
 @Getter
 public class OverallSummary {
-    private final YearMonth date;
-    private final List<SummaryRow> hourly;
-    private final List<SummaryRow> daily;
+    private final DateRange range;
+    // Rows at the summary resolution, hours unless summary.resolution is finer
+    private final SummaryTable hourly;
+    private final SummaryTable daily;
+    // Single row
+    private final SummaryTable totals;
     private final SummaryRow total;
 
-    public OverallSummary(YearMonth date, List<SummaryRow> hourly) {
-        this.date = date;
+    public OverallSummary(YearMonth date, SummaryTable hourly, Tariffs tariffs) {
+        this(DateRange.of(date), hourly, tariffs);
+    }
+
+    /**
+     * Summary of any range, e.g. a month to date. The total is a single bucket dated at the range start.
+     */
+    public OverallSummary(DateRange range, SummaryTable hourly, Tariffs tariffs) {
+        this.range = range;
         this.hourly = hourly;
 
-        List<SummaryRow> daily = SummaryRow.aggregate(this.hourly, SummaryRow.Granularity.DAY);
-        this.daily = preprocessExportSelf(daily, false);
+        this.daily = hourly.aggregate(SummaryRow.Granularity.DAY);
+        preprocessExportSelf(this.daily, false, tariffs);
 
         // Calculate self export revenue
-        SummaryRow total = SummaryRow.aggregate(daily, SummaryRow.Granularity.MONTH).getFirst();
-        this.total = preprocessExportSelf(List.of(total), true).getFirst();
+        this.totals = this.daily.aggregate(range.from());
+        preprocessExportSelf(this.totals, true, tariffs);
+        this.total = this.totals.row(0);
+    }
+
+    public YearMonth getDate() {
+        return YearMonth.from(range.from());
     }
 
-    public static List<SummaryRow> preprocessExportSelf(List<SummaryRow> rows, boolean overflowCharge) {
-        List<SummaryRow> closedRows = new ArrayList<>(rows); // Make mutable copy
+    /**
+     * Prices the self import and export of aggregated rows at the tariffs valid at the row date. The rows
+     * are updated in place.
+     */
+    public static SummaryTable preprocessExportSelf(SummaryTable rows, boolean overflowCharge, Tariffs tariffs) {
+        for (int r = 0; r < rows.size(); r++) {
+            double exportSelf = rows.get(SummaryMetric.EXPORT_SELF, r);
+            double importSelf = rows.get(SummaryMetric.IMPORT_SELF, r);
 
-        closedRows.forEach(row -> {
-            if ((row.getExportSelf() - row.getImportSelf()) > 0) {
-                row.setExportRevenueSelf((row.getExportSelf() - row.getImportSelf()) * 3.0);
+            if ((exportSelf - importSelf) > 0) {
+                rows.set(SummaryMetric.EXPORT_REVENUE_SELF, r, (exportSelf - importSelf) * tariffs.selfExport().price(rows.date(r)));
             }
 
-            int hour = row.getDate().getHour();
-            if (hour < 6 || hour >= 19 && hour <= 21) {
-                row.setImportCostSelf(row.getImportSelf() * 1.1);
-            } else {
-                row.setImportCostSelf(row.getImportSelf() * 2.1);
-            }
+            double importCostSelf = importSelf * tariffs.selfImport().price(rows.date(r));
 
-            if (overflowCharge && row.getExportSelf() < row.getImportSelf()) {
-                double overflow = row.getImportSelf() - row.getExportSelf();
-                row.setImportCostSelf(row.getImportCostSelf() + (overflow * 4.5));
+            if (overflowCharge && exportSelf < importSelf) {
+                double overflow = importSelf - exportSelf;
+                importCostSelf = importCostSelf + (overflow * tariffs.selfOverflow().price(rows.date(r)));
             }
-        });
 
-        return closedRows;
+            rows.set(SummaryMetric.IMPORT_COST_SELF, r, importCostSelf);
+        }
+
+        return rows;
     }
 }
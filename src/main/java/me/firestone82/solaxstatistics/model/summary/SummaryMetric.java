@@ -0,0 +1,39 @@
+package me.firestone82.solaxstatistics.model.summary;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.experimental.Accessors;
+
+import java.util.function.ObjDoubleConsumer;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Numeric columns of {@link SummaryRow}, in field order. Used by exports that write the row as plain columns
+ * and as the columns of {@link SummaryTable}.
+ */
+@Getter
+@AllArgsConstructor
+public enum SummaryMetric {
+    YIELD("yield", SummaryRow::getYield, SummaryRow::setYield),
+    CONSUMPTION("consumption", SummaryRow::getConsumption, SummaryRow::setConsumption),
+    EXPORT_PRICE_GRID("exportPriceGrid", SummaryRow::getExportPriceGrid, SummaryRow::setExportPriceGrid),
+    IMPORT_GRID("importGrid", SummaryRow::getImportGrid, SummaryRow::setImportGrid),
+    IMPORT_SELF("importSelf", SummaryRow::getImportSelf, SummaryRow::setImportSelf),
+    IMPORT_COST_GRID("importCostGrid", SummaryRow::getImportCostGrid, SummaryRow::setImportCostGrid),
+    IMPORT_COST_SELF("importCostSelf", SummaryRow::getImportCostSelf, SummaryRow::setImportCostSelf),
+    EXPORT_GRID("exportGrid", SummaryRow::getExportGrid, SummaryRow::setExportGrid),
+    EXPORT_SELF("exportSelf", SummaryRow::getExportSelf, SummaryRow::setExportSelf),
+    EXPORT_REVENUE_GRID("exportRevenueGrid", SummaryRow::getExportRevenueGrid, SummaryRow::setExportRevenueGrid),
+    EXPORT_REVENUE_SELF("exportRevenueSelf", SummaryRow::getExportRevenueSelf, SummaryRow::setExportRevenueSelf),
+    SELF_CONSUMMATED("selfConsummated", SummaryRow::getSelfConsummated, SummaryRow::setSelfConsummated),
+    SAVINGS("savings", SummaryRow::getSavings, SummaryRow::setSavings),
+    SELF_USE_PERCENTAGE("selfUsePercentage", SummaryRow::getSelfUsePercentage, SummaryRow::setSelfUsePercentage);
+
+    private final String fieldName;
+
+    @Accessors(fluent = true)
+    private final ToDoubleFunction<SummaryRow> value;
+
+    @Accessors(fluent = true)
+    private final ObjDoubleConsumer<SummaryRow> setter;
+}
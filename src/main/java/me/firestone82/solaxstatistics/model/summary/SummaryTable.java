@@ -0,0 +1,378 @@
+package me.firestone82.solaxstatistics.model.summary;
+
+import me.firestone82.solaxstatistics.model.DateRange;
+import me.firestone82.solaxstatistics.model.Timeline;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.OptionalLong;
+
+/**
+ * Summary rows stored column-wise: one {@code double[]} per {@link SummaryMetric} and the bucket start as
+ * minutes since the epoch (local time taken as UTC, like the columnar export). Rows are kept sorted by
+ * date. {@link #slice} returns a view over the same arrays, writes through a view are visible in the table
+ * it was taken from.
+ * <p>
+ * Sums over rows use the same compensated summation as {@link java.util.stream.DoubleStream#sum()}, so
+ * aggregates are identical to those of the row based code this replaced.
+ */
+public class SummaryTable {
+    private static final SummaryMetric[] METRICS = SummaryMetric.values();
+
+    private final long[] minutes;
+    private final double[][] columns;
+    private final int offset;
+    private final int size;
+
+    /**
+     * Table of {@code size} zero rows dated at the epoch, to be filled by the caller.
+     */
+    public SummaryTable(int size) {
+        this(new long[size], new double[METRICS.length][size], 0, size);
+    }
+
+    private SummaryTable(long[] minutes, double[][] columns, int offset, int size) {
+        this.minutes = minutes;
+        this.columns = columns;
+        this.offset = offset;
+        this.size = size;
+    }
+
+    public static SummaryTable of(List<SummaryRow> rows) {
+        SummaryTable table = new SummaryTable(rows.size());
+
+        for (int r = 0; r < rows.size(); r++) {
+            SummaryRow row = rows.get(r);
+            table.setDate(r, row.getDate());
+
+            for (SummaryMetric metric : METRICS) {
+                table.columns[metric.ordinal()][r] = metric.value().applyAsDouble(row);
+            }
+        }
+
+        return table;
+    }
+
+    /**
+     * Tables one after another, copied into a new table.
+     */
+    public static SummaryTable concat(List<SummaryTable> tables) {
+        SummaryTable joined = new SummaryTable(tables.stream().mapToInt(SummaryTable::size).sum());
+        int position = 0;
+
+        for (SummaryTable table : tables) {
+            table.copyInto(joined, position);
+            position += table.size;
+        }
+
+        return joined;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public long minute(int row) {
+        return minutes[offset + row];
+    }
+
+    public LocalDateTime date(int row) {
+        return toDate(minutes[offset + row]);
+    }
+
+    public void setDate(int row, LocalDateTime date) {
+        minutes[offset + row] = toMinute(date);
+    }
+
+    public void setMinute(int row, long minute) {
+        minutes[offset + row] = minute;
+    }
+
+    public double get(SummaryMetric metric, int row) {
+        return columns[metric.ordinal()][offset + row];
+    }
+
+    public void set(SummaryMetric metric, int row, double value) {
+        columns[metric.ordinal()][offset + row] = value;
+    }
+
+    public double sum(SummaryMetric metric) {
+        return sum(columns[metric.ordinal()], offset, offset + size);
+    }
+
+    /**
+     * Rows {@code from} (inclusive) to {@code to} (exclusive) as a view.
+     */
+    public SummaryTable slice(int from, int to) {
+        if (from < 0 || to > size || from > to) {
+            throw new IndexOutOfBoundsException("Slice [" + from + ", " + to + ") of " + size + " rows");
+        }
+
+        return new SummaryTable(minutes, columns, offset + from, to - from);
+    }
+
+    /**
+     * Rows whose bucket starts inside the range, as a view.
+     */
+    public SummaryTable slice(DateRange range) {
+        return slice(range.from(), range.to());
+    }
+
+    /**
+     * Rows whose bucket starts at or after {@code from} and before {@code to}, as a view. Bounds inside the
+     * repeated autumn hour are taken from its first pass.
+     */
+    public SummaryTable slice(LocalDateTime from, LocalDateTime to) {
+        if (isMonotonic()) {
+            int first = lowerBound(toMinute(from));
+            return slice(first, Math.max(first, lowerBound(toMinute(to))));
+        }
+
+        // Rows finer than an hour go back in local time in the repeated autumn hour, search them by instant
+        long[] instants = instants();
+        int first = lowerBound(instants, instant(from));
+        return slice(first, Math.max(first, lowerBound(instants, instant(to))));
+    }
+
+    public SummaryTable copy() {
+        SummaryTable copy = new SummaryTable(size);
+        copyInto(copy, 0);
+
+        return copy;
+    }
+
+    /**
+     * Copy with the rows in reverse order, e.g. newest first for the workbook.
+     */
+    public SummaryTable reversed() {
+        SummaryTable reversed = new SummaryTable(size);
+
+        for (int r = 0; r < size; r++) {
+            int source = offset + size - 1 - r;
+            reversed.minutes[r] = minutes[source];
+
+            for (int m = 0; m < METRICS.length; m++) {
+                reversed.columns[m][r] = columns[m][source];
+            }
+        }
+
+        return reversed;
+    }
+
+    /**
+     * Length of the rows, the shortest step between two rows in seconds. Empty for fewer than two rows.
+     */
+    public OptionalLong stepSeconds() {
+        long[] instants = instants();
+        long step = Long.MAX_VALUE;
+
+        for (int r = 1; r < instants.length; r++) {
+            if (instants[r] > instants[r - 1]) {
+                step = Math.min(step, instants[r] - instants[r - 1]);
+            }
+        }
+
+        return step == Long.MAX_VALUE ? OptionalLong.empty() : OptionalLong.of(step);
+    }
+
+    /**
+     * One row per bucket of the granularity, dated at the bucket start. Buckets are runs of rows, which
+     * relies on the rows being sorted. Hours of rows finer than an hour keep the repeated autumn hour
+     * apart, a row earlier than the one before it starts a new hour.
+     */
+    public SummaryTable aggregate(SummaryRow.Granularity granularity) {
+        int[] starts = new int[size + 1];
+        long[] keys = new long[size];
+        int buckets = 0;
+
+        long previousDay = Long.MIN_VALUE;
+        long previousMinute = Long.MIN_VALUE;
+        long key = 0;
+
+        for (int r = 0; r < size; r++) {
+            long minute = minutes[offset + r];
+            long day = Math.floorDiv(minute, 1440);
+            boolean repeated = granularity == SummaryRow.Granularity.HOUR && minute < previousMinute;
+            previousMinute = minute;
+
+            // Months and years only need the calendar when the day changes
+            if (granularity == SummaryRow.Granularity.HOUR) {
+                key = minute - Math.floorMod(minute, 60);
+            } else if (day != previousDay) {
+                key = switch (granularity) {
+                    case DAY -> day * 1440;
+                    case MONTH -> LocalDate.ofEpochDay(day).withDayOfMonth(1).toEpochDay() * 1440;
+                    case YEAR -> LocalDate.ofEpochDay(day).withDayOfYear(1).toEpochDay() * 1440;
+                    case HOUR -> throw new IllegalStateException();
+                };
+                previousDay = day;
+            }
+
+            if (buckets == 0 || keys[buckets - 1] != key || repeated) {
+                keys[buckets] = key;
+                starts[buckets++] = r;
+            }
+        }
+
+        starts[buckets] = size;
+
+        SummaryTable aggregated = new SummaryTable(buckets);
+        for (int b = 0; b < buckets; b++) {
+            aggregated.minutes[b] = keys[b];
+            aggregateInto(aggregated, b, offset + starts[b], offset + starts[b + 1], granularity == SummaryRow.Granularity.HOUR);
+        }
+
+        return aggregated;
+    }
+
+    /**
+     * All rows as a single bucket with the given date. An empty table gives a zero row.
+     */
+    public SummaryTable aggregate(LocalDateTime date) {
+        SummaryTable aggregated = new SummaryTable(1);
+        aggregated.setDate(0, date);
+        aggregateInto(aggregated, 0, offset, offset + size, false);
+
+        return aggregated;
+    }
+
+    public SummaryRow row(int row) {
+        SummaryRow summaryRow = new SummaryRow();
+        summaryRow.setDate(date(row));
+
+        for (SummaryMetric metric : METRICS) {
+            metric.setter().accept(summaryRow, columns[metric.ordinal()][offset + row]);
+        }
+
+        return summaryRow;
+    }
+
+    public List<SummaryRow> toRows() {
+        List<SummaryRow> rows = new ArrayList<>(size);
+        for (int r = 0; r < size; r++) {
+            rows.add(row(r));
+        }
+
+        return rows;
+    }
+
+    /**
+     * Sums of the rows, except the self use percentage which is averaged and the export price which is
+     * averaged into hours and not carried over into longer buckets.
+     */
+    private void aggregateInto(SummaryTable target, int targetRow, int from, int to, boolean keepPrice) {
+        for (SummaryMetric metric : METRICS) {
+            double[] column = columns[metric.ordinal()];
+
+            target.columns[metric.ordinal()][targetRow] = switch (metric) {
+                case EXPORT_PRICE_GRID -> keepPrice && to > from ? sum(column, from, to) / (to - from) : 0;
+                case SELF_USE_PERCENTAGE -> to > from ? sum(column, from, to) / (to - from) : 0.0;
+                default -> sum(column, from, to);
+            };
+        }
+    }
+
+    private void copyInto(SummaryTable target, int position) {
+        System.arraycopy(minutes, offset, target.minutes, position, size);
+
+        for (int m = 0; m < METRICS.length; m++) {
+            System.arraycopy(columns[m], offset, target.columns[m], position, size);
+        }
+    }
+
+    private boolean isMonotonic() {
+        for (int i = offset + 1; i < offset + size; i++) {
+            if (minutes[i] < minutes[i - 1]) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Epoch second of each row, resolved in row order.
+     */
+    private long[] instants() {
+        Timeline.Resolver resolver = Timeline.PRAGUE.resolver();
+        long[] instants = new long[size];
+
+        for (int r = 0; r < size; r++) {
+            instants[r] = resolver.epochSecond(date(r));
+        }
+
+        return instants;
+    }
+
+    /**
+     * Epoch second of a bound, clamped around the rows so open bounds like {@link LocalDateTime#MIN} resolve.
+     */
+    private long instant(LocalDateTime bound) {
+        long minute = Math.clamp(toMinute(bound), minutes[offset] - 1440, minutes[offset + size - 1] + 1440);
+        return Timeline.PRAGUE.resolver().epochSecond(toDate(minute));
+    }
+
+    private static int lowerBound(long[] values, long key) {
+        int from = 0;
+        int to = values.length;
+
+        while (from < to) {
+            int middle = (from + to) >>> 1;
+            if (values[middle] < key) {
+                from = middle + 1;
+            } else {
+                to = middle;
+            }
+        }
+
+        return from;
+    }
+
+    private int lowerBound(long minute) {
+        int from = offset;
+        int to = offset + size;
+
+        while (from < to) {
+            int middle = (from + to) >>> 1;
+            if (minutes[middle] < minute) {
+                from = middle + 1;
+            } else {
+                to = middle;
+            }
+        }
+
+        return from - offset;
+    }
+
+    private static double sum(double[] values, int from, int to) {
+        double sum = 0.0;
+        double compensation = 0.0;
+        double simpleSum = 0.0;
+
+        for (int i = from; i < to; i++) {
+            double value = values[i] - compensation;
+            double next = sum + value;
+            compensation = (next - sum) - value;
+            sum = next;
+            simpleSum += values[i];
+        }
+
+        double result = sum - compensation;
+        return Double.isNaN(result) && Double.isInfinite(simpleSum) ? simpleSum : result;
+    }
+
+    private static long toMinute(LocalDateTime date) {
+        return date.toEpochSecond(ZoneOffset.UTC) / 60;
+    }
+
+    private static LocalDateTime toDate(long minute) {
+        return LocalDateTime.ofEpochSecond(minute * 60, 0, ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,7 @@
+package me.firestone82.solaxstatistics.model.tariff;
+
+public enum DayType {
+    WORKDAY,
+    WEEKEND,
+    HOLIDAY
+}
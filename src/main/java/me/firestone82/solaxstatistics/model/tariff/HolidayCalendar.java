@@ -0,0 +1,72 @@
+package me.firestone82.solaxstatistics.model.tariff;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.MonthDay;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Classifies days for time-of-use tariffs. Holidays are fixed days of every year, explicit dates and
+ * optionally Good Friday and Easter Monday, which are public holidays in Czechia.
+ */
+public class HolidayCalendar {
+    private final Set<MonthDay> everyYear;
+    private final Set<LocalDate> dates;
+    private final boolean easter;
+    private final Map<Integer, Set<LocalDate>> easterDays = new ConcurrentHashMap<>();
+
+    public HolidayCalendar(Set<MonthDay> everyYear, Set<LocalDate> dates, boolean easter) {
+        this.everyYear = Set.copyOf(everyYear);
+        this.dates = Set.copyOf(dates);
+        this.easter = easter;
+    }
+
+    public DayType dayType(LocalDate date) {
+        if (isHoliday(date)) {
+            return DayType.HOLIDAY;
+        }
+
+        DayOfWeek day = date.getDayOfWeek();
+        return day == DayOfWeek.SATURDAY || day == DayOfWeek.SUNDAY ? DayType.WEEKEND : DayType.WORKDAY;
+    }
+
+    public boolean isHoliday(LocalDate date) {
+        return everyYear.contains(MonthDay.from(date))
+                || dates.contains(date)
+                || (easter && easterDays.computeIfAbsent(date.getYear(), HolidayCalendar::easterHolidays).contains(date));
+    }
+
+    private static Set<LocalDate> easterHolidays(int year) {
+        LocalDate sunday = easterSunday(year);
+
+        Set<LocalDate> days = new HashSet<>();
+        days.add(sunday.minusDays(2));
+        days.add(sunday.plusDays(1));
+        return days;
+    }
+
+    /**
+     * Gregorian Easter Sunday (anonymous Gregorian algorithm).
+     */
+    private static LocalDate easterSunday(int year) {
+        int a = year % 19;
+        int b = year / 100;
+        int c = year % 100;
+        int d = b / 4;
+        int e = b % 4;
+        int f = (b + 8) / 25;
+        int g = (b - f + 1) / 3;
+        int h = (19 * a + b - d - g + 15) % 30;
+        int i = c / 4;
+        int k = c % 4;
+        int l = (32 + 2 * e + 2 * i - h - k) % 7;
+        int m = (a + 11 * h + 22 * l) / 451;
+        int month = (h + l - 7 * m + 114) / 31;
+        int day = ((h + l - 7 * m + 114) % 31) + 1;
+
+        return LocalDate.of(year, month, day);
+    }
+}
@@ -0,0 +1,84 @@
+package me.firestone82.solaxstatistics.model.tariff;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Compiled price schedule of one rate. Every validity period holds a 24-hour price profile per
+ * {@link DayType}, so a price is a period lookup and an array read, and pricing an hourly series copies
+ * one profile per day.
+ */
+public class TariffSchedule {
+    private final List<Period> periods;
+    private final HolidayCalendar calendar;
+
+    public TariffSchedule(List<Period> periods, HolidayCalendar calendar) {
+        this.periods = periods.stream().sorted(Comparator.comparing(Period::from, Comparator.nullsFirst(Comparator.naturalOrder()))).toList();
+        this.calendar = calendar;
+    }
+
+    public static TariffSchedule flat(double price, HolidayCalendar calendar) {
+        double[] profile = new double[24];
+        Arrays.fill(profile, price);
+
+        return new TariffSchedule(List.of(new Period(null, null, new double[][]{profile, profile, profile})), calendar);
+    }
+
+    /**
+     * Price per kWh in the hour starting at the given time, 0 outside of all validity periods.
+     */
+    public double price(LocalDateTime dateTime) {
+        double[] profile = profile(dateTime.toLocalDate());
+        return profile == null ? 0.0 : profile[dateTime.getHour()];
+    }
+
+    /**
+     * Prices of consecutive hours starting at {@code from}.
+     */
+    public double[] hourly(LocalDateTime from, int hours) {
+        double[] prices = new double[hours];
+        LocalDate day = from.toLocalDate();
+        int hour = from.getHour();
+        int index = 0;
+
+        while (index < hours) {
+            int count = Math.min(24 - hour, hours - index);
+            double[] profile = profile(day);
+
+            if (profile != null) {
+                System.arraycopy(profile, hour, prices, index, count);
+            }
+
+            index += count;
+            hour = 0;
+            day = day.plusDays(1);
+        }
+
+        return prices;
+    }
+
+    private double[] profile(LocalDate date) {
+        for (int i = periods.size() - 1; i >= 0; i--) {
+            Period period = periods.get(i);
+
+            if (period.contains(date)) {
+                return period.profiles()[calendar.dayType(date).ordinal()];
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Validity period {@code [from, to)}, open ended where null, with profiles indexed by {@link DayType#ordinal()}.
+     */
+    public record Period(LocalDate from, LocalDate to, double[][] profiles) {
+
+        boolean contains(LocalDate date) {
+            return (from == null || !date.isBefore(from)) && (to == null || date.isBefore(to));
+        }
+    }
+}
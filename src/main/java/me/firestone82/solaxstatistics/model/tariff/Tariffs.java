@@ -0,0 +1,45 @@
+package me.firestone82.solaxstatistics.model.tariff;
+
+import java.util.Map;
+
+/**
+ * Compiled schedules of all rates used by the cost model.
+ */
+public record Tariffs(Map<Rate, TariffSchedule> schedules) {
+
+    public TariffSchedule get(Rate rate) {
+        return schedules.get(rate);
+    }
+
+    public TariffSchedule selfImport() {
+        return get(Rate.SELF_IMPORT);
+    }
+
+    public TariffSchedule selfExport() {
+        return get(Rate.SELF_EXPORT);
+    }
+
+    public TariffSchedule selfOverflow() {
+        return get(Rate.SELF_OVERFLOW);
+    }
+
+    public TariffSchedule gridImport() {
+        return get(Rate.GRID_IMPORT);
+    }
+
+    public TariffSchedule gridExportFee() {
+        return get(Rate.GRID_EXPORT_FEE);
+    }
+
+    public enum Rate {
+        // Import not metered by the grid (importSelf)
+        SELF_IMPORT,
+        // Revenue of exportSelf over importSelf
+        SELF_EXPORT,
+        // Charge of importSelf over exportSelf, monthly and yearly rows only
+        SELF_OVERFLOW,
+        // Grid import price, 0 means the spot price
+        GRID_IMPORT,
+        GRID_EXPORT_FEE
+    }
+}
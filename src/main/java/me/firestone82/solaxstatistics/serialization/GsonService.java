@@ -2,28 +2,51 @@ package me.firestone82.solaxstatistics.serialization;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
-import me.firestone82.solaxstatistics.serialization.adapter.EnumJsonAdapter;
-import me.firestone82.solaxstatistics.serialization.adapter.LocalDateTimeJsonAdapter;
+import me.firestone82.solaxstatistics.model.EnergyEntry;
+import me.firestone82.solaxstatistics.model.PriceEntry;
+import me.firestone82.solaxstatistics.model.StatisticsEntry;
+import me.firestone82.solaxstatistics.model.summary.SummaryRow;
+import me.firestone82.solaxstatistics.model.summary.SummaryTable;
+import me.firestone82.solaxstatistics.serialization.adapter.*;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 import java.time.LocalDateTime;
 
+/**
+ * Shared Gson instances. Summaries and series have hand-written streaming adapters, so large lists are
+ * written member by member without reflection. Output is compact, {@link #prettyGson} indents it.
+ */
 @Configuration
 @ConditionalOnClass(Gson.class)
 public class GsonService {
 
-    public static final Gson gson = new GsonBuilder()
-            .registerTypeAdapter(LocalDateTime.class, new LocalDateTimeJsonAdapter())
-            .registerTypeHierarchyAdapter(Enum.class, new EnumJsonAdapter())
-            .serializeNulls()
-            .disableHtmlEscaping()
-            .setPrettyPrinting()
-            .create();
+    public static final Gson gson = builder().create();
+    public static final Gson prettyGson = builder().setPrettyPrinting().create();
+
+    /**
+     * Instance for human-facing output, indented when {@code json.pretty} is set.
+     */
+    public static Gson gson(boolean pretty) {
+        return pretty ? prettyGson : gson;
+    }
+
+    private static GsonBuilder builder() {
+        return new GsonBuilder()
+                .registerTypeAdapter(LocalDateTime.class, new LocalDateTimeJsonAdapter())
+                .registerTypeAdapter(SummaryRow.class, new SummaryRowJsonAdapter())
+                .registerTypeAdapter(SummaryTable.class, new SummaryTableJsonAdapter())
+                .registerTypeAdapter(StatisticsEntry.class, new StatisticsEntryJsonAdapter())
+                .registerTypeAdapter(EnergyEntry.class, new EnergyEntryJsonAdapter())
+                .registerTypeAdapter(PriceEntry.class, new PriceEntryJsonAdapter())
+                .registerTypeHierarchyAdapter(Enum.class, new EnumJsonAdapter())
+                .serializeNulls()
+                .disableHtmlEscaping();
+    }
 
     @Bean
     public Gson gson() {
         return gson;
     }
-}
\ No newline at end of file
+}
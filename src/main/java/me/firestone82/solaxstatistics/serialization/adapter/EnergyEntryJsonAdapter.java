@@ -0,0 +1,53 @@
+package me.firestone82.solaxstatistics.serialization.adapter;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import me.firestone82.solaxstatistics.model.EnergyEntry;
+
+import java.io.IOException;
+
+/**
+ * {@link EnergyEntry} written and read without reflection.
+ */
+public class EnergyEntryJsonAdapter extends TypeAdapter<EnergyEntry> {
+
+    @Override
+    public void write(JsonWriter out, EnergyEntry entry) throws IOException {
+        if (entry == null) {
+            out.nullValue();
+            return;
+        }
+
+        out.beginObject();
+        out.name("dateTime");
+        LocalDateTimeJsonAdapter.writeDate(out, entry.getDateTime());
+        out.name("importMWh").value(entry.getImportMWh());
+        out.name("exportMWh").value(entry.getExportMWh());
+        out.endObject();
+    }
+
+    @Override
+    public EnergyEntry read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+
+        EnergyEntry entry = new EnergyEntry();
+
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "dateTime" -> entry.setDateTime(LocalDateTimeJsonAdapter.readDate(in));
+                case "importMWh" -> entry.setImportMWh(in.nextDouble());
+                case "exportMWh" -> entry.setExportMWh(in.nextDouble());
+                default -> in.skipValue();
+            }
+        }
+        in.endObject();
+
+        return entry;
+    }
+}
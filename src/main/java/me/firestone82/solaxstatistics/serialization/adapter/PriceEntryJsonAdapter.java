@@ -0,0 +1,56 @@
+package me.firestone82.solaxstatistics.serialization.adapter;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import me.firestone82.solaxstatistics.model.PriceEntry;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+
+/**
+ * {@link PriceEntry} written and read without reflection.
+ */
+public class PriceEntryJsonAdapter extends TypeAdapter<PriceEntry> {
+
+    @Override
+    public void write(JsonWriter out, PriceEntry entry) throws IOException {
+        if (entry == null) {
+            out.nullValue();
+            return;
+        }
+
+        out.beginObject();
+        out.name("dateTime");
+        LocalDateTimeJsonAdapter.writeDate(out, entry.getDateTime());
+        out.name("czkPriceMWh").value(entry.getCzkPriceMWh());
+        out.name("eurPriceMWh").value(entry.getEurPriceMWh());
+        out.endObject();
+    }
+
+    @Override
+    public PriceEntry read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+
+        LocalDateTime dateTime = null;
+        double czk = 0;
+        double eur = 0;
+
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "dateTime" -> dateTime = LocalDateTimeJsonAdapter.readDate(in);
+                case "czkPriceMWh" -> czk = in.nextDouble();
+                case "eurPriceMWh" -> eur = in.nextDouble();
+                default -> in.skipValue();
+            }
+        }
+        in.endObject();
+
+        return new PriceEntry(dateTime, czk, eur);
+    }
+}
@@ -0,0 +1,59 @@
+package me.firestone82.solaxstatistics.serialization.adapter;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import me.firestone82.solaxstatistics.model.StatisticsEntry;
+
+import java.io.IOException;
+
+/**
+ * {@link StatisticsEntry} with its quality mask, written and read without reflection.
+ */
+public class StatisticsEntryJsonAdapter extends TypeAdapter<StatisticsEntry> {
+
+    @Override
+    public void write(JsonWriter out, StatisticsEntry entry) throws IOException {
+        if (entry == null) {
+            out.nullValue();
+            return;
+        }
+
+        out.beginObject();
+        out.name("dateTime");
+        LocalDateTimeJsonAdapter.writeDate(out, entry.getDateTime());
+        out.name("yieldMWh").value(entry.getYieldMWh());
+        out.name("exportMWh").value(entry.getExportMWh());
+        out.name("consumptionMWh").value(entry.getConsumptionMWh());
+        out.name("importMWh").value(entry.getImportMWh());
+        out.name("quality").value(entry.getQuality());
+        out.endObject();
+    }
+
+    @Override
+    public StatisticsEntry read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+
+        StatisticsEntry entry = new StatisticsEntry();
+
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "dateTime" -> entry.setDateTime(LocalDateTimeJsonAdapter.readDate(in));
+                case "yieldMWh" -> entry.setYieldMWh(in.nextDouble());
+                case "exportMWh" -> entry.setExportMWh(in.nextDouble());
+                case "consumptionMWh" -> entry.setConsumptionMWh(in.nextDouble());
+                case "importMWh" -> entry.setImportMWh(in.nextDouble());
+                case "quality" -> entry.setQuality(in.nextInt());
+                default -> in.skipValue();
+            }
+        }
+        in.endObject();
+
+        return entry;
+    }
+}
@@ -0,0 +1,72 @@
+package me.firestone82.solaxstatistics.serialization.adapter;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import me.firestone82.solaxstatistics.model.summary.SummaryMetric;
+import me.firestone82.solaxstatistics.model.summary.SummaryRow;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * {@link SummaryRow} as {@code date} followed by the metrics in field order, the same members reflection
+ * produced, written and read without it. Unknown members are skipped.
+ */
+public class SummaryRowJsonAdapter extends TypeAdapter<SummaryRow> {
+    static final SummaryMetric[] METRICS = SummaryMetric.values();
+    static final Map<String, SummaryMetric> METRICS_BY_NAME = new HashMap<>();
+
+    static {
+        for (SummaryMetric metric : METRICS) {
+            METRICS_BY_NAME.put(metric.getFieldName(), metric);
+        }
+    }
+
+    @Override
+    public void write(JsonWriter out, SummaryRow row) throws IOException {
+        if (row == null) {
+            out.nullValue();
+            return;
+        }
+
+        out.beginObject();
+        out.name("date");
+        LocalDateTimeJsonAdapter.writeDate(out, row.getDate());
+
+        for (SummaryMetric metric : METRICS) {
+            out.name(metric.getFieldName()).value(metric.value().applyAsDouble(row));
+        }
+
+        out.endObject();
+    }
+
+    @Override
+    public SummaryRow read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+
+        SummaryRow row = new SummaryRow();
+
+        in.beginObject();
+        while (in.hasNext()) {
+            String name = in.nextName();
+            SummaryMetric metric = METRICS_BY_NAME.get(name);
+
+            if (name.equals("date")) {
+                row.setDate(LocalDateTimeJsonAdapter.readDate(in));
+            } else if (metric != null && in.peek() == JsonToken.NUMBER) {
+                metric.setter().accept(row, in.nextDouble());
+            } else {
+                in.skipValue();
+            }
+        }
+        in.endObject();
+
+        return row;
+    }
+}
@@ -0,0 +1,61 @@
+package me.firestone82.solaxstatistics.serialization.adapter;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import me.firestone82.solaxstatistics.model.summary.SummaryMetric;
+import me.firestone82.solaxstatistics.model.summary.SummaryRow;
+import me.firestone82.solaxstatistics.model.summary.SummaryTable;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@link SummaryTable} as an array of rows, the same JSON as a list of {@link SummaryRow}s. Rows are
+ * written straight from the columns, no row objects are created.
+ */
+public class SummaryTableJsonAdapter extends TypeAdapter<SummaryTable> {
+    private static final SummaryRowJsonAdapter ROW_ADAPTER = new SummaryRowJsonAdapter();
+
+    @Override
+    public void write(JsonWriter out, SummaryTable table) throws IOException {
+        if (table == null) {
+            out.nullValue();
+            return;
+        }
+
+        out.beginArray();
+        for (int r = 0; r < table.size(); r++) {
+            out.beginObject();
+            out.name("date");
+            LocalDateTimeJsonAdapter.writeDate(out, table.date(r));
+
+            for (SummaryMetric metric : SummaryRowJsonAdapter.METRICS) {
+                out.name(metric.getFieldName()).value(table.get(metric, r));
+            }
+
+            out.endObject();
+        }
+        out.endArray();
+    }
+
+    @Override
+    public SummaryTable read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+
+        List<SummaryRow> rows = new ArrayList<>();
+
+        in.beginArray();
+        while (in.hasNext()) {
+            rows.add(ROW_ADAPTER.read(in));
+        }
+        in.endArray();
+
+        return SummaryTable.of(rows);
+    }
+}
@@ -0,0 +1,17 @@
+package me.firestone82.solaxstatistics.service.api;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "api")
+public class ApiProperties {
+    private boolean enabled = false;
+    private String host = "127.0.0.1";
+    private int port = 8085;
+    private int responseCacheSize = 256;
+    private int maxRangeMonths = 12;
+    private Duration openMonthRefresh = Duration.ofMinutes(5);
+}
@@ -0,0 +1,339 @@
+package me.firestone82.solaxstatistics.service.api;
+
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonWriter;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import me.firestone82.solaxstatistics.model.DateRange;
+import me.firestone82.solaxstatistics.model.summary.SummaryRow;
+import me.firestone82.solaxstatistics.serialization.GsonService;
+import me.firestone82.solaxstatistics.service.cez.CEZService;
+import me.firestone82.solaxstatistics.service.live.LiveIngestion;
+import me.firestone82.solaxstatistics.service.ote.OTEService;
+import me.firestone82.solaxstatistics.service.solax.SolaxService;
+import me.firestone82.solaxstatistics.service.source.SourceGuard;
+import me.firestone82.solaxstatistics.service.summary.SummaryStore;
+import org.jetbrains.annotations.Nullable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.LongSupplier;
+
+/**
+ * Read-only HTTP API over the summary store and the raw source series, served by the JDK HTTP server
+ * with one virtual thread per request. Only processed months and cached series are served, a request never
+ * starts a fetch or a computation; data that has not been ingested yet answers 404.
+ *
+ * <ul>
+ *     <li>{@code GET /api/summary?granularity=hour|day|month|year&from=..&to=..}</li>
+ *     <li>{@code GET /api/series/{solax|cez|prices}?from=..&to=..}</li>
+ *     <li>{@code GET /api/live}, latest interval, hour and day when live ingestion is enabled, never cached</li>
+ *     <li>{@code GET /api/sources}, circuit breaker and bulkhead state of the live sources, never cached</li>
+ * </ul>
+ * <p>
+ * Bounds accept {@code yyyy-MM}, {@code yyyy-MM-dd} or ISO date-times, the end is exclusive. Series and
+ * hourly or daily summaries span at most {@code api.maxRangeMonths} months. Responses
+ * carry an ETag and are answered with 304 when it matches {@code If-None-Match}.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "api", name = "enabled", havingValue = "true")
+public class ApiServer {
+    private static final String JSON = "application/json; charset=utf-8";
+
+    private final ApiProperties properties;
+    private final SummaryStore summaryStore;
+    private final SolaxService solaxService;
+    private final CEZService cezService;
+    private final OTEService oteService;
+    private final Optional<LiveIngestion> liveIngestion;
+    private final SourceGuard sourceGuard;
+    private final Map<String, CachedResponse> responseCache;
+    private final Gson gson;
+
+    private HttpServer server;
+    private ExecutorService executor;
+
+    public ApiServer(
+            @Autowired ApiProperties properties,
+            @Autowired SummaryStore summaryStore,
+            @Autowired SolaxService solaxService,
+            @Autowired CEZService cezService,
+            @Autowired OTEService oteService,
+            @Autowired Optional<LiveIngestion> liveIngestion,
+            @Autowired SourceGuard sourceGuard,
+            @Value("${json.pretty:false}") boolean prettyJson
+    ) {
+        this.properties = properties;
+        this.summaryStore = summaryStore;
+        this.solaxService = solaxService;
+        this.cezService = cezService;
+        this.oteService = oteService;
+        this.liveIngestion = liveIngestion;
+        this.sourceGuard = sourceGuard;
+        this.gson = GsonService.gson(prettyJson);
+        this.responseCache = Collections.synchronizedMap(new LinkedHashMap<>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedResponse> eldest) {
+                return size() > properties.getResponseCacheSize();
+            }
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() throws IOException {
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        server = HttpServer.create(new InetSocketAddress(properties.getHost(), properties.getPort()), 0);
+        server.setExecutor(executor);
+        server.createContext("/api/summary", exchange -> handle(exchange, this::summary, summaryStore::generation));
+        server.createContext("/api/series/", exchange -> handle(exchange, this::series, null));
+        liveIngestion.ifPresent(live -> server.createContext("/api/live", exchange -> live(exchange, live)));
+        server.createContext("/api/sources", this::sources);
+        server.start();
+
+        log.info("Query API listening on http://{}:{}/api", properties.getHost(), properties.getPort());
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (server != null) {
+            server.stop(1);
+            executor.close();
+            log.info("Query API stopped");
+        }
+    }
+
+    private Optional<?> summary(HttpExchange exchange, Map<String, String> query, DateRange range) {
+        String granularity = query.getOrDefault("granularity", "day");
+        SummaryRow.Granularity parsed = SummaryRow.Granularity.valueOf(granularity.toUpperCase(Locale.ROOT));
+
+        // Month and year totals are single rows, hours and days grow with the range
+        if (parsed == SummaryRow.Granularity.HOUR || parsed == SummaryRow.Granularity.DAY) {
+            checkRangeLimit(range);
+        }
+
+        return summaryStore.table(range, parsed);
+    }
+
+    private Optional<?> series(HttpExchange exchange, Map<String, String> query, DateRange range) {
+        String name = exchange.getRequestURI().getPath().substring("/api/series/".length());
+        checkRangeLimit(range);
+
+        return switch (name) {
+            case "solax" -> solaxService.getCachedStatistics(range);
+            case "cez" -> cezService.getCachedConsumption(range);
+            case "prices" -> oteService.getCachedPrices(range);
+            default -> throw new NoSuchElementException("Unknown series '" + name + "'");
+        };
+    }
+
+    private void checkRangeLimit(DateRange range) {
+        if (range.months().size() > properties.getMaxRangeMonths()) {
+            throw new IllegalArgumentException("Range " + range + " spans more than " + properties.getMaxRangeMonths() + " months");
+        }
+    }
+
+    private void live(HttpExchange exchange, LiveIngestion live) throws IOException {
+        try {
+            Optional<LiveIngestion.Snapshot> snapshot = live.snapshot();
+            if (snapshot.isEmpty()) {
+                sendError(exchange, 503, "No live data yet");
+                return;
+            }
+
+            exchange.getResponseHeaders().set("Cache-Control", "no-store");
+            sendJson(exchange, 200, snapshot.get());
+        } catch (Exception e) {
+            log.error("Failed to handle API request {}: {}", exchange.getRequestURI(), e.getMessage(), e);
+            sendError(exchange, 500, "Internal error");
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void sources(HttpExchange exchange) throws IOException {
+        try {
+            exchange.getResponseHeaders().set("Cache-Control", "no-store");
+            sendJson(exchange, 200, sourceGuard.snapshot());
+        } catch (Exception e) {
+            log.error("Failed to handle API request {}: {}", exchange.getRequestURI(), e.getMessage(), e);
+            sendError(exchange, 500, "Internal error");
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * @param generation version of the data behind the endpoint, responses of an older one are rebuilt. Without
+     *                   it, responses are only reused for the refresh interval.
+     */
+    private void handle(HttpExchange exchange, Endpoint endpoint, @Nullable LongSupplier generation) throws IOException {
+        try {
+            String method = exchange.getRequestMethod();
+            if (!method.equals("GET") && !method.equals("HEAD")) {
+                exchange.getResponseHeaders().set("Allow", "GET, HEAD");
+                sendError(exchange, 405, "Method not allowed");
+                return;
+            }
+
+            String key = exchange.getRequestURI().toString();
+            CachedResponse response = responseCache.get(key);
+            // Read before the data, a change while the response is built makes it outdated right away
+            long currentGeneration = generation == null ? 0 : generation.getAsLong();
+
+            if (response == null || !response.isValid(currentGeneration)) {
+                Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+                DateRange range = DateRange.parse(required(query, "from"), required(query, "to"));
+
+                Optional<?> result = endpoint.handle(exchange, query, range);
+                if (result.isEmpty()) {
+                    sendError(exchange, 404, "Data for " + range + " has not been ingested");
+                    return;
+                }
+
+                response = CachedResponse.of(toJson(result.get()), range, generation != null, currentGeneration, properties);
+                responseCache.put(key, response);
+            }
+
+            send(exchange, response);
+        } catch (NoSuchElementException e) {
+            sendError(exchange, 404, e.getMessage());
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            sendError(exchange, 400, e.getMessage());
+        } catch (Exception e) {
+            log.error("Failed to handle API request {}: {}", exchange.getRequestURI(), e.getMessage(), e);
+            sendError(exchange, 500, "Internal error");
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void send(HttpExchange exchange, CachedResponse response) throws IOException {
+        exchange.getResponseHeaders().set("ETag", response.etag());
+        exchange.getResponseHeaders().set("Cache-Control", "max-age=" + response.maxAgeSeconds());
+
+        if (response.etag().equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+            exchange.sendResponseHeaders(304, -1);
+            return;
+        }
+
+        exchange.getResponseHeaders().set("Content-Type", JSON);
+
+        if (exchange.getRequestMethod().equals("HEAD")) {
+            exchange.sendResponseHeaders(200, -1);
+            return;
+        }
+
+        exchange.sendResponseHeaders(200, response.body().length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(response.body());
+        }
+    }
+
+    private void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        sendJson(exchange, status, Map.of("error", String.valueOf(message)));
+    }
+
+    private void sendJson(HttpExchange exchange, int status, Object value) throws IOException {
+        byte[] body = toJson(value);
+
+        exchange.getResponseHeaders().set("Content-Type", JSON);
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(body);
+        }
+    }
+
+    /**
+     * Serializes through the streaming adapters into the response bytes, without an intermediate string.
+     */
+    private byte[] toJson(Object value) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream(8 * 1024);
+
+        try (JsonWriter writer = gson.newJsonWriter(new BufferedWriter(new OutputStreamWriter(body, StandardCharsets.UTF_8)))) {
+            gson.toJson(value, value.getClass(), writer);
+        }
+
+        return body.toByteArray();
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> query = new HashMap<>();
+        if (rawQuery == null || rawQuery.isBlank()) {
+            return query;
+        }
+
+        for (String pair : rawQuery.split("&")) {
+            int separator = pair.indexOf('=');
+            if (separator > 0) {
+                query.put(
+                        URLDecoder.decode(pair.substring(0, separator), StandardCharsets.UTF_8),
+                        URLDecoder.decode(pair.substring(separator + 1), StandardCharsets.UTF_8)
+                );
+            }
+        }
+
+        return query;
+    }
+
+    private static String required(Map<String, String> query, String name) {
+        String value = query.get(name);
+        if (value == null || value.isBlank()) {
+            throw new IllegalArgumentException("Missing query parameter '" + name + "'");
+        }
+
+        return value;
+    }
+
+    @FunctionalInterface
+    private interface Endpoint {
+        Optional<?> handle(HttpExchange exchange, Map<String, String> query, DateRange range);
+    }
+
+    /**
+     * Serialized response of a data generation. Versioned responses of ranges ending before the current
+     * month are closed and kept until the generation changes, others expire after the open month refresh
+     * interval. Clients revalidate after that interval too, a closed month can still be processed again.
+     */
+    private record CachedResponse(byte[] body, String etag, long generation, LocalDateTime expiresAt, long maxAgeSeconds) {
+
+        static CachedResponse of(byte[] body, DateRange range, boolean versioned, long generation, ApiProperties properties) {
+            boolean closed = !range.to().isAfter(YearMonth.now().atDay(1).atStartOfDay());
+            long maxAge = properties.getOpenMonthRefresh().toSeconds();
+            LocalDateTime expiresAt = closed && versioned ? LocalDateTime.MAX : LocalDateTime.now().plusSeconds(maxAge);
+
+            return new CachedResponse(body, etag(body), generation, expiresAt, maxAge);
+        }
+
+        boolean isValid(long currentGeneration) {
+            return generation == currentGeneration && !expiresAt.isBefore(LocalDateTime.now());
+        }
+
+        private static String etag(byte[] body) {
+            try {
+                byte[] digest = MessageDigest.getInstance("SHA-256").digest(body);
+                return "\"" + HexFormat.of().formatHex(digest, 0, 16) + "\"";
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
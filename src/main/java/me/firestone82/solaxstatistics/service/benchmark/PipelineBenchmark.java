@@ -0,0 +1,110 @@
+package me.firestone82.solaxstatistics.service.benchmark;
+
+import lombok.extern.slf4j.Slf4j;
+import me.firestone82.solaxstatistics.model.DateRange;
+import me.firestone82.solaxstatistics.model.summary.OverallSummary;
+import me.firestone82.solaxstatistics.service.summary.SummaryService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Runs the summary pipeline repeatedly over a range of months and reports latency per month and overall
+ * throughput. Each month is summarized and its artifacts rendered in memory; the rollup, the summary files
+ * and the email are left alone, so real history is never overwritten. Meant to be combined with
+ * {@code data.source=SYNTHETIC} or {@code CACHE}, so no portal is contacted.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "benchmark", name = "enabled", havingValue = "true")
+public class PipelineBenchmark {
+    private final SummaryService summaryService;
+    private final YearMonth from;
+    private final YearMonth to;
+    private final int warmup;
+    private final int iterations;
+
+    public PipelineBenchmark(
+            @Autowired SummaryService summaryService,
+            @Value("${benchmark.from}") YearMonth from,
+            @Value("${benchmark.to}") YearMonth to,
+            @Value("${benchmark.warmup:1}") int warmup,
+            @Value("${benchmark.iterations:3}") int iterations
+    ) {
+        this.summaryService = summaryService;
+        this.from = from;
+        this.to = to;
+        this.warmup = warmup;
+        this.iterations = iterations;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void run() {
+        log.info("Running pipeline benchmark for {} - {} ({} warmup, {} measured iterations)", from, to, warmup, iterations);
+
+        for (int i = 0; i < warmup; i++) {
+            runOnce();
+        }
+
+        List<Long> latencies = new ArrayList<>();
+        long rows = 0;
+        long totalNanos = 0;
+
+        for (int i = 0; i < iterations; i++) {
+            for (YearMonth month = from; !month.isAfter(to); month = month.plusMonths(1)) {
+                long startNanos = System.nanoTime();
+                Optional<OverallSummary> summary = runMonth(month);
+                long elapsed = System.nanoTime() - startNanos;
+
+                latencies.add(elapsed);
+                totalNanos += elapsed;
+                rows += summary.map(s -> s.getHourly().size()).orElse(0);
+            }
+        }
+
+        if (latencies.isEmpty()) {
+            log.warn("Benchmark range is empty, nothing measured");
+            return;
+        }
+
+        latencies.sort(Long::compare);
+        double seconds = totalNanos / 1e9;
+
+        log.info(
+                "Benchmark finished: {} runs, latency min/avg/p95/max = {}/{}/{}/{} ms, throughput {} summary rows/s ({} months/s)",
+                latencies.size(),
+                toMillis(latencies.getFirst()),
+                toMillis(totalNanos / latencies.size()),
+                toMillis(latencies.get((int) Math.ceil(latencies.size() * 0.95) - 1)),
+                toMillis(latencies.getLast()),
+                Math.round(rows / seconds),
+                Math.round(latencies.size() / seconds * 100) / 100d
+        );
+    }
+
+    private void runOnce() {
+        for (YearMonth month = from; !month.isAfter(to); month = month.plusMonths(1)) {
+            runMonth(month);
+        }
+    }
+
+    private Optional<OverallSummary> runMonth(YearMonth month) {
+        Optional<OverallSummary> summary = summaryService.summarize(DateRange.of(month));
+        summary.ifPresent(s -> summaryService.renderArtifacts(s, month));
+
+        return summary;
+    }
+
+    private static long toMillis(long nanos) {
+        return Duration.ofNanos(nanos).toMillis();
+    }
+}
@@ -0,0 +1,129 @@
+package me.firestone82.solaxstatistics.service.browser;
+
+import lombok.extern.slf4j.Slf4j;
+import me.firestone82.solaxstatistics.utils.FileUtils;
+import org.jetbrains.annotations.Nullable;
+import org.openqa.selenium.chrome.ChromeDriver;
+import org.openqa.selenium.chrome.ChromeDriverService;
+import org.openqa.selenium.chrome.ChromeOptions;
+import org.openqa.selenium.devtools.Command;
+import org.openqa.selenium.devtools.DevTools;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Creates Chrome instances with a lean profile shared by all scrapers: optional headless mode,
+ * a disk cache reused across runs, reduced memory footprint and blocking of resources the
+ * scrapers never need (images, fonts, analytics and cookie banners).
+ */
+@Slf4j
+@Component
+public class BrowserFactory {
+    private final BrowserProperties properties;
+    private final File cacheDir;
+
+    public BrowserFactory(
+            @Autowired BrowserProperties properties,
+            @Value("${data.directory}") String storagePath
+    ) {
+        this.properties = properties;
+        this.cacheDir = properties.getCache().isEnabled()
+                ? FileUtils.ensureFolderCreated(storagePath, properties.getCache().getDirectory())
+                : null;
+    }
+
+    public BrowserSession open(String name, @Nullable Path downloadDir) {
+        ChromeOptions options = createOptions(downloadDir);
+
+        long startNanos = System.nanoTime();
+        long startCpuNanos = ScrapeMetrics.jvmCpuNanos();
+
+        // Own service per session, its port tells the chromedriver apart from those of concurrent sessions
+        ChromeDriverService service = new ChromeDriverService.Builder().usingAnyFreePort().build();
+        ChromeDriver driver = new ChromeDriver(service, options);
+        log.trace("ChromeDriver started for {} on {} (headless={})", name, service.getUrl(), properties.isHeadless());
+
+        List<ProcessHandle> roots = ScrapeMetrics.driverProcesses(service.getUrl().getPort());
+
+        if (properties.getBlocking().isEnabled()) {
+            enableRequestBlocking(driver, name);
+        }
+
+        return new BrowserSession(name, driver, startNanos, startCpuNanos, roots, properties.isMetrics());
+    }
+
+    private ChromeOptions createOptions(@Nullable Path downloadDir) {
+        ChromeOptions options = new ChromeOptions();
+
+        if (properties.isHeadless()) {
+            options.addArguments("--headless=new", "--disable-gpu");
+        }
+
+        options.addArguments("--no-sandbox", "--disable-dev-shm-usage");
+        options.addArguments("--window-size=" + properties.getWindowSize());
+
+        // Trim everything a scraper does not need
+        options.addArguments(
+                "--no-first-run",
+                "--mute-audio",
+                "--disable-extensions",
+                "--disable-sync",
+                "--disable-background-networking",
+                "--disable-component-update",
+                "--disable-default-apps",
+                "--disable-features=Translate,MediaRouter,OptimizationHints,AutofillServerCommunication",
+                "--renderer-process-limit=" + properties.getMemory().getRendererProcessLimit(),
+                "--js-flags=--max-old-space-size=" + properties.getMemory().getMaxOldSpaceMb()
+        );
+
+        if (cacheDir != null) {
+            options.addArguments("--disk-cache-dir=" + cacheDir.getAbsolutePath());
+            options.addArguments("--disk-cache-size=" + properties.getCache().getSizeMb() * 1024L * 1024L);
+        }
+
+        options.addArguments(properties.getExtraArguments());
+
+        Map<String, Object> prefs = new HashMap<>();
+        prefs.put("safebrowsing.enabled", true);
+
+        if (downloadDir != null) {
+            prefs.put("download.default_directory", downloadDir.toFile().getAbsolutePath());
+            prefs.put("download.prompt_for_download", false);
+        }
+
+        if (properties.getBlocking().isEnabled() && properties.getBlocking().isImages()) {
+            prefs.put("profile.managed_default_content_settings.images", 2);
+        }
+
+        options.setExperimentalOption("prefs", prefs);
+        log.trace("ChromeOptions prepared with arguments and prefs: {}", prefs);
+
+        return options;
+    }
+
+    /**
+     * Blocks configured URL patterns through the DevTools network domain. Raw commands are used so the
+     * blocking does not depend on a particular CDP version bundled with Selenium.
+     */
+    private void enableRequestBlocking(ChromeDriver driver, String name) {
+        List<String> patterns = properties.getBlocking().getPatterns();
+        if (patterns.isEmpty()) {
+            return;
+        }
+
+        try {
+            DevTools devTools = driver.getDevTools();
+            devTools.createSessionIfThereIsNotOne();
+            devTools.send(new Command<>("Network.enable", Map.of()));
+            devTools.send(new Command<>("Network.setBlockedURLs", Map.of("urls", patterns)));
+            log.debug("Blocking {} URL patterns for {}", patterns.size(), name);
+        } catch (Exception e) {
+            log.warn("Unable to enable request blocking for {}: {}", name, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package me.firestone82.solaxstatistics.service.browser;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@ConfigurationProperties(prefix = "browser")
+public class BrowserProperties {
+    private boolean headless = true;
+    private String windowSize = "1920,1080";
+    private Cache cache = new Cache();
+    private Blocking blocking = new Blocking();
+    private Memory memory = new Memory();
+    private Downloads downloads = new Downloads();
+    private Sessions sessions = new Sessions();
+    private List<String> extraArguments = new ArrayList<>();
+    private boolean metrics = true;
+
+    @Data
+    public static class Cache {
+        private boolean enabled = true;
+        private String directory = "browser-cache";
+        private long sizeMb = 256;
+    }
+
+    @Data
+    public static class Blocking {
+        private boolean enabled = true;
+        private boolean images = true;
+        private List<String> patterns = new ArrayList<>();
+    }
+
+    @Data
+    public static class Memory {
+        private int maxOldSpaceMb = 256;
+        private int rendererProcessLimit = 2;
+    }
+
+    @Data
+    public static class Downloads {
+        // Stream exports from the browser over DevTools instead of waiting for files in a download directory
+        private boolean capture = true;
+        private Duration timeout = Duration.ofSeconds(60);
+    }
+
+    @Data
+    public static class Sessions {
+        // Reuse portal logins across restarts
+        private boolean enabled = true;
+        // Relative to the data directory
+        private String directory = "sessions";
+        // Key of the session files, a generated key file is used when empty
+        private String passphrase = "";
+        private Duration maxAge = Duration.ofDays(7);
+    }
+}
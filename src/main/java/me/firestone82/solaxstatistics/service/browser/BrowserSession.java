@@ -0,0 +1,126 @@
+package me.firestone82.solaxstatistics.service.browser;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.openqa.selenium.chrome.ChromeDriver;
+
+import java.util.*;
+
+/**
+ * A running browser bound to one scrape. Closing the session quits the driver and,
+ * when enabled, logs the resources the scrape consumed.
+ */
+@Slf4j
+public class BrowserSession implements AutoCloseable {
+    private static final List<String> COOKIE_FIELDS = List.of("name", "value", "domain", "path", "secure", "httpOnly", "sameSite", "expires", "priority");
+
+    private final String name;
+    private final long startNanos;
+    private final long startCpuNanos;
+    private final List<ProcessHandle> processRoots;
+    private final boolean metricsEnabled;
+
+    @Getter
+    private final ChromeDriver driver;
+
+    private ScrapeMetrics metrics;
+
+    BrowserSession(String name, ChromeDriver driver, long startNanos, long startCpuNanos, List<ProcessHandle> processRoots, boolean metricsEnabled) {
+        this.name = name;
+        this.driver = driver;
+        this.startNanos = startNanos;
+        this.startCpuNanos = startCpuNanos;
+        this.processRoots = processRoots;
+        this.metricsEnabled = metricsEnabled;
+    }
+
+    /**
+     * Starts capturing the download whose URL or file name contains {@code nameFragment}, from responses
+     * of URLs matching {@code urlPattern}. Start it before triggering the download.
+     */
+    public DownloadCapture captureDownload(String urlPattern, String nameFragment) {
+        return new DownloadCapture(driver.getDevTools(), urlPattern, nameFragment);
+    }
+
+    /**
+     * All cookies of the browser, in the DevTools {@code Network.getAllCookies} format.
+     */
+    @SuppressWarnings("unchecked")
+    public List<Map<String, Object>> getCookies() {
+        Object cookies = driver.executeCdpCommand("Network.getAllCookies", Map.of()).get("cookies");
+        return cookies instanceof List<?> list ? (List<Map<String, Object>>) list : List.of();
+    }
+
+    /**
+     * Sets cookies read by {@link #getCookies()}, keeping only the fields {@code Network.setCookies} accepts.
+     */
+    public void setCookies(List<Map<String, Object>> cookies) {
+        List<Map<String, Object>> params = new ArrayList<>(cookies.size());
+
+        for (Map<String, Object> cookie : cookies) {
+            Map<String, Object> param = new HashMap<>();
+            for (String field : COOKIE_FIELDS) {
+                if (cookie.get(field) != null) {
+                    param.put(field, cookie.get(field));
+                }
+            }
+
+            // Session cookies are reported with expires -1
+            if (param.get("expires") instanceof Number expires && expires.doubleValue() <= 0) {
+                param.remove("expires");
+            }
+
+            params.add(param);
+        }
+
+        driver.executeCdpCommand("Network.setCookies", Map.of("cookies", params));
+    }
+
+    /**
+     * Local storage of the current page's origin.
+     */
+    @SuppressWarnings("unchecked")
+    public Map<String, String> getLocalStorage() {
+        Object storage = driver.executeScript("return Object.assign({}, window.localStorage);");
+        Map<String, String> entries = new HashMap<>();
+
+        if (storage instanceof Map<?, ?> map) {
+            ((Map<String, Object>) map).forEach((key, value) -> entries.put(key, String.valueOf(value)));
+        }
+
+        return entries;
+    }
+
+    /**
+     * Writes entries into the local storage of the current page's origin.
+     */
+    public void setLocalStorage(Map<String, String> entries) {
+        driver.executeScript("for (const [key, value] of Object.entries(arguments[0])) { window.localStorage.setItem(key, value); }", entries);
+    }
+
+    /**
+     * Metrics of the finished scrape, available once the session has been closed.
+     */
+    public Optional<ScrapeMetrics> getMetrics() {
+        return Optional.ofNullable(metrics);
+    }
+
+    @Override
+    public void close() {
+        if (metricsEnabled) {
+            try {
+                metrics = ScrapeMetrics.sample(name, startNanos, startCpuNanos, processRoots);
+                log.info("Scrape resources - {}", metrics);
+            } catch (Exception e) {
+                log.debug("Unable to sample scrape metrics for {}: {}", name, e.getMessage());
+            }
+        }
+
+        try {
+            log.trace("Quitting WebDriver for {}", name);
+            driver.quit();
+        } catch (Exception ignore) {
+            log.trace("Ignoring exception during WebDriver quit");
+        }
+    }
+}
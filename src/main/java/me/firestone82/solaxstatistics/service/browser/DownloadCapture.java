@@ -0,0 +1,226 @@
+package me.firestone82.solaxstatistics.service.browser;
+
+import lombok.extern.slf4j.Slf4j;
+import org.openqa.selenium.devtools.Command;
+import org.openqa.selenium.devtools.DevTools;
+import org.openqa.selenium.devtools.Event;
+import org.openqa.selenium.json.Json;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Intercepts a file download through the DevTools Fetch domain and streams its body straight into a
+ * parser, chunk by chunk as the parser reads. The intercepted response is aborted afterwards, so the
+ * browser never writes the file. Raw commands are used so the capture does not depend on a particular
+ * CDP version bundled with Selenium.
+ * <p>
+ * Paused responses are queued by the DevTools thread and handled on the caller's thread, commands are
+ * never sent from inside the listener.
+ */
+@Slf4j
+public class DownloadCapture implements AutoCloseable {
+    private static final int CHUNK_SIZE = 1 << 20;
+
+    private final DevTools devTools;
+    private final String nameFragment;
+    private final BlockingQueue<Map<String, Object>> paused = new LinkedBlockingQueue<>();
+
+    /**
+     * Starts intercepting responses of URLs matching the pattern ({@code *} and {@code ?} wildcards).
+     * Only responses whose URL or file name contains {@code nameFragment} are captured, others pass through.
+     */
+    DownloadCapture(DevTools devTools, String urlPattern, String nameFragment) {
+        this.devTools = devTools;
+        this.nameFragment = nameFragment.toLowerCase(Locale.ROOT);
+
+        devTools.createSessionIfThereIsNotOne();
+        devTools.addListener(new Event<Map<String, Object>>("Fetch.requestPaused", input -> input.read(Json.MAP_TYPE)), paused::add);
+        devTools.send(new Command<>("Fetch.enable", Map.of(
+                "patterns", List.of(Map.of("urlPattern", urlPattern, "requestStage", "Response"))
+        )));
+
+        log.trace("Capturing downloads of {} containing '{}'", urlPattern, nameFragment);
+    }
+
+    /**
+     * Waits for the download and parses it while it is read from the browser.
+     *
+     * @return parsed download, or empty when nothing matching arrived in time or it could not be read
+     */
+    public <T> Optional<T> await(Duration timeout, BodyParser<T> parser) throws InterruptedException {
+        long deadlineNanos = System.nanoTime() + timeout.toNanos();
+
+        while (true) {
+            Map<String, Object> event = paused.poll(Math.max(0, deadlineNanos - System.nanoTime()), TimeUnit.NANOSECONDS);
+            if (event == null) {
+                log.debug("No download containing '{}' captured within {} s", nameFragment, timeout.toSeconds());
+                return Optional.empty();
+            }
+
+            String requestId = String.valueOf(event.get("requestId"));
+            String url = String.valueOf(event.get("request") instanceof Map<?, ?> request ? request.get("url") : "");
+            int status = event.get("responseStatusCode") instanceof Number number ? number.intValue() : 0;
+
+            if (!matches(url, event) || status < 200 || status >= 300) {
+                log.trace("Letting response {} ({}) through", url, status);
+                send("Fetch.continueRequest", Map.of("requestId", requestId));
+                continue;
+            }
+
+            long startNanos = System.nanoTime();
+            try (BodyStream body = new BodyStream(requestId)) {
+                T result = parser.parse(body);
+                log.debug("Captured download {} ({} B) in {} ms", url, body.total, Duration.ofNanos(System.nanoTime() - startNanos).toMillis());
+
+                return Optional.of(result);
+            } catch (IOException | RuntimeException e) {
+                log.error("Failed to read captured download {}: {}", url, e.getMessage(), e);
+                return Optional.empty();
+            } finally {
+                // The body was taken, the browser can only abort the response now
+                send("Fetch.failRequest", Map.of("requestId", requestId, "errorReason", "Aborted"));
+            }
+        }
+    }
+
+    private boolean matches(String url, Map<String, Object> event) {
+        if (url.toLowerCase(Locale.ROOT).contains(nameFragment)) {
+            return true;
+        }
+
+        if (event.get("responseHeaders") instanceof List<?> headers) {
+            for (Object header : headers) {
+                if (header instanceof Map<?, ?> map
+                        && "content-disposition".equalsIgnoreCase(String.valueOf(map.get("name")))
+                        && decodeHeader(String.valueOf(map.get("value"))).toLowerCase(Locale.ROOT).contains(nameFragment)) {
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Content-Disposition file names are often percent-encoded ({@code filename*=UTF-8''Plant%20Reports.xlsx}).
+     */
+    private static String decodeHeader(String value) {
+        try {
+            return URLDecoder.decode(value.replace("+", "%2B"), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            return value;
+        }
+    }
+
+    private Map<String, Object> send(String method, Map<String, Object> params) {
+        try {
+            return devTools.send(new Command<>(method, params, Json.MAP_TYPE));
+        } catch (RuntimeException e) {
+            log.debug("DevTools command {} failed: {}", method, e.getMessage());
+            return Map.of();
+        }
+    }
+
+    @Override
+    public void close() {
+        send("Fetch.disable", Map.of());
+        devTools.clearListeners();
+
+        // Nothing may stay paused once interception is off
+        paused.forEach(event -> send("Fetch.continueRequest", Map.of("requestId", String.valueOf(event.get("requestId")))));
+        paused.clear();
+    }
+
+    @FunctionalInterface
+    public interface BodyParser<T> {
+        T parse(InputStream body) throws IOException;
+    }
+
+    /**
+     * Response body read from the browser through {@code IO.read}, one chunk at a time.
+     */
+    private final class BodyStream extends InputStream {
+        private final String handle;
+        private byte[] chunk = new byte[0];
+        private int position;
+        private boolean eof;
+        private long total;
+
+        private BodyStream(String requestId) throws IOException {
+            Map<String, Object> result = devTools.send(new Command<>("Fetch.takeResponseBodyAsStream", Map.of("requestId", requestId), Json.MAP_TYPE));
+            if (!(result.get("stream") instanceof String stream)) {
+                throw new IOException("Browser returned no stream for the download");
+            }
+
+            this.handle = stream;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (!fill()) {
+                return -1;
+            }
+
+            return chunk[position++] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (length == 0) {
+                return 0;
+            }
+
+            if (!fill()) {
+                return -1;
+            }
+
+            int count = Math.min(length, chunk.length - position);
+            System.arraycopy(chunk, position, buffer, offset, count);
+            position += count;
+
+            return count;
+        }
+
+        private boolean fill() throws IOException {
+            while (position >= chunk.length) {
+                if (eof) {
+                    return false;
+                }
+
+                Map<String, Object> result;
+                try {
+                    result = devTools.send(new Command<>("IO.read", Map.of("handle", handle, "size", CHUNK_SIZE), Json.MAP_TYPE));
+                } catch (RuntimeException e) {
+                    throw new IOException("Reading the download from the browser failed: " + e.getMessage(), e);
+                }
+
+                String data = String.valueOf(result.getOrDefault("data", ""));
+                chunk = Boolean.TRUE.equals(result.get("base64Encoded"))
+                        ? Base64.getDecoder().decode(data)
+                        : data.getBytes(StandardCharsets.UTF_8);
+                position = 0;
+                total += chunk.length;
+                eof = Boolean.TRUE.equals(result.get("eof"));
+            }
+
+            return true;
+        }
+
+        @Override
+        public void close() {
+            send("IO.close", Map.of("handle", handle));
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package me.firestone82.solaxstatistics.service.browser;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Resource usage of a single scrape: wall time, CPU time and resident memory of the JVM
+ * together with the browser process tree (chromedriver and every Chrome process below it).
+ */
+@Slf4j
+public record ScrapeMetrics(String name, long wallMillis, long jvmCpuMillis, long browserCpuMillis, long browserRssBytes, int browserProcesses) {
+
+    public long totalCpuMillis() {
+        return jvmCpuMillis + browserCpuMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "%s: wall=%d ms, cpu=%d ms (jvm %d ms, browser %d ms), browser rss=%.1f MB in %d processes".formatted(
+                name, wallMillis, totalCpuMillis(), jvmCpuMillis, browserCpuMillis, browserRssBytes / (1024d * 1024d), browserProcesses
+        );
+    }
+
+    /**
+     * The chromedriver child of the JVM serving the given port, matched on its {@code --port} argument.
+     * Empty where the platform does not expose process arguments, the browser is then not measured.
+     */
+    static List<ProcessHandle> driverProcesses(int port) {
+        String portArgument = "--port=" + port;
+
+        return ProcessHandle.current().children()
+                .filter(p -> p.info().arguments().map(args -> Arrays.asList(args).contains(portArgument)).orElse(false))
+                .toList();
+    }
+
+    /**
+     * Current CPU time of the whole JVM process in nanoseconds, or -1 if the platform does not expose it.
+     */
+    static long jvmCpuNanos() {
+        if (ManagementFactory.getOperatingSystemMXBean() instanceof com.sun.management.OperatingSystemMXBean os) {
+            return os.getProcessCpuTime();
+        }
+
+        return -1;
+    }
+
+    /**
+     * Samples the given root processes and all their descendants. Must be called before the driver quits,
+     * since CPU time of already exited processes is no longer available.
+     */
+    static ScrapeMetrics sample(String name, long startNanos, long startCpuNanos, List<ProcessHandle> roots) {
+        long wallMillis = Duration.ofNanos(System.nanoTime() - startNanos).toMillis();
+        long endCpuNanos = jvmCpuNanos();
+        long jvmCpuMillis = startCpuNanos < 0 || endCpuNanos < 0 ? 0 : Duration.ofNanos(endCpuNanos - startCpuNanos).toMillis();
+
+        List<ProcessHandle> tree = roots.stream()
+                .flatMap(root -> Stream.concat(Stream.of(root), root.descendants()))
+                .filter(ProcessHandle::isAlive)
+                .toList();
+
+        long browserCpuMillis = tree.stream()
+                .mapToLong(p -> p.info().totalCpuDuration().map(Duration::toMillis).orElse(0L))
+                .sum();
+
+        long rssBytes = tree.stream()
+                .mapToLong(p -> readRssBytes(p.pid()))
+                .sum();
+
+        return new ScrapeMetrics(name, wallMillis, jvmCpuMillis, browserCpuMillis, rssBytes, tree.size());
+    }
+
+    /**
+     * Reads VmRSS from procfs. Only available on Linux, other platforms report 0.
+     */
+    private static long readRssBytes(long pid) {
+        Path status = Path.of("/proc", String.valueOf(pid), "status");
+        if (!Files.isReadable(status)) {
+            return 0;
+        }
+
+        try {
+            for (String line : Files.readAllLines(status)) {
+                if (line.startsWith("VmRSS:")) {
+                    String[] parts = line.substring(6).trim().split("\\s+");
+                    return Long.parseLong(parts[0]) * 1024L;
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            log.trace("Unable to read RSS of process {}: {}", pid, e.getMessage());
+        }
+
+        return 0;
+    }
+}
@@ -0,0 +1,203 @@
+package me.firestone82.solaxstatistics.service.browser;
+
+import lombok.extern.slf4j.Slf4j;
+import me.firestone82.solaxstatistics.serialization.GsonService;
+import me.firestone82.solaxstatistics.utils.FileUtils;
+import me.firestone82.solaxstatistics.utils.SafeFiles;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.AEADBadTagException;
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.PBEKeySpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Encrypted store of portal sessions, so a restarted application can skip the UI login. Every portal and
+ * account has one file with its cookies and local storage, encrypted with AES-GCM and bound to the portal
+ * and account it belongs to. The key is derived from {@code browser.sessions.passphrase}, or without one
+ * generated once into an owner-only key file next to the sessions.
+ */
+@Slf4j
+@Component
+public class SessionStore {
+    private static final SecureRandom RANDOM = new SecureRandom();
+    private static final int IV_LENGTH = 12;
+    private static final int TAG_BITS = 128;
+    private static final int PBKDF2_ITERATIONS = 210_000;
+
+    private final BrowserProperties.Sessions properties;
+    private final File directory;
+    private SecretKey key;
+
+    public SessionStore(
+            @Autowired BrowserProperties properties,
+            @Value("${data.directory}") String storagePath
+    ) {
+        this.properties = properties.getSessions();
+        this.directory = FileUtils.ensureFolderCreated(storagePath, this.properties.getDirectory());
+    }
+
+    /**
+     * Stored session of the account, empty when there is none, it is older than {@code maxAge} or it
+     * cannot be decrypted.
+     */
+    public Optional<StoredSession> load(String portal, String account) {
+        File file = file(portal, account);
+        if (!properties.isEnabled() || !file.exists()) {
+            return Optional.empty();
+        }
+
+        Optional<byte[]> content = SafeFiles.read(file);
+        if (content.isEmpty()) {
+            invalidate(portal, account);
+            return Optional.empty();
+        }
+
+        try {
+            byte[] sealed = Base64.getDecoder().decode(new String(content.get(), StandardCharsets.UTF_8).trim());
+            Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+            cipher.init(Cipher.DECRYPT_MODE, key(), new GCMParameterSpec(TAG_BITS, sealed, 0, IV_LENGTH));
+            cipher.updateAAD(associatedData(portal, account));
+
+            byte[] plain = cipher.doFinal(sealed, IV_LENGTH, sealed.length - IV_LENGTH);
+            StoredSession session = GsonService.gson.fromJson(new String(plain, StandardCharsets.UTF_8), StoredSession.class);
+
+            if (session.savedAt() == null || session.savedAt().plus(properties.getMaxAge()).isBefore(LocalDateTime.now())) {
+                log.debug("Stored {} session is older than {}, ignoring it", portal, properties.getMaxAge());
+                invalidate(portal, account);
+                return Optional.empty();
+            }
+
+            return Optional.of(session);
+        } catch (AEADBadTagException e) {
+            log.warn("Stored {} session cannot be decrypted, the key has probably changed", portal);
+        } catch (GeneralSecurityException | IOException | RuntimeException e) {
+            log.warn("Failed to read stored {} session: {}", portal, e.getMessage());
+        }
+
+        invalidate(portal, account);
+        return Optional.empty();
+    }
+
+    public void save(String portal, String account, List<Map<String, Object>> cookies, Map<String, String> localStorage) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+
+        StoredSession session = new StoredSession(cookies, localStorage, LocalDateTime.now());
+
+        try {
+            byte[] iv = new byte[IV_LENGTH];
+            RANDOM.nextBytes(iv);
+
+            Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+            cipher.init(Cipher.ENCRYPT_MODE, key(), new GCMParameterSpec(TAG_BITS, iv));
+            cipher.updateAAD(associatedData(portal, account));
+
+            byte[] encrypted = cipher.doFinal(GsonService.gson.toJson(session).getBytes(StandardCharsets.UTF_8));
+            byte[] sealed = Arrays.copyOf(iv, IV_LENGTH + encrypted.length);
+            System.arraycopy(encrypted, 0, sealed, IV_LENGTH, encrypted.length);
+
+            SafeFiles.write(file(portal, account), writer -> writer.write(Base64.getEncoder().encodeToString(sealed)));
+            log.debug("Stored {} session with {} cookies and {} local storage entries", portal, cookies.size(), localStorage.size());
+        } catch (GeneralSecurityException | IOException e) {
+            log.warn("Failed to store {} session: {}", portal, e.getMessage());
+        }
+    }
+
+    public void invalidate(String portal, String account) {
+        try {
+            if (Files.deleteIfExists(file(portal, account).toPath())) {
+                log.debug("Removed stored {} session", portal);
+            }
+        } catch (IOException e) {
+            log.warn("Failed to remove stored {} session: {}", portal, e.getMessage());
+        }
+    }
+
+    /**
+     * Account names are hashed, so they do not show up in file names.
+     */
+    private File file(String portal, String account) {
+        return new File(directory, portal + "_" + HexFormat.of().formatHex(sha256(account.getBytes(StandardCharsets.UTF_8)), 0, 8) + ".session");
+    }
+
+    private static byte[] associatedData(String portal, String account) {
+        return (portal + "\n" + account).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private synchronized SecretKey key() throws GeneralSecurityException, IOException {
+        if (key != null) {
+            return key;
+        }
+
+        if (properties.getPassphrase() != null && !properties.getPassphrase().isBlank()) {
+            byte[] salt = readOrCreate(new File(directory, "session.salt"), 16);
+            PBEKeySpec spec = new PBEKeySpec(properties.getPassphrase().toCharArray(), salt, PBKDF2_ITERATIONS, 256);
+
+            try {
+                key = new SecretKeySpec(SecretKeyFactory.getInstance("PBKDF2WithHmacSHA256").generateSecret(spec).getEncoded(), "AES");
+            } finally {
+                spec.clearPassword();
+            }
+        } else {
+            key = new SecretKeySpec(readOrCreate(new File(directory, "session.key"), 32), "AES");
+        }
+
+        return key;
+    }
+
+    private static byte[] readOrCreate(File file, int length) throws IOException {
+        if (file.exists()) {
+            byte[] bytes = Files.readAllBytes(file.toPath());
+            if (bytes.length == length) {
+                return bytes;
+            }
+
+            log.warn("Session key material {} is damaged, creating it anew", file.getName());
+        }
+
+        byte[] bytes = new byte[length];
+        RANDOM.nextBytes(bytes);
+
+        // Owner-only from the start, the key is never readable by others
+        Files.deleteIfExists(file.toPath());
+        if (FileSystems.getDefault().supportedFileAttributeViews().contains("posix")) {
+            Files.createFile(file.toPath(), PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------")));
+        }
+
+        Files.write(file.toPath(), bytes);
+
+        return bytes;
+    }
+
+    private static byte[] sha256(byte[] bytes) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(bytes);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Cookies in the DevTools {@code Network.getAllCookies} format and local storage of the portal origin.
+     */
+    public record StoredSession(List<Map<String, Object>> cookies, Map<String, String> localStorage, LocalDateTime savedAt) {
+    }
+}
@@ -0,0 +1,54 @@
+package me.firestone82.solaxstatistics.service.cez;
+
+import lombok.extern.slf4j.Slf4j;
+import me.firestone82.solaxstatistics.model.EnergyEntry;
+import me.firestone82.solaxstatistics.utils.NumberUtils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Parser of the CEZ PND "csv-simple" export. Reads the stream line by line, so it can consume
+ * both a downloaded file and an HTTP response body without buffering the whole export.
+ */
+@Slf4j
+public class CEZCsvParser {
+    public static final Charset CHARSET = Charset.forName("ISO-8859-2");
+    private static final DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormatter.ofPattern("dd.MM.yyyy HH:mm:ss");
+
+    public static List<EnergyEntry> parse(InputStream inputStream) throws IOException {
+        List<EnergyEntry> entries = new ArrayList<>();
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, CHARSET), 64 * 1024)) {
+            String line = reader.readLine(); // skip header
+
+            while ((line = reader.readLine()) != null) {
+                try {
+                    String[] parts = line.split(";");
+
+                    // Remove quotes and trim whitespace
+                    for (int i = 0; i < parts.length; i++) {
+                        parts[i] = parts[i].replace("\"", "").trim();
+                    }
+
+                    LocalDateTime dateTime = LocalDateTime.parse(parts[0], DATE_TIME_FORMATTER);
+                    double importVal = NumberUtils.parseNumber(parts[1]);
+                    double exportVal = NumberUtils.parseNumber(parts[3]);
+
+                    entries.add(new EnergyEntry(dateTime, importVal, exportVal));
+                } catch (Exception e) {
+                    log.debug("Skipping invalid row: {}", line, e);
+                }
+            }
+        }
+
+        return entries;
+    }
+}
@@ -0,0 +1,152 @@
+package me.firestone82.solaxstatistics.service.cez;
+
+import lombok.extern.slf4j.Slf4j;
+import me.firestone82.solaxstatistics.model.EnergyEntry;
+import okhttp3.*;
+import org.jetbrains.annotations.NotNull;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Plain HTTP client for the PND export endpoint. The browser is only needed to log in; its cookies
+ * are handed over to this client, which keeps them (including any the server refreshes) until the
+ * portal stops accepting them.
+ */
+@Slf4j
+@Component
+public class CEZExportClient {
+    private final List<Cookie> cookies = new CopyOnWriteArrayList<>();
+    private final OkHttpClient client;
+
+    public CEZExportClient() {
+        this.client = new OkHttpClient.Builder()
+                .connectionPool(new ConnectionPool(4, 5, TimeUnit.MINUTES))
+                .cookieJar(new SessionCookieJar())
+                .connectTimeout(15, TimeUnit.SECONDS)
+                .readTimeout(60, TimeUnit.SECONDS)
+                .followRedirects(true)
+                .build();
+    }
+
+    public boolean hasSession() {
+        return !cookies.isEmpty();
+    }
+
+    public void invalidateSession() {
+        log.debug("Invalidating CEZ export session ({} cookies)", cookies.size());
+        cookies.clear();
+    }
+
+    /**
+     * Replaces the current session with cookies obtained from the browser through DevTools
+     * ({@code Network.getAllCookies} format).
+     */
+    public void useSession(Collection<Map<String, Object>> browserCookies) {
+        List<Cookie> converted = new ArrayList<>();
+
+        for (Map<String, Object> browserCookie : browserCookies) {
+            String domain = String.valueOf(browserCookie.get("domain"));
+            boolean hostOnly = !domain.startsWith(".");
+            domain = domain.startsWith(".") ? domain.substring(1) : domain;
+
+            Cookie.Builder builder = new Cookie.Builder()
+                    .name(String.valueOf(browserCookie.get("name")))
+                    .value(String.valueOf(browserCookie.get("value")))
+                    .path(String.valueOf(browserCookie.getOrDefault("path", "/")));
+
+            if (hostOnly) {
+                builder.hostOnlyDomain(domain);
+            } else {
+                builder.domain(domain);
+            }
+
+            if (Boolean.TRUE.equals(browserCookie.get("secure"))) {
+                builder.secure();
+            }
+
+            if (Boolean.TRUE.equals(browserCookie.get("httpOnly"))) {
+                builder.httpOnly();
+            }
+
+            if (browserCookie.get("expires") instanceof Number expires && expires.doubleValue() > 0) {
+                builder.expiresAt((long) (expires.doubleValue() * 1000));
+            }
+
+            try {
+                converted.add(builder.build());
+            } catch (Exception e) {
+                log.trace("Skipping cookie {} from browser: {}", browserCookie.get("name"), e.getMessage());
+            }
+        }
+
+        cookies.clear();
+        cookies.addAll(converted);
+        log.debug("CEZ export session created with {} cookies", converted.size());
+    }
+
+    /**
+     * Downloads the export and streams it directly into the parser.
+     *
+     * @return parsed entries, or empty if the session is missing or no longer accepted by the portal
+     * @throws IOException on network failures
+     */
+    public Optional<List<EnergyEntry>> export(String url) throws IOException {
+        if (!hasSession()) {
+            return Optional.empty();
+        }
+
+        Request request = new Request.Builder()
+                .url(url)
+                .header("Accept", "text/csv, */*")
+                .get()
+                .build();
+
+        long startNanos = System.nanoTime();
+
+        try (Response response = client.newCall(request).execute()) {
+            ResponseBody body = response.body();
+            String contentType = response.header("Content-Type", "");
+
+            // Expired sessions end up on the login page instead of the export
+            if (!response.isSuccessful() || body == null || contentType.contains("html")) {
+                log.debug("CEZ export rejected (status={}, type={}), session expired", response.code(), contentType);
+                invalidateSession();
+                return Optional.empty();
+            }
+
+            List<EnergyEntry> entries = CEZCsvParser.parse(body.byteStream());
+            log.debug("Downloaded {} CEZ entries over HTTP in {} ms", entries.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+            return Optional.of(entries);
+        }
+    }
+
+    private class SessionCookieJar implements CookieJar {
+
+        @Override
+        public void saveFromResponse(@NotNull HttpUrl url, @NotNull List<Cookie> responseCookies) {
+            for (Cookie cookie : responseCookies) {
+                cookies.removeIf(c -> c.name().equals(cookie.name()) && c.domain().equals(cookie.domain()) && c.path().equals(cookie.path()));
+                cookies.add(cookie);
+            }
+        }
+
+        @NotNull
+        @Override
+        public List<Cookie> loadForRequest(@NotNull HttpUrl url) {
+            long now = System.currentTimeMillis();
+            cookies.removeIf(c -> c.expiresAt() < now);
+
+            return cookies.stream()
+                    .filter(c -> c.matches(url))
+                    .toList();
+        }
+    }
+}
@@ -1,23 +1,32 @@
 package me.firestone82.solaxstatistics.service.cez;
 
 import lombok.extern.slf4j.Slf4j;
+import me.firestone82.solaxstatistics.model.DateRange;
 import me.firestone82.solaxstatistics.model.EnergyEntry;
+import me.firestone82.solaxstatistics.service.browser.BrowserFactory;
+import me.firestone82.solaxstatistics.service.browser.BrowserProperties;
+import me.firestone82.solaxstatistics.service.browser.BrowserSession;
+import me.firestone82.solaxstatistics.service.browser.DownloadCapture;
+import me.firestone82.solaxstatistics.service.browser.SessionStore;
+import me.firestone82.solaxstatistics.service.source.DataSource;
 import me.firestone82.solaxstatistics.utils.FileUtils;
-import me.firestone82.solaxstatistics.utils.NumberUtils;
 import org.openqa.selenium.*;
 import org.openqa.selenium.chrome.ChromeDriver;
-import org.openqa.selenium.chrome.ChromeOptions;
 import org.openqa.selenium.support.ui.ExpectedConditions;
 import org.openqa.selenium.support.ui.WebDriverWait;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
 import java.net.URLEncoder;
-import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.time.LocalDateTime;
+import java.time.Duration;
+import java.time.LocalDate;
 import java.time.YearMonth;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
@@ -25,73 +34,178 @@ import java.util.stream.Stream;
 
 @Slf4j
 @Component
-public class CEZScraper {
+public class CEZScraper implements DataSource<EnergyEntry> {
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("dd.MM.yyyy");
-    private static final DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormatter.ofPattern("dd.MM.yyyy HH:mm:ss");
+    private static final String EXPORT_FILE = "pnd_export.csv";
+    private static final String SESSION_PORTAL = "cez";
 
     private final String portalUrl;
     private final String exportUrl;
     private final String username;
     private final String password;
     private final long meterId;
+    private final Mode mode;
+    private final BrowserFactory browserFactory;
+    private final BrowserProperties browserProperties;
+    private final SessionStore sessionStore;
+    private final CEZExportClient exportClient;
 
     public CEZScraper(
+            @Autowired BrowserFactory browserFactory,
+            @Autowired BrowserProperties browserProperties,
+            @Autowired SessionStore sessionStore,
+            @Autowired CEZExportClient exportClient,
             @Value("${cez.url.portal}") String portalUrl,
             @Value("${cez.url.export}") String exportUrl,
             @Value("${cez.meterId}") long meterId,
             @Value("${cez.credentials.username}") String username,
-            @Value("${cez.credentials.password}") String password
+            @Value("${cez.credentials.password}") String password,
+            @Value("${cez.mode:HYBRID}") Mode mode
     ) {
+        this.browserFactory = browserFactory;
+        this.browserProperties = browserProperties;
+        this.sessionStore = sessionStore;
+        this.exportClient = exportClient;
         this.portalUrl = portalUrl;
         this.exportUrl = exportUrl;
         this.meterId = meterId;
         this.username = username;
         this.password = password;
+        this.mode = mode;
     }
 
-    public Optional<List<EnergyEntry>> scrapeData(YearMonth yearMonth) {
-        List<EnergyEntry> entries = new ArrayList<>();
+    @Override
+    public String getName() {
+        return "live:cez";
+    }
+
+    @Override
+    public Optional<List<EnergyEntry>> fetch(DateRange range) {
+        return scrapeData(range.firstDay(), range.lastDay())
+                .map(entries -> entries.stream().filter(e -> range.containsStamp(e.getDateTime(), true)).toList());
+    }
 
-        LocalDateTime startDate = yearMonth.atDay(1).atStartOfDay();
-        String from = URLEncoder.encode(startDate.format(DATE_FORMATTER), StandardCharsets.UTF_8);
+    public Optional<List<EnergyEntry>> scrapeData(YearMonth yearMonth) {
+        return scrapeData(yearMonth.atDay(1), yearMonth.atEndOfMonth());
+    }
 
-        LocalDateTime endDate = yearMonth.atEndOfMonth().atTime(23, 45, 0);
-        String to = URLEncoder.encode(endDate.format(DATE_FORMATTER), StandardCharsets.UTF_8);
+    /**
+     * Scrapes consumption data for the given range of days, both ends inclusive.
+     */
+    public Optional<List<EnergyEntry>> scrapeData(LocalDate fromDay, LocalDate toDay) {
+        String from = URLEncoder.encode(fromDay.format(DATE_FORMATTER), StandardCharsets.UTF_8);
+        String to = URLEncoder.encode(toDay.format(DATE_FORMATTER), StandardCharsets.UTF_8);
 
         String targetUrl = exportUrl + "?format=csv-simple&idAssembly=-1003&intervalFrom=" + from + "%2000%3A00&intervalTo=" + to + "%2023%3A45&electrometerId=" + meterId;
-        log.debug("Scraping CEZ data for {} from {}", yearMonth, targetUrl);
+        log.debug("Scraping CEZ data for {} - {} from {} (mode={})", fromDay, toDay, targetUrl, mode);
 
-        // Temporary directory for downloads
-        Path tempDir = FileUtils.createTempFolder("cez_scraper").orElseThrow();
+        if (mode == Mode.HYBRID) {
+            Optional<List<EnergyEntry>> entries = scrapeOverHttp(targetUrl);
+            if (entries.isPresent()) {
+                return entries;
+            }
 
-        ChromeOptions options = new ChromeOptions();
-        options.addArguments("--headless=new", "--disable-gpu");
-        options.addArguments("--no-sandbox", "--disable-dev-shm-usage");
-        options.setExperimentalOption("prefs", Map.of(
-                "download.default_directory", tempDir.toFile().getAbsolutePath(),
-                "download.prompt_for_download", false,
-                "safebrowsing.enabled", true
-        ));
+            log.warn("HTTP export of CEZ data failed, falling back to browser download");
+        }
 
-        WebDriver driver = new ChromeDriver(options);
-        try {
-            WebDriverWait wait = new WebDriverWait(driver, java.time.Duration.ofSeconds(20));
+        return scrapeWithBrowser(targetUrl);
+    }
 
-            driver.get(portalUrl);
-            wait.until(ExpectedConditions.presenceOfElementLocated(By.cssSelector("#mat-input-0"))).sendKeys(username);
-            wait.until(ExpectedConditions.presenceOfElementLocated(By.cssSelector("#mat-input-1"))).sendKeys(password + Keys.RETURN);
+    /**
+     * Downloads the export over plain HTTP, logging in through the browser only when there is no
+     * session yet or the portal rejected the current one. A session stored by an earlier run is tried
+     * first, the export request itself tells whether it is still accepted.
+     */
+    private Optional<List<EnergyEntry>> scrapeOverHttp(String targetUrl) {
+        for (int attempt = 1; attempt <= 2; attempt++) {
+            if (!exportClient.hasSession() && !restoreHttpSession() && !createHttpSession()) {
+                return Optional.empty();
+            }
 
             try {
-                wait.until(ExpectedConditions.elementToBeClickable(By.id("CybotCookiebotDialogBodyButtonDecline"))).click();
-            } catch (Exception ignored) {
+                Optional<List<EnergyEntry>> entries = exportClient.export(targetUrl);
+                if (entries.isPresent()) {
+                    return entries;
+                }
+
+                log.debug("CEZ session was not accepted (attempt {}), logging in again", attempt);
+                sessionStore.invalidate(SESSION_PORTAL, username);
+            } catch (IOException e) {
+                log.warn("Failed to download CEZ export over HTTP: {}", e.getMessage());
+                return Optional.empty();
             }
+        }
+
+        return Optional.empty();
+    }
+
+    private boolean restoreHttpSession() {
+        Optional<SessionStore.StoredSession> stored = sessionStore.load(SESSION_PORTAL, username);
+        if (stored.isEmpty()) {
+            return false;
+        }
+
+        log.debug("Reusing stored CEZ session, login skipped");
+        exportClient.useSession(stored.get().cookies());
+        return true;
+    }
+
+    private boolean createHttpSession() {
+        String exportHost = URI.create(exportUrl).getHost();
+
+        try (BrowserSession session = browserFactory.open("cez-login", null)) {
+            ChromeDriver driver = session.getDriver();
+            WebDriverWait wait = new WebDriverWait(driver, Duration.ofSeconds(20));
+
+            login(driver, wait);
+
+            // Wait until the PND application has issued its session instead of sleeping for a fixed time
+            List<Map<String, Object>> cookies = wait.until(d -> {
+                List<Map<String, Object>> all = session.getCookies();
+                boolean hasExportCookie = all.stream().anyMatch(c -> matchesHost(String.valueOf(c.get("domain")), exportHost));
+                return hasExportCookie ? all : null;
+            });
+
+            exportClient.useSession(cookies);
+            sessionStore.save(SESSION_PORTAL, username, cookies, Map.of());
+            return true;
+        } catch (Exception e) {
+            log.error("Failed to create CEZ session: {}", e.getMessage(), e);
+            return false;
+        }
+    }
+
+    private Optional<List<EnergyEntry>> scrapeWithBrowser(String targetUrl) {
+        List<EnergyEntry> entries = new ArrayList<>();
+
+        // Temporary directory for downloads
+        Path tempDir = FileUtils.createTempFolder("cez_scraper").orElseThrow();
 
-            List<WebElement> buttons = wait.until(ExpectedConditions.presenceOfAllElementsLocatedBy(By.cssSelector("body > dip-root dip-layout-anonymous button")));
-            buttons.get(1).click();
+        try (BrowserSession session = browserFactory.open("cez", tempDir)) {
+            WebDriver driver = session.getDriver();
+            WebDriverWait wait = new WebDriverWait(driver, Duration.ofSeconds(20));
+
+            login(driver, wait);
 
             // Wait for the page to load
             Thread.sleep(5000);
 
+            if (browserProperties.getDownloads().isCapture()) {
+                Optional<List<EnergyEntry>> captured;
+
+                try (DownloadCapture capture = session.captureDownload(exportUrl + "*", EXPORT_FILE)) {
+                    // Navigating with get() would wait for the paused response
+                    ((JavascriptExecutor) driver).executeScript("window.location.href = arguments[0];", targetUrl);
+                    captured = capture.await(browserProperties.getDownloads().getTimeout(), CEZCsvParser::parse);
+                }
+
+                if (captured.isPresent()) {
+                    return captured;
+                }
+
+                log.warn("Capturing the CEZ export failed, downloading it to {}", tempDir);
+            }
+
             ((JavascriptExecutor) driver).executeScript("window.open('about:blank','_blank');");
             driver.switchTo().window(driver.getWindowHandles().toArray()[1].toString());
             driver.get(targetUrl);
@@ -101,37 +215,14 @@ public class CEZScraper {
 
             try (Stream<Path> stream = Files.list(tempDir)) {
                 Optional<Path> downloaded = stream
-                        .filter(p -> p.getFileName().toString().equalsIgnoreCase("pnd_export.csv"))
+                        .filter(p -> p.getFileName().toString().equalsIgnoreCase(EXPORT_FILE))
                         .max(Comparator.comparingLong(p -> p.toFile().lastModified()));
 
                 if (downloaded.isPresent()) {
                     Path path = downloaded.get();
 
-                    List<String> lines = Files.readAllLines(path, Charset.forName("ISO-8859-2"));
-                    boolean skipHeader = false;
-
-                    for (String line : lines) {
-                        if (!skipHeader) {
-                            skipHeader = true;
-                            continue;
-                        }
-
-                        try {
-                            String[] parts = line.split(";");
-
-                            // Remove quotes and trim whitespace
-                            for (int i = 0; i < parts.length; i++) {
-                                parts[i] = parts[i].replace("\"", "").trim();
-                            }
-
-                            LocalDateTime dateTime = LocalDateTime.parse(parts[0], DATE_TIME_FORMATTER);
-                            double importVal = NumberUtils.parseNumber(parts[1]);
-                            double exportVal = NumberUtils.parseNumber(parts[3]);
-
-                            entries.add(new EnergyEntry(dateTime, importVal, exportVal));
-                        } catch (Exception e) {
-                            log.debug("Skipping invalid row: {}", line, e);
-                        }
+                    try (InputStream inputStream = Files.newInputStream(path)) {
+                        entries.addAll(CEZCsvParser.parse(inputStream));
                     }
 
                     // Clean up downloaded file
@@ -141,10 +232,46 @@ public class CEZScraper {
         } catch (Exception e) {
             log.error("Error during CEZ scraping: {}", e.getMessage(), e);
             return Optional.empty();
-        } finally {
-            driver.quit();
         }
 
         return Optional.of(entries);
     }
-}
\ No newline at end of file
+
+    private void login(WebDriver driver, WebDriverWait wait) {
+        driver.get(portalUrl);
+        wait.until(ExpectedConditions.presenceOfElementLocated(By.cssSelector("#mat-input-0"))).sendKeys(username);
+        wait.until(ExpectedConditions.presenceOfElementLocated(By.cssSelector("#mat-input-1"))).sendKeys(password + Keys.RETURN);
+
+        // Cookie banner is usually blocked by the lean browser profile, so do not wait for it long
+        try {
+            new WebDriverWait(driver, Duration.ofSeconds(3))
+                    .until(ExpectedConditions.elementToBeClickable(By.id("CybotCookiebotDialogBodyButtonDecline")))
+                    .click();
+        } catch (Exception ignored) {
+        }
+
+        List<WebElement> buttons = wait.until(ExpectedConditions.presenceOfAllElementsLocatedBy(By.cssSelector("body > dip-root dip-layout-anonymous button")));
+        buttons.get(1).click();
+    }
+
+    /**
+     * Only cookies issued by the export host itself count, shared parent-domain cookies are set by the portal
+     * before the PND session exists.
+     */
+    private static boolean matchesHost(String cookieDomain, String host) {
+        String domain = cookieDomain.startsWith(".") ? cookieDomain.substring(1) : cookieDomain;
+        return host.equals(domain);
+    }
+
+    public enum Mode {
+        /**
+         * Browser is used only to log in, the export is downloaded over plain HTTP.
+         */
+        HYBRID,
+
+        /**
+         * The whole scrape, including the export download, runs in the browser.
+         */
+        BROWSER
+    }
+}
@@ -1,55 +1,117 @@
 package me.firestone82.solaxstatistics.service.cez;
 
 import lombok.extern.slf4j.Slf4j;
+import me.firestone82.solaxstatistics.model.DateRange;
 import me.firestone82.solaxstatistics.model.EnergyEntry;
-import me.firestone82.solaxstatistics.utils.CsvUtils;
+import me.firestone82.solaxstatistics.model.completeness.Coverage;
+import me.firestone82.solaxstatistics.service.completeness.CompletenessService;
+import me.firestone82.solaxstatistics.service.source.CacheDataSource;
+import me.firestone82.solaxstatistics.service.source.DataSource;
+import me.firestone82.solaxstatistics.service.source.SourceGuard;
+import me.firestone82.solaxstatistics.service.source.SyntheticDataSource;
 import me.firestone82.solaxstatistics.utils.FileUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.io.File;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.YearMonth;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
+import java.util.NavigableMap;
 import java.util.Optional;
 
 @Slf4j
 @Service
 public class CEZService {
-    private final CEZScraper cezScraper;
+    public static final String SOURCE = "cez";
+    private static final Coverage COVERAGE = new Coverage(Duration.ofMinutes(15), true);
+
+    private final DataSource.Mode mode;
+    private final DataSource<EnergyEntry> source;
+    private final CacheDataSource<EnergyEntry> cache;
+    private final CompletenessService completeness;
     private final File dataDir;
 
     public CEZService(
             @Autowired CEZScraper cezScraper,
+            @Autowired SyntheticDataSource syntheticDataSource,
+            @Autowired CompletenessService completeness,
+            @Autowired SourceGuard sourceGuard,
+            @Value("${data.source:LIVE}") DataSource.Mode mode,
             @Value("${data.directory}") String storagePath
     ) {
         log.info("Initializing CEZ service");
 
-        this.cezScraper = cezScraper;
+        this.mode = mode;
+        this.completeness = completeness;
+        this.source = mode == DataSource.Mode.SYNTHETIC ? syntheticDataSource.cez() : sourceGuard.guard(cezScraper);
         this.dataDir = FileUtils.ensureFolderCreated(storagePath, "cez");
+        this.cache = new CacheDataSource<>(dataDir, "electricity", EnergyEntry.class, EnergyEntry::getDateTime, true);
+
+        log.info("Initialized CEZ service. Data directory: {}, mode: {}", dataDir.getAbsolutePath(), mode);
+    }
+
+    public Optional<NavigableMap<Long, EnergyEntry>> getConsumptionIntervals(YearMonth yearMonth, Duration resolution) {
+        return getConsumption(yearMonth).map(data -> EnergyEntry.aggregate(data, resolution));
+    }
 
-        log.info("Initialized CEZ service. Data directory: {}", dataDir.getAbsolutePath());
+    public Optional<NavigableMap<Long, EnergyEntry>> getConsumptionIntervals(DateRange range, Duration resolution) {
+        return getConsumption(range).map(data -> EnergyEntry.aggregate(data, resolution));
     }
 
-    public Optional<Map<LocalDateTime, EnergyEntry>> getConsumptionHourly(YearMonth yearMonth) {
-        return getConsumption(yearMonth).map(EnergyEntry::aggregateHourly);
+    /**
+     * Consumption of the range straight from the month cache, never scraped or repaired. Empty if any
+     * month is not cached. Synthetic consumption is generated, it is never cached.
+     */
+    public Optional<List<EnergyEntry>> getCachedConsumption(DateRange range) {
+        return mode == DataSource.Mode.SYNTHETIC ? source.fetch(range) : cache.fetch(range);
+    }
+
+    /**
+     * Consumption for an arbitrary range. Months are loaded through the month cache and only the part
+     * inside the range is kept.
+     */
+    public Optional<List<EnergyEntry>> getConsumption(DateRange range) {
+        if (mode == DataSource.Mode.SYNTHETIC) {
+            return source.fetch(range);
+        }
+
+        List<EnergyEntry> entries = new ArrayList<>();
+
+        for (YearMonth month : range.months()) {
+            Optional<List<EnergyEntry>> monthEntries = getConsumption(month);
+            if (monthEntries.isEmpty()) {
+                return Optional.empty();
+            }
+
+            entries.addAll(range.slice(monthEntries.get(), EnergyEntry::getDateTime, true));
+        }
+
+        return Optional.of(entries);
     }
 
     public Optional<List<EnergyEntry>> getConsumption(YearMonth yearMonth) {
         log.debug("Retrieving CEZ electricity consumption data for {}", yearMonth);
 
-        String fileName = String.format("electricity_%s.csv", yearMonth);
-        File file = new File(dataDir, fileName);
-
-        if (file.exists()) {
-            log.trace("Found cached file {}, loading data from it", file.getPath());
+        if (mode == DataSource.Mode.SYNTHETIC) {
+            return source.fetch(DateRange.of(yearMonth));
+        }
 
-            Optional<List<EnergyEntry>> foundDataEntries = CsvUtils.loadFromCsv(file, EnergyEntry.class);
-            foundDataEntries.ifPresent(prices -> log.debug("Loaded {} data entries from cache", prices.size()));
-            return foundDataEntries;
+        if (cache.contains(yearMonth)) {
+            Optional<List<EnergyEntry>> foundDataEntries = cache.load(yearMonth);
+            if (foundDataEntries.isPresent()) {
+                log.debug("Loaded {} data entries from cache", foundDataEntries.get().size());
+                return Optional.of(completeness.repair(
+                        SOURCE, yearMonth, foundDataEntries.get(), EnergyEntry::getDateTime, COVERAGE,
+                        mode == DataSource.Mode.LIVE ? source::fetch : null,
+                        entries -> cache.store(yearMonth, entries)
+                ));
+            }
+
+            log.warn("Cached CEZ data for {} is corrupt, fetching it again", yearMonth);
         }
 
         if (yearMonth.getYear() < 2025) {
@@ -57,15 +119,20 @@ public class CEZService {
             return Optional.of(generateEmptyEntries(yearMonth));
         }
 
+        if (mode == DataSource.Mode.CACHE) {
+            log.warn("No cached CEZ data for {} and scraping is disabled", yearMonth);
+            return Optional.empty();
+        }
+
         log.trace("No cached file found, scraping data from CEZ website");
-        Optional<List<EnergyEntry>> scrapedDataEntries = cezScraper.scrapeData(yearMonth);
+        Optional<List<EnergyEntry>> scrapedDataEntries = source.fetch(DateRange.of(yearMonth)).map(cache::sorted);
 
         if (scrapedDataEntries.isPresent()) {
             List<EnergyEntry> dataEntries = scrapedDataEntries.get();
-            log.debug("Scraped total of {} consumption entries.", yearMonth);
+            log.debug("Scraped total of {} consumption entries.", dataEntries.size());
 
-            CsvUtils.saveToCsv(dataEntries, file);
-            log.debug("Saved scraped data to file: {}", file.getAbsolutePath());
+            cache.store(yearMonth, dataEntries);
+            completeness.record(SOURCE, yearMonth, dataEntries, EnergyEntry::getDateTime, COVERAGE);
         } else {
             log.warn("No data scraped for {}, returning empty list", yearMonth);
         }
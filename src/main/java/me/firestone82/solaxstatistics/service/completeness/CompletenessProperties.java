@@ -0,0 +1,22 @@
+package me.firestone82.solaxstatistics.service.completeness;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "completeness")
+public class CompletenessProperties {
+    private boolean enabled = true;
+    // Wall-clock zone of the series, decides which local times exist around DST changes
+    private String zone = "Europe/Prague";
+    // Minimum time between re-fetches of the same incomplete month
+    private Duration retryAfter = Duration.ofHours(6);
+    // Re-fetches of a month before its gaps are accepted as permanent
+    private int maxAttempts = 5;
+    // Repair incomplete months in the background, keeps the application running
+    private boolean background = false;
+    // How often incomplete months due for a retry are repaired in the background
+    private Duration repairInterval = Duration.ofHours(1);
+}
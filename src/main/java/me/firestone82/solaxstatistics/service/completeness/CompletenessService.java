@@ -0,0 +1,298 @@
+package me.firestone82.solaxstatistics.service.completeness;
+
+import com.google.gson.reflect.TypeToken;
+import lombok.extern.slf4j.Slf4j;
+import me.firestone82.solaxstatistics.model.DateRange;
+import me.firestone82.solaxstatistics.model.Timeline;
+import me.firestone82.solaxstatistics.model.completeness.Coverage;
+import me.firestone82.solaxstatistics.model.completeness.MonthGaps;
+import me.firestone82.solaxstatistics.serialization.GsonService;
+import me.firestone82.solaxstatistics.utils.FileUtils;
+import me.firestone82.solaxstatistics.utils.SafeFiles;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Keeps cached months complete. Every month coming from a source or the cache is checked against the
+ * {@link Coverage} of its series, incomplete days are written to a gap map ({@code completeness/gaps.json})
+ * and only those days are fetched again, merged into the month and stored back. Re-fetches of a month are
+ * spaced by {@code completeness.retryAfter} and given up after {@code completeness.maxAttempts}.
+ */
+@Slf4j
+@Service
+public class CompletenessService {
+    private static final Type GAPS_TYPE = new TypeToken<TreeMap<String, TreeMap<String, MonthGaps>>>() {
+    }.getType();
+
+    private final CompletenessProperties properties;
+    private final ZoneId zone;
+    private final File file;
+    // source -> month -> gaps, only incomplete months are kept
+    private final Map<String, TreeMap<String, MonthGaps>> gaps;
+
+    public CompletenessService(
+            @Autowired CompletenessProperties properties,
+            @Value("${data.directory}") String storagePath
+    ) {
+        this.properties = properties;
+        this.zone = ZoneId.of(properties.getZone());
+        this.file = new File(FileUtils.ensureFolderCreated(storagePath, "completeness"), "gaps.json");
+        this.gaps = load();
+
+        log.info("Initialized completeness checks in zone {}, {} incomplete months known", zone, gaps.values().stream().mapToInt(Map::size).sum());
+    }
+
+    /**
+     * Records the gaps of a month just fetched in full. It counts as an attempt, so the month is not
+     * fetched again before {@code retryAfter}.
+     */
+    public <T> void record(String source, YearMonth month, List<T> entries, Function<T, LocalDateTime> timeOf, Coverage coverage) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+
+        SortedMap<LocalDate, Integer> missing = coverage.missing(stamps(entries, timeOf), DateRange.of(month), LocalDateTime.now(), zone);
+        update(source, month, missing, LocalDateTime.now(), 0);
+    }
+
+    /**
+     * Checks a cached month and re-fetches its incomplete days when a retry is due. A day is replaced only
+     * when the fetched one misses fewer intervals than the cached one.
+     *
+     * @param refetch source of whole days, {@code null} when nothing may be fetched
+     * @param store   saves the repaired month
+     * @return the month, repaired when something was merged into it
+     */
+    public <T> List<T> repair(
+            String source,
+            YearMonth month,
+            List<T> entries,
+            Function<T, LocalDateTime> timeOf,
+            Coverage coverage,
+            Function<DateRange, Optional<List<T>>> refetch,
+            Consumer<List<T>> store
+    ) {
+        if (!properties.isEnabled()) {
+            return entries;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        DateRange monthRange = DateRange.of(month);
+        SortedMap<LocalDate, Integer> missing = coverage.missing(stamps(entries, timeOf), monthRange, now, zone);
+        MonthGaps previous = get(source, month);
+
+        if (missing.isEmpty() || refetch == null || !isDue(previous, now)) {
+            update(source, month, missing, previous == null ? null : previous.checkedAt(), previous == null ? 0 : previous.attempts());
+            return entries;
+        }
+
+        log.info("{} data for {} misses {} intervals on {} days, fetching those days again", source, month, sum(missing), missing.size());
+
+        Map<LocalDate, List<T>> replacements = new HashMap<>();
+        for (DateRange run : runs(missing.keySet())) {
+            Optional<List<T>> fetched = refetch.apply(run);
+            if (fetched.isEmpty()) {
+                log.warn("Re-fetch of {} data for {} failed", source, run);
+                continue;
+            }
+
+            SortedMap<LocalDate, Integer> fetchedMissing = coverage.missing(stamps(fetched.get(), timeOf), run, now, zone);
+            Map<LocalDate, List<T>> byDay = byDay(fetched.get(), timeOf, coverage, run);
+
+            for (Map.Entry<LocalDate, List<T>> day : byDay.entrySet()) {
+                if (fetchedMissing.getOrDefault(day.getKey(), 0) < missing.get(day.getKey())) {
+                    replacements.put(day.getKey(), day.getValue());
+                }
+            }
+        }
+
+        List<T> merged = entries;
+        if (!replacements.isEmpty()) {
+            merged = new ArrayList<>(entries.size());
+            for (T entry : entries) {
+                if (!replacements.containsKey(dayOf(timeOf.apply(entry), coverage))) {
+                    merged.add(entry);
+                }
+            }
+
+            replacements.values().forEach(merged::addAll);
+            merged = Timeline.PRAGUE.sorted(merged, timeOf);
+            store.accept(merged);
+        }
+
+        SortedMap<LocalDate, Integer> remaining = coverage.missing(stamps(merged, timeOf), monthRange, now, zone);
+        log.info("Merged {} re-fetched days into {} data for {}, {} intervals still missing", replacements.size(), source, month, sum(remaining));
+
+        update(source, month, remaining, now, (previous == null ? 0 : previous.attempts()) + 1);
+        return merged;
+    }
+
+    /**
+     * Incomplete months of a source that are due for another re-fetch.
+     */
+    public synchronized List<YearMonth> dueMonths(String source) {
+        LocalDateTime now = LocalDateTime.now();
+
+        return gaps.getOrDefault(source, new TreeMap<>()).entrySet().stream()
+                .filter(entry -> isDue(entry.getValue(), now))
+                .map(entry -> YearMonth.parse(entry.getKey()))
+                .toList();
+    }
+
+    public synchronized Map<String, Map<String, MonthGaps>> getGaps() {
+        Map<String, Map<String, MonthGaps>> copy = new TreeMap<>();
+        gaps.forEach((source, months) -> copy.put(source, new TreeMap<>(months)));
+        return copy;
+    }
+
+    private boolean isDue(MonthGaps previous, LocalDateTime now) {
+        if (previous == null) {
+            return true;
+        }
+
+        return previous.attempts() < properties.getMaxAttempts()
+                && (previous.checkedAt() == null || !previous.checkedAt().plus(properties.getRetryAfter()).isAfter(now));
+    }
+
+    private synchronized MonthGaps get(String source, YearMonth month) {
+        return gaps.getOrDefault(source, new TreeMap<>()).get(month.toString());
+    }
+
+    private synchronized void update(String source, YearMonth month, SortedMap<LocalDate, Integer> missing, LocalDateTime checkedAt, int attempts) {
+        TreeMap<String, MonthGaps> months = gaps.computeIfAbsent(source, key -> new TreeMap<>());
+        MonthGaps current = months.get(month.toString());
+
+        if (missing.isEmpty()) {
+            if (current == null) {
+                if (months.isEmpty()) {
+                    gaps.remove(source);
+                }
+
+                return;
+            }
+
+            log.info("{} data for {} is complete", source, month);
+            months.remove(month.toString());
+            if (months.isEmpty()) {
+                gaps.remove(source);
+            }
+        } else {
+            MonthGaps updated = new MonthGaps(missing.keySet().stream().map(LocalDate::toString).toList(), sum(missing), checkedAt, attempts);
+            if (updated.equals(current)) {
+                return;
+            }
+
+            if (current == null) {
+                log.warn("{} data for {} misses {} intervals on days {}", source, month, updated.missingIntervals(), updated.days());
+            }
+
+            months.put(month.toString(), updated);
+        }
+
+        save();
+    }
+
+    private Map<String, TreeMap<String, MonthGaps>> load() {
+        if (!file.exists()) {
+            return new TreeMap<>();
+        }
+
+        Optional<byte[]> content = SafeFiles.read(file);
+        if (content.isPresent()) {
+            try {
+                Map<String, TreeMap<String, MonthGaps>> loaded = GsonService.gson.fromJson(new String(content.get(), StandardCharsets.UTF_8), GAPS_TYPE);
+                if (loaded != null) {
+                    return loaded;
+                }
+            } catch (RuntimeException e) {
+                log.error("Failed to parse gap map {}: {}", file.getPath(), e.getMessage(), e);
+            }
+        }
+
+        // Gaps are found again on the next check of each month
+        SafeFiles.quarantine(file);
+        return new TreeMap<>();
+    }
+
+    private void save() {
+        try {
+            SafeFiles.write(file, writer -> GsonService.gson.toJson(gaps, GAPS_TYPE, writer));
+        } catch (IOException e) {
+            log.error("Failed to save gap map {}: {}", file.getPath(), e.getMessage(), e);
+        }
+    }
+
+    private static <T> Set<LocalDateTime> stamps(List<T> entries, Function<T, LocalDateTime> timeOf) {
+        Set<LocalDateTime> stamps = new HashSet<>(entries.size() * 2);
+        for (T entry : entries) {
+            stamps.add(timeOf.apply(entry));
+        }
+
+        return stamps;
+    }
+
+    private static <T> Map<LocalDate, List<T>> byDay(List<T> entries, Function<T, LocalDateTime> timeOf, Coverage coverage, DateRange range) {
+        Map<LocalDate, List<T>> byDay = new HashMap<>();
+
+        for (T entry : entries) {
+            LocalDateTime time = timeOf.apply(entry);
+            if (range.containsStamp(time, coverage.endStamped())) {
+                byDay.computeIfAbsent(dayOf(time, coverage), key -> new ArrayList<>()).add(entry);
+            }
+        }
+
+        return byDay;
+    }
+
+    /**
+     * Day an entry covers, the interval ending at midnight belongs to the day before.
+     */
+    private static LocalDate dayOf(LocalDateTime time, Coverage coverage) {
+        return coverage.endStamped() ? time.minusNanos(1).toLocalDate() : time.toLocalDate();
+    }
+
+    /**
+     * Consecutive days joined into ranges, so neighbouring gaps cost one request.
+     */
+    private static List<DateRange> runs(Set<LocalDate> days) {
+        List<DateRange> runs = new ArrayList<>();
+        LocalDate first = null;
+        LocalDate last = null;
+
+        for (LocalDate day : new TreeSet<>(days)) {
+            if (last != null && !day.equals(last.plusDays(1))) {
+                runs.add(DateRange.ofDays(first, last));
+                first = null;
+            }
+
+            if (first == null) {
+                first = day;
+            }
+
+            last = day;
+        }
+
+        if (first != null) {
+            runs.add(DateRange.ofDays(first, last));
+        }
+
+        return runs;
+    }
+
+    private static int sum(Map<LocalDate, Integer> missing) {
+        return missing.values().stream().mapToInt(Integer::intValue).sum();
+    }
+}
@@ -0,0 +1,66 @@
+package me.firestone82.solaxstatistics.service.completeness;
+
+import lombok.extern.slf4j.Slf4j;
+import me.firestone82.solaxstatistics.service.cez.CEZService;
+import me.firestone82.solaxstatistics.service.ote.OTEService;
+import me.firestone82.solaxstatistics.service.solax.SolaxService;
+import me.firestone82.solaxstatistics.service.source.DataSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.YearMonth;
+
+/**
+ * Periodically loads the incomplete months of the gap map that are due for a retry, which makes the
+ * services fetch their missing days. Months nobody asks for get repaired too. Without it months are only
+ * repaired when they are loaded.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "completeness", name = "background", havingValue = "true")
+public class GapRepairScheduler {
+    private final CompletenessService completeness;
+    private final SolaxService solaxService;
+    private final CEZService cezService;
+    private final OTEService oteService;
+    private final DataSource.Mode mode;
+
+    public GapRepairScheduler(
+            @Autowired CompletenessService completeness,
+            @Autowired SolaxService solaxService,
+            @Autowired CEZService cezService,
+            @Autowired OTEService oteService,
+            @Value("${data.source:LIVE}") DataSource.Mode mode
+    ) {
+        this.completeness = completeness;
+        this.solaxService = solaxService;
+        this.cezService = cezService;
+        this.oteService = oteService;
+        this.mode = mode;
+    }
+
+    @Scheduled(initialDelayString = "${completeness.repairInterval:1h}", fixedDelayString = "${completeness.repairInterval:1h}")
+    public void repair() {
+        if (mode != DataSource.Mode.LIVE) {
+            return;
+        }
+
+        for (YearMonth month : completeness.dueMonths(SolaxService.SOURCE)) {
+            log.debug("Repairing Solax data for {}", month);
+            solaxService.getStatistics(month);
+        }
+
+        for (YearMonth month : completeness.dueMonths(CEZService.SOURCE)) {
+            log.debug("Repairing CEZ data for {}", month);
+            cezService.getConsumption(month);
+        }
+
+        for (YearMonth month : completeness.dueMonths(OTEService.SOURCE)) {
+            log.debug("Repairing OTE data for {}", month);
+            oteService.getPrices(month);
+        }
+    }
+}
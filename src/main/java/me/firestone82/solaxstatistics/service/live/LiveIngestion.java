@@ -0,0 +1,172 @@
+package me.firestone82.solaxstatistics.service.live;
+
+import lombok.extern.slf4j.Slf4j;
+import me.firestone82.solaxstatistics.model.DateRange;
+import me.firestone82.solaxstatistics.model.PriceEntry;
+import me.firestone82.solaxstatistics.model.StatisticsEntry;
+import me.firestone82.solaxstatistics.model.Timeline;
+import me.firestone82.solaxstatistics.model.live.LiveWindow;
+import me.firestone82.solaxstatistics.model.tariff.Tariffs;
+import me.firestone82.solaxstatistics.service.ote.OTEService;
+import me.firestone82.solaxstatistics.service.solax.SolaxService;
+import me.firestone82.solaxstatistics.service.tariff.TariffService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+
+/**
+ * Polls the latest Solax intervals and keeps them in a {@link LiveWindow}, together with a running cost
+ * estimate. The first poll backfills the whole window, later ones ask for the intervals after the latest
+ * one plus a short overlap before it, so intervals the source fills in late are merged in. Stamps are
+ * resolved to {@link Timeline#PRAGUE} instants, the hour repeated in autumn is kept twice. Months are not
+ * touched, the monthly pipeline keeps working from the caches.
+ * <p>
+ * The estimate prices all Solax import and export at the grid tariffs and spot price, there is no CEZ
+ * meter data for the open day.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "live", name = "enabled", havingValue = "true")
+public class LiveIngestion {
+    private final LiveProperties properties;
+    private final SolaxService solaxService;
+    private final OTEService oteService;
+    private final TariffService tariffService;
+    private final LiveWindow window;
+    // Polls never overlap, so these are only touched by one thread at a time
+    private final Map<LocalDate, double[]> spotPrices = new HashMap<>();
+    private final Set<LocalDate> incompletePrices = new HashSet<>();
+
+    public LiveIngestion(
+            @Autowired LiveProperties properties,
+            @Autowired SolaxService solaxService,
+            @Autowired OTEService oteService,
+            @Autowired TariffService tariffService
+    ) {
+        this.properties = properties;
+        this.solaxService = solaxService;
+        this.oteService = oteService;
+        this.tariffService = tariffService;
+        this.window = new LiveWindow((int) properties.getResolution().toMinutes(), properties.getWindowDays());
+
+        log.info("Initialized live ingestion, polling every {} with a {} day window", properties.getPollInterval(), properties.getWindowDays());
+    }
+
+    @Scheduled(fixedDelayString = "${live.pollInterval:5m}")
+    public void poll() {
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MINUTES);
+        LocalDate windowStart = now.toLocalDate().minusDays(properties.getWindowDays() - 1);
+        long windowStartSecond = Timeline.PRAGUE.dayStart(windowStart);
+        long fromSecond = Math.max(windowStartSecond, window.getLatest().orElse(Long.MIN_VALUE) - properties.getOverlap().toSeconds());
+
+        Timeline.Resolver resolver = Timeline.PRAGUE.resolver(fromSecond);
+        LocalDateTime from = resolver.local(fromSecond);
+
+        // Inside the repeated autumn hour the local clock went back, ask for the whole hour before as well
+        if (!from.isBefore(now)) {
+            from = now.minusHours(1).minus(properties.getOverlap());
+        }
+
+        // Days whose prices were not complete are loaded again
+        incompletePrices.forEach(spotPrices::remove);
+        incompletePrices.clear();
+
+        Optional<List<StatisticsEntry>> entries = solaxService.getRecentStatistics(new DateRange(from, now));
+        if (entries.isEmpty()) {
+            log.warn("Live poll of Solax intervals after {} failed", from);
+            return;
+        }
+
+        Tariffs tariffs = tariffService.getTariffs();
+        int added = 0;
+
+        for (StatisticsEntry entry : entries.get()) {
+            LocalDateTime start = entry.getDateTime().minus(properties.getResolution());
+
+            // MWh -> kWh
+            double importEnergy = entry.getImportMWh() * 1000;
+            double export = entry.getExportMWh() * 1000;
+            double spot = spotPrice(start) / 1000; // CZK/kWh
+
+            double importPrice = tariffs.gridImport().price(start);
+            double cost = importEnergy * (importPrice > 0 ? importPrice : spot)
+                    - export * (spot - tariffs.gridExportFee().price(start));
+
+            if (window.append(resolver.epochSecond(entry.getDateTime()), entry.getYieldMWh() * 1000, export, entry.getConsumptionMWh() * 1000, importEnergy, cost)) {
+                added++;
+            }
+        }
+
+        // Only the days still in the window need prices
+        spotPrices.keySet().removeIf(day -> day.isBefore(windowStart));
+        log.debug("Live poll added {} intervals, latest ending {}", added, window.latestInterval().map(LiveWindow.Totals::to).orElse(null));
+    }
+
+    /**
+     * Latest interval with the hour and day it belongs to, empty until the first interval arrives.
+     */
+    public Optional<Snapshot> snapshot() {
+        Optional<LiveWindow.Totals> latest = window.latestInterval();
+        if (latest.isEmpty()) {
+            return Optional.empty();
+        }
+
+        long start = window.getLatest().orElseThrow() - properties.getResolution().toSeconds();
+        return Optional.of(new Snapshot(
+                latest.get().to(),
+                latest.get(),
+                window.hour(start).orElseThrow(),
+                window.day(start).orElseThrow()
+        ));
+    }
+
+    public LiveWindow getWindow() {
+        return window;
+    }
+
+    private double spotPrice(LocalDateTime start) {
+        double[] prices = spotPrices.computeIfAbsent(start.toLocalDate(), this::loadSpotPrices);
+        return prices[start.getHour()];
+    }
+
+    /**
+     * Hourly spot prices of the day, averaged over finer price intervals. Missing hours are 0 until the
+     * day is loaded again on the next poll.
+     */
+    private double[] loadSpotPrices(LocalDate day) {
+        double[] sums = new double[24];
+        int[] counts = new int[24];
+
+        oteService.getRecentPrices(DateRange.ofDays(day, day)).ifPresent(prices -> {
+            for (PriceEntry price : prices) {
+                sums[price.getDateTime().getHour()] += price.getCzkPriceMWh();
+                counts[price.getDateTime().getHour()]++;
+            }
+        });
+
+        boolean complete = true;
+        for (int hour = 0; hour < 24; hour++) {
+            if (counts[hour] > 0) {
+                sums[hour] /= counts[hour];
+            } else {
+                complete = false;
+            }
+        }
+
+        if (!complete) {
+            log.warn("Spot prices for {} are incomplete, live cost is estimated without them", day);
+            incompletePrices.add(day);
+        }
+
+        return sums;
+    }
+
+    public record Snapshot(LocalDateTime latest, LiveWindow.Totals interval, LiveWindow.Totals hour, LiveWindow.Totals day) {
+    }
+}
@@ -0,0 +1,19 @@
+package me.firestone82.solaxstatistics.service.live;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "live")
+public class LiveProperties {
+    private boolean enabled = false;
+    private Duration pollInterval = Duration.ofMinutes(5);
+    // Length of one Solax interval
+    private Duration resolution = Duration.ofMinutes(5);
+    // Days kept in the rolling window, also backfilled on start
+    private int windowDays = 2;
+    // Asked again before the latest interval on every poll, intervals the source fills in late are merged in
+    private Duration overlap = Duration.ofMinutes(30);
+}
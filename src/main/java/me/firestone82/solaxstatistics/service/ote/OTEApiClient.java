@@ -0,0 +1,251 @@
+package me.firestone82.solaxstatistics.service.ote;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import lombok.extern.slf4j.Slf4j;
+import me.firestone82.solaxstatistics.model.DateRange;
+import me.firestone82.solaxstatistics.model.PriceEntry;
+import me.firestone82.solaxstatistics.model.Timeline;
+import okhttp3.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Price source reading the spotovaelektrina.cz JSON API. A range is requested in chunks of up to
+ * {@code ote.api.maxDays} days and every response is decoded as a stream straight into entries, without
+ * building a JSON tree. The response is either a list of price points or an object holding such lists.
+ */
+@Slf4j
+@Component
+public class OTEApiClient implements OTESource {
+    // ISO date-time, with a space instead of the 'T' and an optional offset
+    private static final DateTimeFormatter DATE_TIME_FORMATTER = new DateTimeFormatterBuilder()
+            .append(DateTimeFormatter.ISO_LOCAL_DATE_TIME)
+            .optionalStart().appendOffsetId().optionalEnd()
+            .toFormatter();
+
+    private final OTEApiProperties properties;
+    private final String baseUrl;
+    private final OkHttpClient client;
+
+    public OTEApiClient(
+            @Autowired OTEApiProperties properties,
+            @Value("${ote.baseUrl}") String baseUrl
+    ) {
+        this.properties = properties;
+        this.baseUrl = baseUrl;
+        this.client = new OkHttpClient.Builder()
+                .connectTimeout(15, TimeUnit.SECONDS)
+                .readTimeout(30, TimeUnit.SECONDS)
+                .build();
+    }
+
+    @Override
+    public String getName() {
+        return "live:ote-api";
+    }
+
+    @Override
+    public Optional<List<PriceEntry>> fetch(DateRange range) {
+        List<PriceEntry> entries = new ArrayList<>(range.months().size() * 744);
+        long startNanos = System.nanoTime();
+        int requests = 0;
+
+        for (LocalDate first = range.firstDay(); !first.isAfter(range.lastDay()); first = first.plusDays(properties.getMaxDays())) {
+            LocalDate last = first.plusDays(properties.getMaxDays() - 1);
+            if (last.isAfter(range.lastDay())) {
+                last = range.lastDay();
+            }
+
+            Optional<List<PriceEntry>> chunk = fetchDays(first, last);
+            requests++;
+
+            if (chunk.isEmpty()) {
+                return Optional.empty();
+            }
+
+            chunk.get().stream()
+                    .filter(e -> range.contains(e.getDateTime()))
+                    .forEach(entries::add);
+        }
+
+        if (entries.isEmpty() && !range.isEmpty()) {
+            log.warn("OTE API returned no prices for {}", range);
+            return Optional.empty();
+        }
+
+        log.info("Fetched {} OTE prices for {} in {} requests over API in {} ms", entries.size(), range, requests, Duration.ofNanos(System.nanoTime() - startNanos).toMillis());
+        return Optional.of(entries);
+    }
+
+    private Optional<List<PriceEntry>> fetchDays(LocalDate first, LocalDate last) {
+        HttpUrl url = HttpUrl.get(baseUrl + properties.getPricesPath()).newBuilder()
+                .addQueryParameter(properties.getFromParameter(), first.toString())
+                .addQueryParameter(properties.getToParameter(), last.toString())
+                .build();
+
+        Request request = new Request.Builder()
+                .url(url)
+                .header("Accept", "application/json")
+                .get()
+                .build();
+
+        log.debug("Fetching OTE prices for {} - {} from {}", first, last, url);
+
+        try (Response response = client.newCall(request).execute()) {
+            ResponseBody body = response.body();
+
+            if (!response.isSuccessful() || body == null) {
+                log.warn("OTE API returned status {} for {} - {}", response.code(), first, last);
+                return Optional.empty();
+            }
+
+            return Optional.of(parse(body));
+        } catch (IOException | RuntimeException e) {
+            log.error("Failed to fetch OTE prices for {} - {}: {}", first, last, e.getMessage(), e);
+            return Optional.empty();
+        }
+    }
+
+    private List<PriceEntry> parse(ResponseBody body) throws IOException {
+        List<PriceEntry> entries = new ArrayList<>(24 * properties.getMaxDays());
+
+        try (JsonReader reader = new JsonReader(new InputStreamReader(body.byteStream(), StandardCharsets.UTF_8))) {
+            readValue(reader, null, entries);
+        }
+
+        return entries;
+    }
+
+    /**
+     * Reads lists of points anywhere in the value. A {@code date} member of an object is the default day
+     * of the points listed after it in the same object.
+     */
+    private void readValue(JsonReader reader, LocalDate date, List<PriceEntry> entries) throws IOException {
+        switch (reader.peek()) {
+            case BEGIN_ARRAY -> {
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    if (reader.peek() == JsonToken.BEGIN_OBJECT) {
+                        readPoint(reader, date, entries);
+                    } else {
+                        reader.skipValue();
+                    }
+                }
+                reader.endArray();
+            }
+            case BEGIN_OBJECT -> {
+                LocalDate objectDate = date;
+
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    String name = reader.nextName();
+
+                    if (name.equals(properties.getFields().getDate()) && reader.peek() == JsonToken.STRING) {
+                        objectDate = parseDate(reader.nextString()).orElse(objectDate);
+                    } else {
+                        readValue(reader, objectDate, entries);
+                    }
+                }
+                reader.endObject();
+            }
+            default -> reader.skipValue();
+        }
+    }
+
+    /**
+     * Reads one object of a list. Objects that are not price points (no stamp or no price) are ignored,
+     * lists nested in them are still read.
+     */
+    private void readPoint(JsonReader reader, LocalDate date, List<PriceEntry> entries) throws IOException {
+        OTEApiProperties.Fields fields = properties.getFields();
+        LocalDateTime dateTime = null;
+        LocalDate day = date;
+        int hour = -1;
+        int minute = 0;
+        double czk = Double.NaN;
+        double eur = 0;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            JsonToken token = reader.peek();
+
+            if (token == JsonToken.NULL) {
+                reader.nextNull();
+            } else if (name.equals(fields.getDateTime()) && token == JsonToken.STRING) {
+                dateTime = parseDateTime(reader.nextString()).orElse(null);
+            } else if (name.equals(fields.getDate()) && token == JsonToken.STRING) {
+                day = parseDate(reader.nextString()).orElse(day);
+            } else if (name.equals(fields.getHour()) && token == JsonToken.NUMBER) {
+                hour = reader.nextInt();
+            } else if (name.equals(fields.getMinute()) && token == JsonToken.NUMBER) {
+                minute = reader.nextInt();
+            } else if (name.equals(fields.getCzk()) && token == JsonToken.NUMBER) {
+                czk = reader.nextDouble();
+            } else if (name.equals(fields.getEur()) && token == JsonToken.NUMBER) {
+                eur = reader.nextDouble();
+            } else if (token == JsonToken.BEGIN_ARRAY || token == JsonToken.BEGIN_OBJECT) {
+                readValue(reader, day, entries);
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        if (dateTime == null && day != null && hour >= 0 && hour < Timeline.PRAGUE.hoursIn(day)) {
+            // Hours count from midnight, so the autumn day has a 25th hour repeating the 02:00 stamp
+            dateTime = Timeline.PRAGUE.resolver().local(Timeline.PRAGUE.dayStart(day) + hour * Timeline.HOUR + minute * 60L);
+        }
+
+        if (dateTime == null || Double.isNaN(czk)) {
+            log.trace("Skipping OTE API object without a stamp or price");
+            return;
+        }
+
+        entries.add(new PriceEntry(dateTime, czk * properties.getPriceScale(), eur * properties.getPriceScale()));
+    }
+
+    /**
+     * Parses the stamp as Prague wall-clock time, a stamp with an offset is converted to it first.
+     */
+    private static Optional<LocalDateTime> parseDateTime(String text) {
+        try {
+            Object parsed = DATE_TIME_FORMATTER.parseBest(text.trim().replace(' ', 'T'), OffsetDateTime::from, LocalDateTime::from);
+
+            if (parsed instanceof OffsetDateTime offsetDateTime) {
+                return Optional.of(offsetDateTime.atZoneSameInstant(Timeline.PRAGUE.zone()).toLocalDateTime());
+            }
+
+            return Optional.of((LocalDateTime) parsed);
+        } catch (DateTimeParseException e) {
+            log.warn("Invalid OTE API date-time: {}", text);
+            return Optional.empty();
+        }
+    }
+
+    private static Optional<LocalDate> parseDate(String text) {
+        try {
+            return Optional.of(LocalDate.parse(text.trim().substring(0, Math.min(10, text.trim().length()))));
+        } catch (DateTimeParseException e) {
+            log.warn("Invalid OTE API date: {}", text);
+            return Optional.empty();
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package me.firestone82.solaxstatistics.service.ote;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "ote.api")
+public class OTEApiProperties {
+    private String pricesPath = "/api/v1/price/get-prices-json";
+    // Query parameters of the first and last day of the requested range, both inclusive
+    private String fromParameter = "from";
+    private String toParameter = "to";
+    // Days requested at once, a month fits into one or two requests
+    private int maxDays = 31;
+    // Multiplier from the API price unit to price per MWh
+    private double priceScale = 1.0;
+    private Fields fields = new Fields();
+
+    /**
+     * Names of the JSON fields of one price point. A point is stamped either by {@code dateTime} or by
+     * {@code date} with {@code hour} and optional {@code minute}; a {@code date} next to a list of points
+     * applies to all of them.
+     */
+    @Data
+    public static class Fields {
+        private String dateTime = "dateTime";
+        private String date = "date";
+        private String hour = "hour";
+        private String minute = "minute";
+        private String czk = "priceCZK";
+        private String eur = "priceEur";
+    }
+}
@@ -0,0 +1,278 @@
+package me.firestone82.solaxstatistics.service.ote;
+
+import lombok.extern.slf4j.Slf4j;
+import me.firestone82.solaxstatistics.serialization.GsonService;
+import me.firestone82.solaxstatistics.utils.FileUtils;
+import me.firestone82.solaxstatistics.utils.SafeFiles;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.*;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Disk cache of the OTE history pages. Bodies are stored gzip-compressed under the SHA-256 of their
+ * content ({@code blobs/}), and every URL has a small record ({@code pages/}) pointing at its body along
+ * with the ETag and Last-Modified it was served with. Pages of closed days never change and are served
+ * from disk without a request, recent ones are revalidated with a conditional GET. Bodies no record points
+ * at any more are removed on start.
+ */
+@Slf4j
+@Component
+public class OTEPageCache {
+    private final OTEPageCacheProperties properties;
+    private final File pagesDir;
+    private final File blobsDir;
+    private final HttpClient client;
+
+    public OTEPageCache(
+            @Autowired OTEPageCacheProperties properties,
+            @Value("${data.directory}") String storagePath
+    ) {
+        this.properties = properties;
+        this.client = HttpClient.newBuilder()
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+
+        File directory = new File(storagePath, properties.getDirectory());
+        this.pagesDir = FileUtils.ensureFolderCreated(directory.getPath(), "pages");
+        this.blobsDir = FileUtils.ensureFolderCreated(directory.getPath(), "blobs");
+
+        if (properties.isEnabled()) {
+            removeOrphanBlobs();
+        }
+    }
+
+    /**
+     * Whether pages of the day may still change and have to be revalidated.
+     */
+    public boolean isOpen(LocalDate day) {
+        return !day.isBefore(LocalDate.now().minusDays(properties.getRevalidateDays()));
+    }
+
+    /**
+     * Body of the page, from disk when it is cached and closed, otherwise from the server. A cached body
+     * is also used when revalidation fails.
+     *
+     * @param closed whether the page can no longer change
+     */
+    public String get(String url, boolean closed) throws IOException, InterruptedException {
+        if (!properties.isEnabled()) {
+            return send(request(url).build()).body();
+        }
+
+        Optional<CachedPage> cached = loadPage(url);
+        Optional<String> cachedBody = cached.flatMap(this::loadBody);
+
+        if (closed && cachedBody.isPresent()) {
+            log.trace("Serving closed page {} from disk", url);
+            return cachedBody.get();
+        }
+
+        HttpRequest.Builder request = request(url);
+        if (cachedBody.isPresent()) {
+            if (cached.get().etag() != null) {
+                request.header("If-None-Match", cached.get().etag());
+            }
+
+            if (cached.get().lastModified() != null) {
+                request.header("If-Modified-Since", cached.get().lastModified());
+            }
+        }
+
+        HttpResponse<String> response;
+        try {
+            response = send(request.build());
+        } catch (IOException e) {
+            if (cachedBody.isPresent()) {
+                log.warn("Failed to revalidate {}, using the cached page: {}", url, e.getMessage());
+                return cachedBody.get();
+            }
+
+            throw e;
+        }
+
+        if (response.statusCode() == 304 && cachedBody.isPresent()) {
+            log.trace("Page {} not modified", url);
+            return cachedBody.get();
+        }
+
+        if (response.statusCode() == 200) {
+            store(url, response);
+        } else {
+            log.warn("OTE page {} returned status {}", url, response.statusCode());
+        }
+
+        return response.body();
+    }
+
+    private HttpRequest.Builder request(String url) {
+        return HttpRequest.newBuilder()
+                .uri(URI.create(url))
+                .header("User-Agent", "Java HttpClient");
+    }
+
+    private HttpResponse<String> send(HttpRequest request) throws IOException, InterruptedException {
+        try {
+            return client.send(request, HttpResponse.BodyHandlers.ofString());
+        } catch (IOException | InterruptedException e) {
+            log.error("Failed to fetch HTML from {}: {}", request.uri(), e.getMessage(), e);
+            throw e;
+        }
+    }
+
+    private Optional<CachedPage> loadPage(String url) {
+        File file = pageFile(url);
+        if (!file.exists()) {
+            return Optional.empty();
+        }
+
+        Optional<CachedPage> page = readPage(file).filter(cached -> url.equals(cached.url()));
+        if (page.isEmpty()) {
+            SafeFiles.quarantine(file);
+        }
+
+        return page;
+    }
+
+    /**
+     * Record of a page file, empty when it is corrupt or not a page record, e.g. of an older format.
+     */
+    private Optional<CachedPage> readPage(File file) {
+        Optional<byte[]> content = SafeFiles.read(file);
+        if (content.isEmpty()) {
+            return Optional.empty();
+        }
+
+        try {
+            CachedPage page = GsonService.gson.fromJson(new String(content.get(), StandardCharsets.UTF_8), CachedPage.class);
+            return Optional.ofNullable(page).filter(cached -> cached.url() != null && cached.blob() != null);
+        } catch (RuntimeException e) {
+            log.warn("Failed to parse cached OTE page record {}: {}", file.getName(), e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Deletes bodies no page record points at, left behind when a page changed, and unfinished writes.
+     * Unreadable records are quarantined, their bodies go with them.
+     */
+    private void removeOrphanBlobs() {
+        File[] pages = pagesDir.listFiles((dir, name) -> name.endsWith(".json"));
+        File[] blobs = blobsDir.listFiles();
+        if (pages == null || blobs == null) {
+            return;
+        }
+
+        Set<String> referenced = new HashSet<>();
+        for (File page : pages) {
+            Optional<CachedPage> cached = readPage(page);
+
+            if (cached.isPresent()) {
+                referenced.add(cached.get().blob() + ".gz");
+            } else {
+                SafeFiles.quarantine(page);
+            }
+        }
+
+        int removed = 0;
+        for (File blob : blobs) {
+            if (!referenced.contains(blob.getName()) && blob.delete()) {
+                removed++;
+            }
+        }
+
+        if (removed > 0) {
+            log.info("Removed {} OTE page bodies no longer referenced", removed);
+        }
+    }
+
+    /**
+     * Body the page points at, empty when the blob is gone or no longer matches its hash.
+     */
+    private Optional<String> loadBody(CachedPage page) {
+        File blob = new File(blobsDir, page.blob() + ".gz");
+        if (!blob.exists()) {
+            return Optional.empty();
+        }
+
+        try (InputStream in = new GZIPInputStream(new FileInputStream(blob))) {
+            byte[] bytes = in.readAllBytes();
+
+            if (!hash(bytes).equals(page.blob())) {
+                log.warn("Cached OTE page body {} is corrupt", blob.getName());
+                SafeFiles.quarantine(blob);
+                return Optional.empty();
+            }
+
+            return Optional.of(new String(bytes, StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            log.warn("Failed to read cached OTE page body {}: {}", blob.getName(), e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    private void store(String url, HttpResponse<String> response) {
+        byte[] bytes = response.body().getBytes(StandardCharsets.UTF_8);
+        String blob = hash(bytes);
+
+        try {
+            File blobFile = new File(blobsDir, blob + ".gz");
+
+            // Same content, same blob
+            if (!blobFile.exists()) {
+                File temp = new File(blobsDir, blob + ".gz.tmp");
+
+                try (OutputStream out = new GZIPOutputStream(new FileOutputStream(temp))) {
+                    out.write(bytes);
+                }
+
+                Files.move(temp.toPath(), blobFile.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            }
+
+            CachedPage page = new CachedPage(
+                    url,
+                    blob,
+                    response.headers().firstValue("ETag").orElse(null),
+                    response.headers().firstValue("Last-Modified").orElse(null),
+                    LocalDateTime.now()
+            );
+
+            SafeFiles.write(pageFile(url), writer -> GsonService.gson.toJson(page, writer));
+        } catch (IOException e) {
+            log.warn("Failed to cache OTE page {}: {}", url, e.getMessage());
+        }
+    }
+
+    private File pageFile(String url) {
+        return new File(pagesDir, hash(url.getBytes(StandardCharsets.UTF_8)) + ".json");
+    }
+
+    private static String hash(byte[] bytes) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private record CachedPage(String url, String blob, String etag, String lastModified, LocalDateTime fetchedAt) {
+    }
+}
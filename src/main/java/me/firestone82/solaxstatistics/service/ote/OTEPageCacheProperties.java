@@ -0,0 +1,14 @@
+package me.firestone82.solaxstatistics.service.ote;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "ote.cache")
+public class OTEPageCacheProperties {
+    private boolean enabled = true;
+    // Relative to the data directory
+    private String directory = "ote/http-cache";
+    // Pages of days this far back (and later) are revalidated, older days are served from disk
+    private int revalidateDays = 2;
+}
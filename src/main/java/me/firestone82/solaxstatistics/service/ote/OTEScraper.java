@@ -1,20 +1,19 @@
 package me.firestone82.solaxstatistics.service.ote;
 
 import lombok.extern.slf4j.Slf4j;
+import me.firestone82.solaxstatistics.model.DateRange;
 import me.firestone82.solaxstatistics.model.PriceEntry;
 import me.firestone82.solaxstatistics.utils.NumberUtils;
 import org.jsoup.Jsoup;
 import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
 import org.jsoup.select.Elements;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.io.IOException;
-import java.net.URI;
-import java.net.http.HttpClient;
-import java.net.http.HttpRequest;
-import java.net.http.HttpResponse;
+import java.time.DateTimeException;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.YearMonth;
 import java.time.format.DateTimeFormatter;
@@ -26,31 +25,73 @@ import java.util.regex.Pattern;
 
 @Slf4j
 @Service
-public class OTEScraper {
+public class OTEScraper implements OTESource {
 
     private static final DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormatter.ofPattern("d.M.yyyy H:mm");
+    // Day pages are linked as .../historicke-ceny/<year>/<month>/<day>
+    private static final Pattern DAY_LINK_PATTERN = Pattern.compile("/(\\d{4})/(\\d{1,2})/(\\d{1,2})/?(?:[?#].*)?$");
     private final String historyUrl;
+    private final OTEPageCache pageCache;
 
     public OTEScraper(
-            @Value("${ote.baseUrl}") String baseUrl
+            @Value("${ote.baseUrl}") String baseUrl,
+            @Autowired OTEPageCache pageCache
     ) {
         this.historyUrl = baseUrl + "/historicke-ceny/";
+        this.pageCache = pageCache;
+    }
+
+    @Override
+    public String getName() {
+        return "live:ote";
+    }
+
+    @Override
+    public Optional<List<PriceEntry>> fetch(DateRange range) {
+        List<PriceEntry> entries = new ArrayList<>();
+
+        for (YearMonth month : range.months()) {
+            Optional<List<PriceEntry>> monthEntries = scrapePrices(month, range);
+            if (monthEntries.isEmpty()) {
+                return Optional.empty();
+            }
+
+            monthEntries.get().stream()
+                    .filter(e -> range.contains(e.getDateTime()))
+                    .forEach(entries::add);
+        }
+
+        return Optional.of(entries);
     }
 
     public Optional<List<PriceEntry>> scrapePrices(YearMonth yearMonth) {
+        return scrapePrices(yearMonth, DateRange.of(yearMonth));
+    }
+
+    /**
+     * Prices of the month's days overlapping the range. Day pages whose link does not tell the day are
+     * always scraped.
+     */
+    public Optional<List<PriceEntry>> scrapePrices(YearMonth yearMonth, DateRange range) {
         List<PriceEntry> allData = new ArrayList<>();
         String targetUrl = historyUrl + yearMonth.getYear() + "/" + yearMonth.getMonthValue();
         log.debug("Scraping OTE prices for {} from {}", yearMonth, targetUrl);
 
         try {
-            String homepageHtml = fetchHtml(targetUrl);
+            // The list of days is complete once the last day of the month is closed
+            String homepageHtml = pageCache.get(targetUrl, !pageCache.isOpen(yearMonth.atEndOfMonth()));
             List<String> dayLinks = extractDayLinks(homepageHtml, targetUrl);
 
             for (String link : dayLinks) {
+                Optional<LocalDate> day = dayOfLink(link);
+                if (day.isPresent() && (day.get().isBefore(range.firstDay()) || day.get().isAfter(range.lastDay()))) {
+                    continue;
+                }
+
                 try {
                     log.debug("Fetching daily prices from: {}", link);
 
-                    String dayHtml = fetchHtml(link);
+                    String dayHtml = pageCache.get(link, day.isPresent() && !pageCache.isOpen(day.get()));
                     allData.addAll(extractDayPrices(dayHtml));
                 } catch (Exception e) {
                     log.warn("Failed to scrape from {}: {}", link, e.getMessage());
@@ -64,21 +105,6 @@ public class OTEScraper {
         return Optional.of(allData);
     }
 
-    private String fetchHtml(String url) throws IOException, InterruptedException {
-        HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create(url))
-                .header("User-Agent", "Java HttpClient")
-                .build();
-
-        try (HttpClient client = HttpClient.newHttpClient()) {
-            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
-            return response.body();
-        } catch (IOException | InterruptedException e) {
-            log.error("Failed to fetch HTML from {}: {}", url, e.getMessage(), e);
-            throw e;
-        }
-    }
-
     private List<String> extractDayLinks(String html, String baseUrl) {
         List<String> links = new ArrayList<>();
         Document doc = Jsoup.parse(html, baseUrl);
@@ -108,6 +134,19 @@ public class OTEScraper {
         return links;
     }
 
+    private static Optional<LocalDate> dayOfLink(String link) {
+        Matcher matcher = DAY_LINK_PATTERN.matcher(link);
+        if (!matcher.find()) {
+            return Optional.empty();
+        }
+
+        try {
+            return Optional.of(LocalDate.of(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2)), Integer.parseInt(matcher.group(3))));
+        } catch (DateTimeException e) {
+            return Optional.empty();
+        }
+    }
+
     private List<PriceEntry> extractDayPrices(String html) {
         List<PriceEntry> prices = new ArrayList<>();
         Document doc = Jsoup.parse(html);
@@ -1,63 +1,165 @@
 package me.firestone82.solaxstatistics.service.ote;
 
 import lombok.extern.slf4j.Slf4j;
+import me.firestone82.solaxstatistics.model.DateRange;
 import me.firestone82.solaxstatistics.model.PriceEntry;
-import me.firestone82.solaxstatistics.utils.CsvUtils;
+import me.firestone82.solaxstatistics.model.completeness.Coverage;
+import me.firestone82.solaxstatistics.service.completeness.CompletenessService;
+import me.firestone82.solaxstatistics.service.source.CacheDataSource;
+import me.firestone82.solaxstatistics.service.source.DataSource;
+import me.firestone82.solaxstatistics.service.source.SourceGuard;
+import me.firestone82.solaxstatistics.service.source.SyntheticDataSource;
 import me.firestone82.solaxstatistics.utils.FileUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.io.File;
+import java.time.Duration;
 import java.time.YearMonth;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
 @Slf4j
 @Service
 public class OTEService {
-    private final OTEScraper oteScraper;
+    public static final String SOURCE = "ote";
+    // Hour starts are present in hourly and finer price series alike
+    private static final Coverage COVERAGE = new Coverage(Duration.ofHours(1), false);
+
+    private final DataSource.Mode mode;
+    private final List<DataSource<PriceEntry>> sources;
+    private final CacheDataSource<PriceEntry> cache;
+    private final CompletenessService completeness;
     private final File dataDir;
 
     public OTEService(
             @Autowired OTEScraper oteScraper,
+            @Autowired OTEApiClient oteApiClient,
+            @Autowired SyntheticDataSource syntheticDataSource,
+            @Autowired CompletenessService completeness,
+            @Autowired SourceGuard sourceGuard,
+            @Value("${ote.source:API}") OTESource.Type sourceType,
+            @Value("${data.source:LIVE}") DataSource.Mode mode,
             @Value("${data.directory}") String storagePath
     ) {
         log.info("Initializing OTE service");
 
-        this.oteScraper = oteScraper;
+        this.mode = mode;
+        this.completeness = completeness;
         this.dataDir = FileUtils.ensureFolderCreated(storagePath, "ote");
+        this.cache = new CacheDataSource<>(dataDir, "prices", PriceEntry.class, PriceEntry::getDateTime, false);
+
+        // HTML pages always stay as the last resort
+        this.sources = switch (mode) {
+            case SYNTHETIC -> List.of(syntheticDataSource.prices());
+            case CACHE -> List.of();
+            case LIVE -> sourceType == OTESource.Type.API
+                    ? List.of(sourceGuard.guard(oteApiClient), sourceGuard.guard(oteScraper))
+                    : List.of(sourceGuard.guard(oteScraper));
+        };
+
+        log.info("Initialized OTE service. Data directory: {}, mode: {}, sources: {}", dataDir.getAbsolutePath(), mode, sources.stream().map(DataSource::getName).toList());
+    }
 
-        log.info("Initialized OTE service. Data directory: {}", dataDir.getAbsolutePath());
+    /**
+     * Prices of the range straight from the month cache, never fetched or repaired. Empty if any month is
+     * not cached. Synthetic prices are generated, they are never cached.
+     */
+    public Optional<List<PriceEntry>> getCachedPrices(DateRange range) {
+        return mode == DataSource.Mode.SYNTHETIC ? fetchFromSources(range) : cache.fetch(range);
+    }
+
+    /**
+     * Prices for an arbitrary range. Months are loaded through the month cache and only the part
+     * inside the range is kept.
+     */
+    public Optional<List<PriceEntry>> getPrices(DateRange range) {
+        if (mode == DataSource.Mode.SYNTHETIC) {
+            return fetchFromSources(range);
+        }
+
+        List<PriceEntry> entries = new ArrayList<>();
+
+        for (YearMonth month : range.months()) {
+            Optional<List<PriceEntry>> monthEntries = getPrices(month);
+            if (monthEntries.isEmpty()) {
+                return Optional.empty();
+            }
+
+            entries.addAll(range.slice(monthEntries.get(), PriceEntry::getDateTime, false));
+        }
+
+        return Optional.of(entries);
+    }
+
+    /**
+     * Prices of days in the still open month straight from the source, bypassing the month cache.
+     */
+    public Optional<List<PriceEntry>> getRecentPrices(DateRange range) {
+        if (mode == DataSource.Mode.CACHE) {
+            log.warn("Recent OTE prices are not available in CACHE mode");
+            return Optional.empty();
+        }
+
+        return fetchFromSources(range);
     }
 
     public Optional<List<PriceEntry>> getPrices(YearMonth yearMonth) {
         log.debug("Retrieving ote history prices for {}", yearMonth);
 
-        String filename = String.format("prices_%s.csv", yearMonth);
-        File file = new File(dataDir, filename);
+        if (mode == DataSource.Mode.SYNTHETIC) {
+            return fetchFromSources(DateRange.of(yearMonth));
+        }
+
+        if (cache.contains(yearMonth)) {
+            Optional<List<PriceEntry>> foundPriceEntries = cache.load(yearMonth);
+            if (foundPriceEntries.isPresent()) {
+                log.debug("Loaded total of {} price entries.", foundPriceEntries.get().size());
+                return Optional.of(completeness.repair(
+                        SOURCE, yearMonth, foundPriceEntries.get(), PriceEntry::getDateTime, COVERAGE,
+                        mode == DataSource.Mode.LIVE ? this::fetchFromSources : null,
+                        entries -> cache.store(yearMonth, entries)
+                ));
+            }
 
-        if (file.exists()) {
-            log.trace("Found cached file {}, loading data from it", file.getPath());
+            log.warn("Cached OTE data for {} is corrupt, fetching it again", yearMonth);
+        }
 
-            Optional<List<PriceEntry>> foundPriceEntries = CsvUtils.loadFromCsv(file, PriceEntry.class);
-            foundPriceEntries.ifPresent(prices -> log.debug("Loaded total of {} price entries.", prices.size()));
-            return foundPriceEntries;
+        if (mode == DataSource.Mode.CACHE) {
+            log.warn("No cached OTE prices for {} and scraping is disabled", yearMonth);
+            return Optional.empty();
         }
 
-        log.trace("No cached file found, scraping data from OTE website");
-        Optional<List<PriceEntry>> scrapedPriceEntries = oteScraper.scrapePrices(yearMonth);
+        log.trace("No cached file found, fetching data from {}", sources.stream().map(DataSource::getName).toList());
+        Optional<List<PriceEntry>> scrapedPriceEntries = fetchFromSources(DateRange.of(yearMonth)).map(cache::sorted);
 
         if (scrapedPriceEntries.isPresent()) {
             List<PriceEntry> priceEntries = scrapedPriceEntries.get();
-            log.debug("Scraped total of {} price entries.", yearMonth);
+            log.debug("Scraped total of {} price entries.", priceEntries.size());
 
-            CsvUtils.saveToCsv(priceEntries, file);
-            log.debug("Saved scraped data to file: {}", file.getAbsolutePath());
+            cache.store(yearMonth, priceEntries);
+            completeness.record(SOURCE, yearMonth, priceEntries, PriceEntry::getDateTime, COVERAGE);
         } else {
             log.warn("No data scraped for {}, returning empty list", yearMonth);
         }
 
         return scrapedPriceEntries;
     }
+
+    private Optional<List<PriceEntry>> fetchFromSources(DateRange range) {
+        for (DataSource<PriceEntry> source : sources) {
+            Optional<List<PriceEntry>> entries = source.fetch(range);
+
+            if (entries.isPresent()) {
+                log.debug("Fetched {} OTE prices from '{}' source", entries.get().size(), source.getName());
+                return entries;
+            }
+
+            log.warn("OTE source '{}' failed for {}", source.getName(), range);
+        }
+
+        return Optional.empty();
+    }
 }
@@ -0,0 +1,22 @@
+package me.firestone82.solaxstatistics.service.ote;
+
+import me.firestone82.solaxstatistics.model.PriceEntry;
+import me.firestone82.solaxstatistics.service.source.DataSource;
+
+/**
+ * Live source of OTE spot prices, stamped at the start of each price interval.
+ */
+public interface OTESource extends DataSource<PriceEntry> {
+
+    enum Type {
+        /**
+         * JSON API of spotovaelektrina.cz, a whole range in a few requests.
+         */
+        API,
+
+        /**
+         * Historic price pages of spotovaelektrina.cz, one page per day.
+         */
+        HTML
+    }
+}
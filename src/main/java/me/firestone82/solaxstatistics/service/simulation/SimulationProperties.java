@@ -0,0 +1,41 @@
+package me.firestone82.solaxstatistics.service.simulation;
+
+import lombok.Data;
+import me.firestone82.solaxstatistics.model.tariff.Tariffs;
+import me.firestone82.solaxstatistics.service.tariff.TariffProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Data
+@ConfigurationProperties(prefix = "simulation")
+public class SimulationProperties {
+    private boolean enabled = false;
+    // Bounds like the query API, end exclusive
+    private String from;
+    private String to;
+    // Results written to the log, all are in the output file
+    private int top = 20;
+    // Alternative tariffs by name, rates not listed are taken from tariff.rates
+    private Map<String, Map<Tariffs.Rate, List<TariffProperties.Period>>> tariffs = new LinkedHashMap<>();
+    // Flat grid export fees (CZK/kWh) tried with every tariff
+    private List<Double> exportFees = new ArrayList<>();
+    private List<Battery> batteries = new ArrayList<>();
+
+    /**
+     * Additional battery charged only from surplus that would be exported and discharged against grid import
+     * in hours whose grid import price is at least {@code dischargeAbove} (CZK/kWh, 0 = always).
+     */
+    @Data
+    public static class Battery {
+        private String name;
+        private double capacityKwh;
+        private double powerKw;
+        // Round trip
+        private double efficiency = 0.9;
+        private double dischargeAbove = 0.0;
+    }
+}
@@ -0,0 +1,322 @@
+package me.firestone82.solaxstatistics.service.simulation;
+
+import com.google.gson.Gson;
+import lombok.extern.slf4j.Slf4j;
+import me.firestone82.solaxstatistics.model.DateRange;
+import me.firestone82.solaxstatistics.model.simulation.ScenarioResult;
+import me.firestone82.solaxstatistics.model.summary.HourCost;
+import me.firestone82.solaxstatistics.model.summary.HourlySeries;
+import me.firestone82.solaxstatistics.model.summary.OverallSummary;
+import me.firestone82.solaxstatistics.model.summary.SummaryRow;
+import me.firestone82.solaxstatistics.model.summary.SummaryTable;
+import me.firestone82.solaxstatistics.model.tariff.Tariffs;
+import me.firestone82.solaxstatistics.serialization.GsonService;
+import me.firestone82.solaxstatistics.service.summary.SummaryService;
+import me.firestone82.solaxstatistics.service.tariff.TariffProperties;
+import me.firestone82.solaxstatistics.service.tariff.TariffService;
+import me.firestone82.solaxstatistics.utils.FileUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Replays the stored history under alternative tariffs, grid export fees and battery dispatch rules,
+ * using the same cost model as the monthly summary. The hourly series is loaded once and shared read-only
+ * by all scenarios, which run as a fork/join grid. Results are ranked by net cost and written to
+ * {@code simulation/simulation_<from>_<to>.json}.
+ * <p>
+ * The grid is every tariff (the configured one plus {@code simulation.tariffs}) times every export fee
+ * (the configured one plus {@code simulation.exportFees}) times every battery (none plus
+ * {@code simulation.batteries}).
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "simulation", name = "enabled", havingValue = "true")
+public class SimulationService {
+    private static final String CONFIGURED = "configured";
+
+    private final SimulationProperties properties;
+    private final SummaryService summaryService;
+    private final TariffService tariffService;
+    private final TariffProperties tariffProperties;
+    private final File dataDir;
+    private final Gson gson;
+
+    public SimulationService(
+            @Value("${data.directory}") String storagePath,
+            @Value("${json.pretty:false}") boolean prettyJson,
+            @Autowired SimulationProperties properties,
+            @Autowired SummaryService summaryService,
+            @Autowired TariffService tariffService,
+            @Autowired TariffProperties tariffProperties
+    ) {
+        this.properties = properties;
+        this.summaryService = summaryService;
+        this.tariffService = tariffService;
+        this.tariffProperties = tariffProperties;
+        this.dataDir = FileUtils.ensureFolderCreated(storagePath, "simulation");
+        this.gson = GsonService.gson(prettyJson);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void run() {
+        DateRange range = DateRange.parse(properties.getFrom(), properties.getTo());
+        List<Scenario> scenarios = scenarios();
+        log.info("Running {} what-if scenarios over {}", scenarios.size(), range);
+
+        long startNanos = System.nanoTime();
+        Optional<List<ScenarioResult>> results = simulate(range, scenarios);
+        if (results.isEmpty()) {
+            return;
+        }
+
+        log.info("Simulated {} scenarios in {} ms", scenarios.size(), Duration.ofNanos(System.nanoTime() - startNanos).toMillis());
+        results.get().stream().limit(properties.getTop()).forEach(result -> log.info(
+                "#{} {}: net cost {} CZK ({} vs. baseline), import {} kWh, export {} kWh",
+                result.rank(), result.name(), round(result.netCost()), round(result.vsBaseline()), round(result.importGrid()), round(result.exportGrid())
+        ));
+
+        save(range, results.get());
+    }
+
+    /**
+     * Evaluates the scenarios over the range, ranked from the lowest net cost. The first scenario is the baseline.
+     */
+    public Optional<List<ScenarioResult>> simulate(DateRange range, List<Scenario> scenarios) {
+        Optional<HourlySeries> series = summaryService.loadSeries(range);
+        if (series.isEmpty() || series.get().getSize() == 0) {
+            log.warn("No history for {}, nothing to simulate", range);
+            return Optional.empty();
+        }
+
+        ScenarioResult[] results = new ScenarioResult[scenarios.size()];
+        ForkJoinPool.commonPool().invoke(new ScenarioGrid(series.get(), scenarios, results, 0, scenarios.size()));
+
+        double baselineCost = results[0].netCost();
+        List<ScenarioResult> sorted = new ArrayList<>(Arrays.asList(results));
+        sorted.sort(Comparator.comparingDouble(ScenarioResult::netCost));
+
+        List<ScenarioResult> ranked = new ArrayList<>(sorted.size());
+        for (int i = 0; i < sorted.size(); i++) {
+            ranked.add(sorted.get(i).ranked(i + 1, baselineCost));
+        }
+
+        return Optional.of(ranked);
+    }
+
+    /**
+     * The configured scenario grid, baseline first.
+     */
+    public List<Scenario> scenarios() {
+        Map<String, Map<Tariffs.Rate, List<TariffProperties.Period>>> tariffs = new LinkedHashMap<>();
+        tariffs.put(CONFIGURED, Map.of());
+        tariffs.putAll(properties.getTariffs());
+
+        List<Double> fees = new ArrayList<>();
+        fees.add(null);
+        fees.addAll(properties.getExportFees());
+
+        List<SimulationProperties.Battery> batteries = new ArrayList<>();
+        batteries.add(null);
+        batteries.addAll(properties.getBatteries());
+
+        List<Scenario> scenarios = new ArrayList<>();
+        for (Map.Entry<String, Map<Tariffs.Rate, List<TariffProperties.Period>>> tariff : tariffs.entrySet()) {
+            for (Double fee : fees) {
+                Map<Tariffs.Rate, List<TariffProperties.Period>> rates = new EnumMap<>(Tariffs.Rate.class);
+                rates.putAll(tariffProperties.getRates());
+                rates.putAll(tariff.getValue());
+
+                if (fee != null) {
+                    TariffProperties.Period flatFee = new TariffProperties.Period();
+                    flatFee.setPrice(fee);
+                    rates.put(Tariffs.Rate.GRID_EXPORT_FEE, List.of(flatFee));
+                }
+
+                Tariffs compiled = tariffService.compile(rates);
+                for (SimulationProperties.Battery battery : batteries) {
+                    scenarios.add(new Scenario(tariff.getKey(), fee, battery, compiled));
+                }
+            }
+        }
+
+        return scenarios;
+    }
+
+    private static ScenarioResult evaluate(HourlySeries series, Scenario scenario) {
+        Tariffs tariffs = scenario.tariffs();
+        double[] gridImportPrices = series.prices(tariffs.gridImport());
+        double[] gridExportFees = series.prices(tariffs.gridExportFee());
+        double[] selfImportPrices = series.prices(tariffs.selfImport());
+        double[] spot = series.getSpotPrice();
+        long[] minutes = series.getMinutes();
+
+        SimulationProperties.Battery battery = scenario.battery();
+        double stepEfficiency = battery == null ? 1.0 : Math.sqrt(battery.getEfficiency());
+        // Energy the battery moves at full power within one slot of the series
+        double stepEnergy = battery == null ? 0.0 : battery.getPowerKw() * series.slotHours();
+        double stored = 0.0;
+        double discharged = 0.0;
+
+        // Slots of every month are summarized through a view of the shared table
+        HourCost cost = new HourCost();
+        SummaryTable hours = new SummaryTable(series.getSize());
+        YearMonth month = YearMonth.from(series.date(0));
+        long monthEnd = monthStartMinute(month.plusMonths(1));
+        int monthStart = 0;
+        Totals totals = new Totals();
+
+        for (int i = 0; i < series.getSize(); i++) {
+            if (minutes[i] >= monthEnd) {
+                totals.add(new OverallSummary(month, hours.slice(monthStart, i), tariffs).getTotal());
+                monthStart = i;
+                month = YearMonth.from(series.date(i));
+                monthEnd = monthStartMinute(month.plusMonths(1));
+            }
+
+            double charge = 0.0;
+            double discharge = 0.0;
+
+            if (battery != null && battery.getCapacityKwh() > 0) {
+                boolean noExport = series.getNoExport()[i];
+                double surplus = noExport ? series.getSolaxExport()[i] : Math.min(series.getGridExport()[i], series.getSolaxExport()[i]);
+                double deficit = noExport ? series.getSolaxImport()[i] : Math.min(series.getGridImport()[i], series.getSolaxImport()[i]);
+                double importPrice = gridImportPrices[i] > 0 ? gridImportPrices[i] : spot[i] / 1000;
+
+                charge = Math.max(Math.min(Math.min(surplus, stepEnergy), (battery.getCapacityKwh() - stored) / stepEfficiency), 0);
+                stored += charge * stepEfficiency;
+
+                if (importPrice >= battery.getDischargeAbove()) {
+                    discharge = Math.max(Math.min(Math.min(deficit, stepEnergy), stored * stepEfficiency), 0);
+                    stored -= discharge / stepEfficiency;
+                    discharged += discharge;
+                }
+            }
+
+            cost.compute(series, i, gridImportPrices[i], selfImportPrices[i], gridExportFees[i], discharge, charge)
+                    .writeTo(hours, i, minutes[i]);
+        }
+
+        totals.add(new OverallSummary(month, hours.slice(monthStart, series.getSize()), tariffs).getTotal());
+
+        return new ScenarioResult(
+                0,
+                scenario.name(),
+                scenario.tariff(),
+                scenario.exportFee(),
+                Scenario.batteryName(battery),
+                totals.importGrid,
+                totals.exportGrid,
+                totals.importCost,
+                totals.exportRevenue,
+                totals.savings,
+                totals.importCost - totals.exportRevenue,
+                0.0,
+                battery == null || battery.getCapacityKwh() <= 0 ? 0.0 : discharged / battery.getCapacityKwh()
+        );
+    }
+
+    private void save(DateRange range, List<ScenarioResult> results) {
+        File file = new File(dataDir, String.format("simulation_%s_%s.json", range.firstDay(), range.lastDay()));
+
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(file.toPath()), StandardCharsets.UTF_8))) {
+            gson.toJson(results, writer);
+        } catch (IOException e) {
+            log.error("Failed to write simulation results to {}: {}", file.getPath(), e.getMessage(), e);
+            return;
+        }
+
+        log.info("Successfully saved simulation results to file: {}", file.getAbsolutePath());
+    }
+
+    private static long monthStartMinute(YearMonth month) {
+        return month.atDay(1).atStartOfDay().toEpochSecond(ZoneOffset.UTC) / 60;
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100.0) / 100.0;
+    }
+
+    /**
+     * One point of the grid. A null export fee or battery means the configured fee and no battery.
+     */
+    public record Scenario(String tariff, Double exportFee, SimulationProperties.Battery battery, Tariffs tariffs) {
+
+        public String name() {
+            return tariff
+                    + " / fee " + (exportFee == null ? CONFIGURED : exportFee)
+                    + " / battery " + batteryName(battery);
+        }
+
+        static String batteryName(SimulationProperties.Battery battery) {
+            if (battery == null) {
+                return "none";
+            }
+
+            return battery.getName() != null ? battery.getName() : battery.getCapacityKwh() + " kWh";
+        }
+    }
+
+    private static class Totals {
+        private double importGrid;
+        private double exportGrid;
+        private double importCost;
+        private double exportRevenue;
+        private double savings;
+
+        void add(SummaryRow month) {
+            importGrid += month.getImportGrid();
+            exportGrid += month.getExportGrid();
+            importCost += month.getImportCostGrid() + month.getImportCostSelf();
+            exportRevenue += month.getExportRevenueGrid() + month.getExportRevenueSelf();
+            savings += month.getSavings();
+        }
+    }
+
+    /**
+     * Splits the scenarios in halves until single scenarios are left, each writes its own result slot.
+     */
+    private static class ScenarioGrid extends RecursiveAction {
+        private final HourlySeries series;
+        private final List<Scenario> scenarios;
+        private final ScenarioResult[] results;
+        private final int from;
+        private final int to;
+
+        ScenarioGrid(HourlySeries series, List<Scenario> scenarios, ScenarioResult[] results, int from, int to) {
+            this.series = series;
+            this.scenarios = scenarios;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                results[from] = evaluate(series, scenarios.get(from));
+                return;
+            }
+
+            int middle = (from + to) >>> 1;
+            invokeAll(
+                    new ScenarioGrid(series, scenarios, results, from, middle),
+                    new ScenarioGrid(series, scenarios, results, middle, to)
+            );
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package me.firestone82.solaxstatistics.service.smtp;
+
+import jakarta.mail.util.ByteArrayDataSource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Email attachment held in memory, so rendered artifacts are attached without being read back from disk.
+ */
+public record Attachment(String name, String contentType, byte[] content) {
+
+    public ByteArrayDataSource toDataSource() {
+        ByteArrayDataSource dataSource = new ByteArrayDataSource(content, contentType);
+        dataSource.setName(name);
+
+        return dataSource;
+    }
+
+    /**
+     * The attachment as the single entry of {@code <name>.zip}.
+     */
+    public Attachment zipped() throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(Math.max(1024, content.length / 2));
+
+        try (ZipOutputStream zip = new ZipOutputStream(buffer)) {
+            zip.putNextEntry(new ZipEntry(name));
+            zip.write(content);
+            zip.closeEntry();
+        }
+
+        return new Attachment(name + ".zip", "application/zip", buffer.toByteArray());
+    }
+}
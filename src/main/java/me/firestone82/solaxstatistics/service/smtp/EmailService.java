@@ -11,13 +11,13 @@ import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StreamUtils;
 
-import java.io.File;
 import java.io.IOException;
-import java.io.UnsupportedEncodingException;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Slf4j
 @Service
@@ -25,32 +25,32 @@ public class EmailService {
     private final JavaMailSender mailSender;
     private final String sender;
     private final List<String> recipients;
+    private final boolean compressAttachments;
+    private final Map<String, String> templates = new ConcurrentHashMap<>();
 
     public EmailService(
             @Autowired JavaMailSender mailSender,
             @Value("${email.sender}") String sender,
-            @Value("#{'${email.recipients}'.split(',')}") ArrayList<String> recipients
+            @Value("#{'${email.recipients}'.split(',')}") ArrayList<String> recipients,
+            @Value("${email.compressAttachments:false}") boolean compressAttachments
     ) {
         this.mailSender = mailSender;
         this.sender = sender;
         this.recipients = recipients;
+        this.compressAttachments = compressAttachments;
     }
 
-    public void sendEmail(String template, String subject, Map<String, Object> variables, List<File> attachments) {
-        log.debug(
-                "Sending '{}' email to {} with subject: '{}' and {} attachments",
-                template, recipients, subject, attachments.stream().map(File::getName).toList()
-        );
-
-        ClassPathResource htmlResource = new ClassPathResource("templates/" + template);
-        MimeMessage mimeMessage = mailSender.createMimeMessage();
-        String html;
+    public void sendEmail(String template, String subject, Map<String, Object> variables, List<Attachment> attachments) {
+        render(template, variables).ifPresent(html -> sendEmail(subject, html, attachments));
+    }
 
-        try {
-            html = StreamUtils.copyToString(htmlResource.getInputStream(), StandardCharsets.UTF_8);
-        } catch (IOException e) {
-            log.error("Failed to load email template '{}': {}", template, e.getMessage());
-            return;
+    /**
+     * Fills the {@code {{name}}} placeholders of the template. Templates are read once and kept.
+     */
+    public Optional<String> render(String template, Map<String, Object> variables) {
+        String html = templates.computeIfAbsent(template, this::loadTemplate);
+        if (html == null) {
+            return Optional.empty();
         }
 
         // Replace placeholders in the HTML template with actual user data
@@ -58,6 +58,21 @@ public class EmailService {
             html = html.replace("{{" + entry.getKey() + "}}", entry.getValue().toString());
         }
 
+        return Optional.of(html);
+    }
+
+    /**
+     * Sends the email with in-memory attachments, zipped on the fly when {@code email.compressAttachments}
+     * is set.
+     */
+    public void sendEmail(String subject, String html, List<Attachment> attachments) {
+        log.debug(
+                "Sending email to {} with subject: '{}' and {} attachments",
+                recipients, subject, attachments.stream().map(Attachment::name).toList()
+        );
+
+        MimeMessage mimeMessage = mailSender.createMimeMessage();
+
         try {
             MimeMessageHelper helper = new MimeMessageHelper(mimeMessage, true, "UTF-8");
             helper.setTo(recipients.toArray(new String[0]));
@@ -65,16 +80,26 @@ public class EmailService {
             helper.setSubject(subject);
             helper.setText(html, true);
 
-            // Attach files to the email
-            for (File attachment : attachments) {
-                helper.addAttachment(attachment.getName(), attachment);
+            for (Attachment attachment : attachments) {
+                Attachment attached = compressAttachments ? attachment.zipped() : attachment;
+                helper.addAttachment(attached.name(), attached.toDataSource());
             }
-        } catch (UnsupportedEncodingException | MessagingException e) {
+        } catch (IOException | MessagingException e) {
             log.error("Failed to create email message: {}", e.getMessage());
             return;
         }
 
         mailSender.send(mimeMessage);
     }
-}
 
+    private String loadTemplate(String template) {
+        ClassPathResource htmlResource = new ClassPathResource("templates/" + template);
+
+        try {
+            return StreamUtils.copyToString(htmlResource.getInputStream(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            log.error("Failed to load email template '{}': {}", template, e.getMessage());
+            return null;
+        }
+    }
+}
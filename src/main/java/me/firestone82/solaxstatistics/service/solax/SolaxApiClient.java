@@ -0,0 +1,301 @@
+package me.firestone82.solaxstatistics.service.solax;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import lombok.extern.slf4j.Slf4j;
+import me.firestone82.solaxstatistics.model.DateRange;
+import me.firestone82.solaxstatistics.model.StatisticsEntry;
+import me.firestone82.solaxstatistics.service.source.CounterDeltaEngine;
+import okhttp3.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.*;
+
+/**
+ * Solax source reading the JSON endpoints the Cloud portal itself uses. The portal UI is opened only
+ * once to log in and capture the auth token; day data is then requested directly and in parallel,
+ * and the cumulative day counters are turned into interval deltas while the response is decoded.
+ */
+@Slf4j
+@Component
+public class SolaxApiClient implements SolaxSource {
+    private static final DateTimeFormatter TIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private final SolaxApiProperties properties;
+    private final SolaxScraper solaxScraper;
+    private final OkHttpClient client;
+
+    private volatile String token;
+
+    public SolaxApiClient(
+            @Autowired SolaxApiProperties properties,
+            @Autowired SolaxScraper solaxScraper
+    ) {
+        this.properties = properties;
+        this.solaxScraper = solaxScraper;
+        this.client = new OkHttpClient.Builder()
+                .connectionPool(new ConnectionPool(properties.getParallelism(), 5, TimeUnit.MINUTES))
+                .connectTimeout(15, TimeUnit.SECONDS)
+                .readTimeout(30, TimeUnit.SECONDS)
+                .build();
+    }
+
+    @Override
+    public String getName() {
+        return "live:solax-api";
+    }
+
+    public boolean isConfigured() {
+        return properties.isConfigured();
+    }
+
+    /**
+     * Fetches the range day by day. Days that fail are left out of the result, so that only those have
+     * to be fetched from another source.
+     *
+     * @return entries of the days fetched, or empty if no day could be fetched
+     */
+    @Override
+    public Optional<List<StatisticsEntry>> fetch(DateRange range) {
+        if (!isConfigured()) {
+            log.warn("Solax API is not configured, missing base URL or site id");
+            return Optional.empty();
+        }
+
+        if (token == null && !restoreToken() && !refreshToken(null)) {
+            return Optional.empty();
+        }
+
+        List<LocalDate> days = range.firstDay().datesUntil(range.lastDay().plusDays(1)).toList();
+        long startNanos = System.nanoTime();
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(properties.getParallelism(), days.size())))) {
+            List<Future<Optional<List<StatisticsEntry>>>> futures = days.stream()
+                    .map(day -> executor.submit(() -> fetchDay(day)))
+                    .toList();
+
+            List<StatisticsEntry> entries = new ArrayList<>(days.size() * 288);
+            List<LocalDate> failed = new ArrayList<>();
+
+            for (int i = 0; i < futures.size(); i++) {
+                Optional<List<StatisticsEntry>> dayEntries = fetched(futures.get(i));
+
+                if (dayEntries.isEmpty()) {
+                    failed.add(days.get(i));
+                    continue;
+                }
+
+                dayEntries.get().stream()
+                        .filter(e -> range.containsStamp(e.getDateTime(), true))
+                        .forEach(entries::add);
+            }
+
+            if (failed.size() == days.size()) {
+                log.warn("Failed to fetch Solax API data for any day of {}", range);
+                return Optional.empty();
+            }
+
+            if (!failed.isEmpty()) {
+                log.warn("Failed to fetch Solax API data for {}", failed);
+            }
+
+            log.info("Fetched {} Solax entries for {} days over API in {} ms", entries.size(), days.size() - failed.size(), Duration.ofNanos(System.nanoTime() - startNanos).toMillis());
+            return Optional.of(entries);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Optional.empty();
+        }
+    }
+
+    private static Optional<List<StatisticsEntry>> fetched(Future<Optional<List<StatisticsEntry>>> future) throws InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            log.error("Error during Solax API fetch: {}", e.getCause().getMessage(), e.getCause());
+            return Optional.empty();
+        }
+    }
+
+    private Optional<List<StatisticsEntry>> fetchDay(LocalDate day) throws IOException {
+        for (int attempt = 1; attempt <= 2; attempt++) {
+            String usedToken = token;
+
+            HttpUrl url = HttpUrl.get(properties.getBaseUrl() + properties.getDayDataPath()).newBuilder()
+                    .addQueryParameter("siteId", properties.getSiteId())
+                    .addQueryParameter("date", day.toString())
+                    .build();
+
+            Request request = new Request.Builder()
+                    .url(url)
+                    .header(properties.getTokenHeader(), usedToken)
+                    .header("Accept", "application/json")
+                    .get()
+                    .build();
+
+            try (Response response = client.newCall(request).execute()) {
+                ResponseBody body = response.body();
+
+                if (response.code() == 401 || response.code() == 403) {
+                    log.debug("Solax token rejected for {} (status {})", day, response.code());
+                } else if (!response.isSuccessful() || body == null) {
+                    log.warn("Solax API returned status {} for {}", response.code(), day);
+                    return Optional.empty();
+                } else {
+                    Optional<List<StatisticsEntry>> entries = parseDay(body, day);
+                    if (entries.isPresent()) {
+                        return entries;
+                    }
+                }
+            }
+
+            if (attempt == 1 && !refreshToken(usedToken)) {
+                return Optional.empty();
+            }
+        }
+
+        return Optional.empty();
+    }
+
+    /**
+     * Decodes the response without building a JSON tree. Values are cumulative for the day, so each
+     * point is converted to a delta against the previous one as soon as it is read.
+     *
+     * @return entries of the day, or empty if the response reports a failure (typically an expired token)
+     */
+    private Optional<List<StatisticsEntry>> parseDay(ResponseBody body, LocalDate day) throws IOException {
+        SolaxApiProperties.Fields fields = properties.getFields();
+        List<StatisticsEntry> entries = new ArrayList<>(288);
+        boolean success = true;
+
+        try (JsonReader reader = new JsonReader(new InputStreamReader(body.byteStream(), StandardCharsets.UTF_8))) {
+            reader.beginObject();
+
+            while (reader.hasNext()) {
+                String name = reader.nextName();
+
+                if (name.equals("success") && reader.peek() == JsonToken.BOOLEAN) {
+                    success = reader.nextBoolean();
+                } else if (name.equals(fields.getResult()) && reader.peek() == JsonToken.BEGIN_ARRAY) {
+                    readPoints(reader, day, entries);
+                } else {
+                    reader.skipValue();
+                }
+            }
+
+            reader.endObject();
+        }
+
+        return success ? Optional.of(entries) : Optional.empty();
+    }
+
+    private void readPoints(JsonReader reader, LocalDate day, List<StatisticsEntry> entries) throws IOException {
+        SolaxApiProperties.Fields fields = properties.getFields();
+        LocalDateTime dayStart = day.atStartOfDay();
+        LocalDateTime dayEnd = dayStart.plusDays(1);
+
+        // yield, export, consumption, import in kWh since midnight
+        CounterDeltaEngine deltas = new CounterDeltaEngine(4, properties.getInterval());
+        double[] counters = new double[4];
+
+        reader.beginArray();
+        while (reader.hasNext()) {
+            LocalDateTime time = null;
+            Arrays.fill(counters, 0);
+
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String name = reader.nextName();
+
+                if (reader.peek() == JsonToken.NULL) {
+                    reader.nextNull();
+                } else if (name.equals(fields.getTime())) {
+                    time = LocalDateTime.parse(reader.nextString(), TIME_FORMATTER);
+                } else if (name.equals(fields.getYield())) {
+                    counters[0] = reader.nextDouble();
+                } else if (name.equals(fields.getExport())) {
+                    counters[1] = reader.nextDouble();
+                } else if (name.equals(fields.getConsumption())) {
+                    counters[2] = reader.nextDouble();
+                } else if (name.equals(fields.getImportEnergy())) {
+                    counters[3] = reader.nextDouble();
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+
+            // Intervals of the day end in (00:00, 24:00], the opening midnight sample closes the day before
+            if (time == null || !time.isAfter(dayStart) || time.isAfter(dayEnd)) {
+                continue;
+            }
+
+            if (!deltas.accept(time, counters)) {
+                log.trace("Solax point {} produced no interval", time);
+                continue;
+            }
+
+            // kWh -> MWh
+            entries.add(new StatisticsEntry(
+                    time,
+                    deltas.delta(0) / 1000d,
+                    deltas.delta(1) / 1000d,
+                    deltas.delta(2) / 1000d,
+                    deltas.delta(3) / 1000d,
+                    deltas.flags()
+            ));
+        }
+        reader.endArray();
+
+        if (deltas.hasAnomalies()) {
+            log.warn("Counter anomalies in Solax API data of {}: {}", day, deltas);
+        }
+    }
+
+    /**
+     * Takes the token of the stored portal session. A stale one is rejected by the first request and
+     * replaced through {@link #refreshToken(String)}.
+     */
+    private synchronized boolean restoreToken() {
+        if (token == null) {
+            token = solaxScraper.storedToken(properties.getTokenStorageKey()).orElse(null);
+
+            if (token != null) {
+                log.debug("Using Solax token of the stored session");
+            }
+        }
+
+        return token != null;
+    }
+
+    /**
+     * Captures a new token through the portal UI. Concurrent callers holding the same stale token
+     * share a single login.
+     */
+    private synchronized boolean refreshToken(String staleToken) {
+        if (token != null && !token.equals(staleToken)) {
+            return true;
+        }
+
+        log.debug("Capturing Solax API token through portal login");
+        token = solaxScraper.captureToken(properties.getTokenStorageKey()).orElse(null);
+
+        if (token == null) {
+            log.warn("Unable to capture Solax API token");
+            return false;
+        }
+
+        return true;
+    }
+}
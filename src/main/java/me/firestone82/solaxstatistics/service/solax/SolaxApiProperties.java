@@ -0,0 +1,44 @@
+package me.firestone82.solaxstatistics.service.solax;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "solax.api")
+public class SolaxApiProperties {
+    // Site id of the shipped configuration, means the API has not been set up
+    private static final String PLACEHOLDER_SITE_ID = "YOUR_SITE_ID";
+
+    private String baseUrl;
+    private String dayDataPath;
+    private String siteId;
+    private String tokenStorageKey = "token";
+    private String tokenHeader = "token";
+    private int parallelism = 4;
+    // Spacing of the day data points, longer steps are flagged as gaps
+    private Duration interval = Duration.ofMinutes(5);
+    private Fields fields = new Fields();
+
+    /**
+     * Whether the base URL and a real site id are set, otherwise the API cannot be used at all.
+     */
+    public boolean isConfigured() {
+        return baseUrl != null && !baseUrl.isBlank()
+                && siteId != null && !siteId.isBlank() && !siteId.equals(PLACEHOLDER_SITE_ID);
+    }
+
+    /**
+     * Names of the JSON fields in the day data response. Energy values are cumulative per day in kWh.
+     */
+    @Data
+    public static class Fields {
+        private String result = "result";
+        private String time = "uploadTime";
+        private String yield = "yieldToday";
+        private String export = "feedInEnergy";
+        private String consumption = "consumeEnergy";
+        private String importEnergy = "importEnergy";
+    }
+}
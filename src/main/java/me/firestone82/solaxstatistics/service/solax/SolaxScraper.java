@@ -2,20 +2,28 @@ package me.firestone82.solaxstatistics.service.solax;
 
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
+import me.firestone82.solaxstatistics.model.DateRange;
 import me.firestone82.solaxstatistics.model.StatisticsEntry;
+import me.firestone82.solaxstatistics.service.browser.BrowserFactory;
+import me.firestone82.solaxstatistics.service.browser.BrowserProperties;
+import me.firestone82.solaxstatistics.service.browser.BrowserSession;
+import me.firestone82.solaxstatistics.service.browser.DownloadCapture;
+import me.firestone82.solaxstatistics.service.browser.SessionStore;
+import me.firestone82.solaxstatistics.service.source.CounterDeltaEngine;
 import org.apache.poi.ss.usermodel.*;
 import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.WebElement;
-import org.openqa.selenium.chrome.ChromeDriver;
-import org.openqa.selenium.chrome.ChromeOptions;
 import org.openqa.selenium.support.ui.ExpectedConditions;
 import org.openqa.selenium.support.ui.WebDriverWait;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
 import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
@@ -23,7 +31,6 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.Duration;
 import java.time.LocalDateTime;
-import java.time.LocalTime;
 import java.time.YearMonth;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
@@ -32,24 +39,38 @@ import java.util.stream.Stream;
 
 @Slf4j
 @Component
-public class SolaxScraper {
+public class SolaxScraper implements SolaxSource {
+    static final Duration EXPORT_INTERVAL = Duration.ofMinutes(5);
+    // File name of the exported report starts with it
+    private static final String EXPORT_PREFIX = "Plant Reports";
+    private static final String SESSION_PORTAL = "solax";
+    private static final By ADVANCED_EXPORT_BUTTON = By.xpath("//*[@id=\"container\"]/div[2]/div/div/div[1]/div[2]/button[2]");
 
     private final String portalUrl;
     private final String reportUrl;
     private final String exportedDataUrl;
     private final String username;
     private final String password;
+    private final BrowserFactory browserFactory;
+    private final BrowserProperties browserProperties;
+    private final SessionStore sessionStore;
 
     @Setter
     private File downloadDir;
 
     public SolaxScraper(
+            @Autowired BrowserFactory browserFactory,
+            @Autowired BrowserProperties browserProperties,
+            @Autowired SessionStore sessionStore,
             @Value("${solax.url.portal}") String portalUrl,
             @Value("${solax.url.report}") String reportUrl,
             @Value("${solax.url.exportedData}") String exportedDataUrl,
             @Value("${solax.credentials.username}") String username,
             @Value("${solax.credentials.password}") String password
     ) {
+        this.browserFactory = browserFactory;
+        this.browserProperties = browserProperties;
+        this.sessionStore = sessionStore;
         this.portalUrl = portalUrl;
         this.reportUrl = reportUrl;
         this.exportedDataUrl = exportedDataUrl;
@@ -57,6 +78,55 @@ public class SolaxScraper {
         this.password = password;
     }
 
+    @Override
+    public String getName() {
+        return "live:solax-ui";
+    }
+
+    /**
+     * The UI exports whole months only, so every month overlapping the range is exported and trimmed.
+     */
+    @Override
+    public Optional<List<StatisticsEntry>> fetch(DateRange range) {
+        List<StatisticsEntry> entries = new ArrayList<>();
+
+        for (YearMonth month : range.months()) {
+            Optional<List<StatisticsEntry>> monthEntries = scrapeData(month);
+            if (monthEntries.isEmpty()) {
+                return Optional.empty();
+            }
+
+            monthEntries.get().stream()
+                    .filter(e -> range.containsStamp(e.getDateTime(), true))
+                    .forEach(entries::add);
+        }
+
+        return Optional.of(entries);
+    }
+
+    /**
+     * Logs in through the portal UI and reads the auth token the portal keeps in local storage.
+     */
+    public Optional<String> captureToken(String storageKey) {
+        try (BrowserSession session = browserFactory.open("solax-login", null)) {
+            WebDriver driver = session.getDriver();
+            WebDriverWait wait = new WebDriverWait(driver, Duration.ofSeconds(20));
+
+            login(driver, wait);
+
+            String token = wait.until(d -> (String) ((JavascriptExecutor) d).executeScript(
+                    "return window.localStorage.getItem(arguments[0]);", storageKey
+            ));
+
+            log.debug("Captured Solax token from local storage key '{}'", storageKey);
+            storeSession(session);
+            return Optional.ofNullable(token);
+        } catch (Exception e) {
+            log.error("Failed to capture Solax token: {}", e.getMessage(), e);
+            return Optional.empty();
+        }
+    }
+
     public Optional<List<StatisticsEntry>> scrapeData(YearMonth yearMonth) {
         log.debug("Scraping Solax data for {}", yearMonth);
 
@@ -82,29 +152,15 @@ public class SolaxScraper {
             return Optional.empty();
         }
 
-        ChromeOptions options = new ChromeOptions();
-//        options.addArguments("--headless=new", "--disable-gpu");
-        options.addArguments("--no-sandbox", "--disable-dev-shm-usage");
-        Map<String, Object> chromePrefs = Map.of(
-                "download.default_directory", tempDir.toFile().getAbsolutePath(),
-                "download.prompt_for_download", false,
-                "safebrowsing.enabled", true
-        );
-        options.setExperimentalOption("prefs", chromePrefs);
-        log.trace("ChromeOptions prepared with prefs: {}", chromePrefs);
-
-        WebDriver driver = new ChromeDriver(options);
-        log.trace("ChromeDriver started");
-
-        try {
+        try (BrowserSession session = browserFactory.open("solax", tempDir)) {
+            WebDriver driver = session.getDriver();
             WebDriverWait wait = new WebDriverWait(driver, Duration.ofSeconds(20));
             log.trace("WebDriverWait created with timeout: {} seconds", 20);
 
             long overallStartNanos = System.nanoTime();
 
             log.debug("Step 1/4: Logging in");
-            login(driver, wait);
-            traceSleep(5000, "after login to allow page load");
+            signIn(session, wait);
 
             log.debug("Step 2/4: Requesting monthly export for {}", yearMonth);
             requestMonthlyExport(driver, wait, yearMonth);
@@ -120,17 +176,39 @@ public class SolaxScraper {
             log.debug("Step 4/4: Downloading the exported report");
             By FIRST_DOWNLOAD_ICON = By.cssSelector("#container > div > div.base-box > div.body > div > div.arco-table.arco-table-size-large.arco-table-border.arco-table-hover.arco-table-type-selection > div > div > div > table > tbody > tr:nth-child(1) > td:nth-child(8) > span > span > i.iconfont.icon-xiazai.success");
             log.trace("Waiting for first download icon to be clickable: {}", FIRST_DOWNLOAD_ICON);
-            wait.until(ExpectedConditions.elementToBeClickable(FIRST_DOWNLOAD_ICON)).click();
-            log.debug("Clicked first download icon to trigger file download");
+            WebElement downloadIcon = wait.until(ExpectedConditions.elementToBeClickable(FIRST_DOWNLOAD_ICON));
 
-            Path downloaded = waitForLatestDownload(tempDir, "Plant Reports", Duration.ofSeconds(30)).orElse(null);
-            if (downloaded == null) {
-                log.warn("No exported file found in {}", tempDir);
-                return Optional.empty();
+            List<StatisticsEntry> entries = null;
+            if (browserProperties.getDownloads().isCapture()) {
+                // The report is served from a storage host, so every response is looked at until it arrives
+                try (DownloadCapture capture = session.captureDownload("*", EXPORT_PREFIX)) {
+                    downloadIcon.click();
+                    log.debug("Clicked first download icon, capturing the report");
+
+                    entries = capture.await(browserProperties.getDownloads().getTimeout(), body -> parseExcel(body, EXPORT_PREFIX)).orElse(null);
+                }
+
+                if (entries == null) {
+                    log.warn("Capturing the exported report failed, looking for it in {}", tempDir);
+                }
+            } else {
+                downloadIcon.click();
+                log.debug("Clicked first download icon to trigger file download");
+            }
+
+            if (entries == null) {
+                Path downloaded = waitForLatestDownload(tempDir, EXPORT_PREFIX, Duration.ofSeconds(30)).orElse(null);
+                if (downloaded == null) {
+                    log.warn("No exported file found in {}", tempDir);
+                    return Optional.empty();
+                }
+                log.debug("Latest downloaded file detected: {}", downloaded.getFileName());
+
+                try (InputStream in = Files.newInputStream(downloaded)) {
+                    entries = parseExcel(in, downloaded.getFileName().toString());
+                }
             }
-            log.debug("Latest downloaded file detected: {}", downloaded.getFileName());
 
-            List<StatisticsEntry> entries = parseExcel(downloaded);
             log.debug("Scraped {} entries for {}", entries.size(), yearMonth);
 
             long overallElapsedMs = Duration.ofNanos(System.nanoTime() - overallStartNanos).toMillis();
@@ -140,13 +218,62 @@ public class SolaxScraper {
         } catch (Exception e) {
             log.error("Error during Solax scraping: {}", e.getMessage(), e);
             return Optional.empty();
-        } finally {
-            try {
-                log.trace("Quitting WebDriver");
-                driver.quit();
-            } catch (Exception ignore) {
-                log.trace("Ignoring exception during WebDriver quit");
-            }
+        }
+    }
+
+    /**
+     * Auth token kept in local storage by the last stored session, without opening a browser.
+     */
+    public Optional<String> storedToken(String storageKey) {
+        return sessionStore.load(SESSION_PORTAL, username)
+                .map(stored -> stored.localStorage().get(storageKey));
+    }
+
+    /**
+     * Continues the stored portal session when it is still accepted, otherwise logs in through the UI
+     * and stores the new session.
+     */
+    private void signIn(BrowserSession session, WebDriverWait wait) throws InterruptedException {
+        if (restoreSession(session)) {
+            log.debug("Reusing stored Solax session, login skipped");
+            return;
+        }
+
+        login(session.getDriver(), wait);
+        traceSleep(5000, "after login to allow page load");
+        storeSession(session);
+    }
+
+    private boolean restoreSession(BrowserSession session) {
+        Optional<SessionStore.StoredSession> stored = sessionStore.load(SESSION_PORTAL, username);
+        if (stored.isEmpty()) {
+            return false;
+        }
+
+        WebDriver driver = session.getDriver();
+
+        try {
+            // Local storage can only be written on a page of the portal's origin
+            driver.get(portalUrl);
+            session.setCookies(stored.get().cookies());
+            session.setLocalStorage(stored.get().localStorage());
+
+            // Probe: an accepted session shows the report page, an expired one ends on the login form
+            driver.get(reportUrl);
+            new WebDriverWait(driver, Duration.ofSeconds(10)).until(ExpectedConditions.presenceOfElementLocated(ADVANCED_EXPORT_BUTTON));
+            return true;
+        } catch (Exception e) {
+            log.debug("Stored Solax session was not accepted: {}", e.getMessage());
+            sessionStore.invalidate(SESSION_PORTAL, username);
+            return false;
+        }
+    }
+
+    private void storeSession(BrowserSession session) {
+        try {
+            sessionStore.save(SESSION_PORTAL, username, session.getCookies(), session.getLocalStorage());
+        } catch (Exception e) {
+            log.warn("Failed to read Solax session from the browser: {}", e.getMessage());
         }
     }
 
@@ -176,7 +303,6 @@ public class SolaxScraper {
         log.trace("Navigating to report URL for export");
         navigate(driver, reportUrl, wait);
 
-        By ADVANCED_EXPORT_BUTTON = By.xpath("//*[@id=\"container\"]/div[2]/div/div/div[1]/div[2]/button[2]");
         log.trace("Waiting for advanced export button: {}", ADVANCED_EXPORT_BUTTON);
         wait.until(ExpectedConditions.elementToBeClickable(ADVANCED_EXPORT_BUTTON)).click();
         traceSleep(250, "after opening advanced export dialog");
@@ -327,18 +453,19 @@ public class SolaxScraper {
         return Optional.ofNullable(bestCandidate);
     }
 
-    private List<StatisticsEntry> parseExcel(Path path) {
-        log.debug("Parsing Excel file: {}", path.getFileName());
+    private List<StatisticsEntry> parseExcel(InputStream in, String name) {
+        log.debug("Parsing Excel file: {}", name);
         List<StatisticsEntry> entries = new ArrayList<>();
         DateTimeFormatter timeFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
 
-        try (Workbook workbook = WorkbookFactory.create(path.toFile())) {
+        // Columns are cumulative kWh since midnight: yield, export, consumption, import
+        CounterDeltaEngine deltas = new CounterDeltaEngine(4, EXPORT_INTERVAL);
+        double[] counters = new double[4];
+
+        try (Workbook workbook = WorkbookFactory.create(in)) {
             Sheet sheet = workbook.getSheetAt(0);
             int rowIndex = 0;
 
-            StatisticsEntry previousEntry = null;
-            LocalDateTime previousDate = null;
-
             for (Row row : sheet) {
                 rowIndex++;
                 if (rowIndex < 3) {
@@ -352,53 +479,38 @@ public class SolaxScraper {
                 String tsString = row.getCell(1).getStringCellValue();
                 LocalDateTime timestamp = LocalDateTime.parse(tsString, timeFormatter);
 
-                if (timestamp.toLocalTime().equals(LocalTime.MIDNIGHT)) {
-                    log.warn("Skipping midnight entry at row {} - {}", rowIndex, tsString);
-                    continue;
-                }
-
-                if (previousDate != null && previousDate.getDayOfMonth() != timestamp.getDayOfMonth()) {
-                    if (log.isTraceEnabled()) {
-                        log.trace("Day changed {} -> {}, resetting previousEntry", previousDate, timestamp);
-                    }
+                counters[0] = processNumericCell(row.getCell(2));
+                counters[1] = processNumericCell(row.getCell(4));
+                counters[2] = processNumericCell(row.getCell(5));
+                counters[3] = processNumericCell(row.getCell(6));
 
-                    previousEntry = null;
+                if (!deltas.accept(timestamp, counters)) {
+                    log.trace("Row {} at {} produced no interval", rowIndex, tsString);
+                    continue;
                 }
-                previousDate = timestamp;
-
-                double yieldMWh = processNumericCell(row.getCell(2)) / 1000d;
-                double exportMWh = processNumericCell(row.getCell(4)) / 1000d;
-                double consumptionMWh = processNumericCell(row.getCell(5)) / 1000d;
-                double importMWh = processNumericCell(row.getCell(6)) / 1000d;
 
                 if (log.isTraceEnabled()) {
-                    log.trace(
-                            "Row {} parsed cumulative: ts={}, yieldMWh={}, exportMWh={}, consumptionMWh={}, importMWh={}",
-                            rowIndex, timestamp, yieldMWh, exportMWh, consumptionMWh, importMWh
-                    );
-                }
-
-                StatisticsEntry current = new StatisticsEntry(timestamp, yieldMWh, exportMWh, consumptionMWh, importMWh);
-                StatisticsEntry currentCopy = current.clone();
-
-                if (previousEntry != null) {
-                    current.subtract(previousEntry);
-                    if (log.isTraceEnabled()) {
-                        log.trace(
-                                "Row {} delta after subtracting previous: yieldMWh={}, exportMWh={}, consumptionMWh={}, importMWh={}",
-                                rowIndex, current.getYieldMWh(), current.getExportMWh(), current.getConsumptionMWh(), current.getImportMWh()
-                        );
-                    }
+                    log.trace("Row {} delta: ts={}, kWh={}/{}/{}/{}, flags={}", rowIndex, timestamp, deltas.delta(0), deltas.delta(1), deltas.delta(2), deltas.delta(3), deltas.flags());
                 }
 
-                previousEntry = currentCopy;
-                entries.add(current);
+                entries.add(new StatisticsEntry(
+                        timestamp,
+                        deltas.delta(0) / 1000d,
+                        deltas.delta(1) / 1000d,
+                        deltas.delta(2) / 1000d,
+                        deltas.delta(3) / 1000d,
+                        deltas.flags()
+                ));
             }
         } catch (Exception e) {
-            log.error("Failed to parse Excel {}: {}", path, e.getMessage(), e);
+            log.error("Failed to parse Excel {}: {}", name, e.getMessage(), e);
+        }
+
+        if (deltas.hasAnomalies()) {
+            log.warn("Counter anomalies in {}: {}", name, deltas);
         }
 
-        log.debug("Parsed {} entries from {}", entries.size(), path.getFileName());
+        log.debug("Parsed {} entries from {}", entries.size(), name);
         return entries;
     }
 
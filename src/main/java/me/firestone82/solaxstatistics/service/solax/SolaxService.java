@@ -1,70 +1,248 @@
 package me.firestone82.solaxstatistics.service.solax;
 
 import lombok.extern.slf4j.Slf4j;
+import me.firestone82.solaxstatistics.model.DateRange;
 import me.firestone82.solaxstatistics.model.StatisticsEntry;
-import me.firestone82.solaxstatistics.utils.CsvUtils;
+import me.firestone82.solaxstatistics.model.completeness.Coverage;
+import me.firestone82.solaxstatistics.service.completeness.CompletenessService;
+import me.firestone82.solaxstatistics.service.source.CacheDataSource;
+import me.firestone82.solaxstatistics.service.source.DataSource;
+import me.firestone82.solaxstatistics.service.source.SourceGuard;
+import me.firestone82.solaxstatistics.service.source.SyntheticDataSource;
 import me.firestone82.solaxstatistics.utils.FileUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.io.File;
+import java.time.Duration;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.YearMonth;
-import java.util.List;
-import java.util.Map;
-import java.util.Optional;
+import java.util.*;
 
 @Slf4j
 @Service
 public class SolaxService {
-    private final SolaxScraper solaxScraper;
+    public static final String SOURCE = "solax";
+    private static final Coverage COVERAGE = new Coverage(SolaxScraper.EXPORT_INTERVAL, true);
+
+    private final DataSource.Mode mode;
+    private final List<DataSource<StatisticsEntry>> sources;
+    private final CacheDataSource<StatisticsEntry> cache;
+    private final CompletenessService completeness;
     private final File dataDir;
 
     public SolaxService(
             @Autowired SolaxScraper solaxScraper,
+            @Autowired SolaxApiClient solaxApiClient,
+            @Autowired SyntheticDataSource syntheticDataSource,
+            @Autowired CompletenessService completeness,
+            @Autowired SourceGuard sourceGuard,
+            @Value("${solax.source:UI}") SolaxSource.Type sourceType,
+            @Value("${data.source:LIVE}") DataSource.Mode mode,
             @Value("${data.directory}") String storagePath
     ) {
         log.info("Initializing Solax service");
 
+        this.mode = mode;
+        this.completeness = completeness;
         this.dataDir = FileUtils.ensureFolderCreated(storagePath, "solax");
-        this.solaxScraper = solaxScraper;
-//        this.solaxScraper.setDownloadDir(new File(dataDir, "downloads"));
+        this.cache = new CacheDataSource<>(dataDir, "consumption", StatisticsEntry.class, StatisticsEntry::getDateTime, true);
+//        solaxScraper.setDownloadDir(new File(dataDir, "downloads"));
+
+        // UI export always stays as the last resort
+        this.sources = switch (mode) {
+            case SYNTHETIC -> List.of(syntheticDataSource.solax());
+            case CACHE -> List.of();
+            case LIVE -> sourceType == SolaxSource.Type.API && apiConfigured(solaxApiClient)
+                    ? List.of(sourceGuard.guard(solaxApiClient), sourceGuard.guard(solaxScraper))
+                    : List.of(sourceGuard.guard(solaxScraper));
+        };
+
+        log.info("Initialized Solax service. Data directory: {}, mode: {}, sources: {}", dataDir.getAbsolutePath(), mode, sources.stream().map(DataSource::getName).toList());
+    }
 
-        log.info("Initialized Solax service. Data directory: {}", dataDir.getAbsolutePath());
+    public Optional<NavigableMap<Long, StatisticsEntry>> getStatisticsIntervals(YearMonth yearMonth, Duration resolution) {
+        return getStatistics(yearMonth).map(data -> StatisticsEntry.aggregate(data, COVERAGE.resolution(), resolution));
     }
 
-    public Optional<Map<LocalDateTime, StatisticsEntry>> getStatisticsHourly(YearMonth yearMonth) {
-        return getStatistics(yearMonth).map(StatisticsEntry::aggregateHourly);
+    public Optional<NavigableMap<Long, StatisticsEntry>> getStatisticsIntervals(DateRange range, Duration resolution) {
+        return getStatistics(range).map(data -> StatisticsEntry.aggregate(data, COVERAGE.resolution(), resolution));
+    }
+
+    /**
+     * Statistics of the range straight from the month cache, never fetched or repaired. Empty if any month
+     * is not cached. Synthetic statistics are generated, they are never cached.
+     */
+    public Optional<List<StatisticsEntry>> getCachedStatistics(DateRange range) {
+        return mode == DataSource.Mode.SYNTHETIC ? fetchFromSources(range) : cache.fetch(range);
+    }
+
+    /**
+     * Statistics for an arbitrary range. Months are loaded through the month cache and only the part
+     * inside the range is kept.
+     */
+    public Optional<List<StatisticsEntry>> getStatistics(DateRange range) {
+        if (mode == DataSource.Mode.SYNTHETIC) {
+            return fetchFromSources(range);
+        }
+
+        List<StatisticsEntry> entries = new ArrayList<>();
+
+        for (YearMonth month : range.months()) {
+            Optional<List<StatisticsEntry>> monthEntries = getStatistics(month);
+            if (monthEntries.isEmpty()) {
+                return Optional.empty();
+            }
+
+            entries.addAll(range.slice(monthEntries.get(), StatisticsEntry::getDateTime, true));
+        }
+
+        return Optional.of(entries);
     }
 
     public Optional<List<StatisticsEntry>> getStatistics(YearMonth yearMonth) {
         log.debug("Retrieving Solax electricity consumption data for {}", yearMonth);
 
-        String fileName = String.format("consumption_%s.csv", yearMonth);
-        File file = new File(dataDir, fileName);
-
-        if (file.exists()) {
-            log.trace("Found cached file {}, loading data from it", file.getPath());
+        // Synthetic data never touches the cache
+        if (mode != DataSource.Mode.SYNTHETIC && cache.contains(yearMonth)) {
+            Optional<List<StatisticsEntry>> foundDataEntries = cache.load(yearMonth);
+            if (foundDataEntries.isPresent()) {
+                log.debug("Loaded {} consumption entries from cache", foundDataEntries.get().size());
+                return Optional.of(completeness.repair(
+                        SOURCE, yearMonth, foundDataEntries.get(), StatisticsEntry::getDateTime, COVERAGE,
+                        mode == DataSource.Mode.LIVE ? this::fetchFromSources : null,
+                        entries -> cache.store(yearMonth, entries)
+                ));
+            }
 
-            Optional<List<StatisticsEntry>> foundDataEntries = CsvUtils.loadFromCsv(file, StatisticsEntry.class);
-            foundDataEntries.ifPresent(entries -> log.debug("Loaded {} consumption entries from cache", entries.size()));
-            return foundDataEntries;
+            log.warn("Cached Solax data for {} is corrupt, fetching it again", yearMonth);
         }
 
-        log.trace("No cached file found, scraping data from Solax website");
-        Optional<List<StatisticsEntry>> scrapedDataEntries = solaxScraper.scrapeData(yearMonth);
+        log.trace("No cached file found, fetching data from {}", sources.stream().map(DataSource::getName).toList());
+        Optional<List<StatisticsEntry>> scrapedDataEntries = fetchFromSources(DateRange.of(yearMonth)).map(cache::sorted);
 
         if (scrapedDataEntries.isPresent()) {
             List<StatisticsEntry> entries = scrapedDataEntries.get();
-            log.debug("Scraped total of {} consumption entries.", yearMonth);
+            log.debug("Fetched total of {} consumption entries.", entries.size());
 
-            CsvUtils.saveToCsv(entries, file);
-            log.debug("Saved scraped data to file: {}", file.getAbsolutePath());
+            if (mode == DataSource.Mode.LIVE) {
+                cache.store(yearMonth, entries);
+                completeness.record(SOURCE, yearMonth, entries, StatisticsEntry::getDateTime, COVERAGE);
+            }
         } else {
-            log.warn("No data scraped for {}, returning empty list", yearMonth);
+            log.warn("No data fetched for {}, returning empty list", yearMonth);
         }
 
         return scrapedDataEntries;
     }
+
+    /**
+     * Latest intervals straight from the sources, e.g. for live ingestion. Nothing is read from or written
+     * to the month cache, since the month is still open.
+     */
+    public Optional<List<StatisticsEntry>> getRecentStatistics(DateRange range) {
+        if (mode == DataSource.Mode.CACHE) {
+            log.warn("Recent Solax statistics are not available in CACHE mode");
+            return Optional.empty();
+        }
+
+        return fetchFromSources(range);
+    }
+
+    /**
+     * Fetches the range from the first source, then only the days it did not return from the next one.
+     */
+    private Optional<List<StatisticsEntry>> fetchFromSources(DateRange range) {
+        List<StatisticsEntry> entries = new ArrayList<>();
+        List<DateRange> missing = List.of(range);
+
+        for (int i = 0; i < sources.size() && !missing.isEmpty(); i++) {
+            DataSource<StatisticsEntry> source = sources.get(i);
+
+            // One call over all missing days, the UI export reads whole months anyway
+            DateRange span = new DateRange(missing.getFirst().from(), missing.getLast().to());
+            Optional<List<StatisticsEntry>> fetched = source.fetch(span);
+
+            if (fetched.isEmpty()) {
+                log.warn("Solax source '{}' failed for {}", source.getName(), span);
+                continue;
+            }
+
+            List<DateRange> parts = missing;
+            List<StatisticsEntry> found = fetched.get().stream()
+                    .filter(entry -> parts.stream().anyMatch(part -> part.containsStamp(entry.getDateTime(), true)))
+                    .toList();
+
+            log.debug("Fetched {} Solax entries from '{}' source", found.size(), source.getName());
+            entries.addAll(found);
+
+            missing = i < sources.size() - 1
+                    ? parts.stream().flatMap(part -> missingDays(part, found).stream()).toList()
+                    : List.of();
+        }
+
+        if (entries.isEmpty()) {
+            return Optional.empty();
+        }
+
+        if (!missing.isEmpty()) {
+            log.warn("Solax data of {} is not available from any source", missing);
+        }
+
+        // Days in order, the order inside a day is kept as the repeated autumn hour relies on it
+        entries.sort(Comparator.comparing(SolaxService::dayOf));
+        return Optional.of(entries);
+    }
+
+    /**
+     * Runs of consecutive days of the range without any entry, each limited to the range.
+     */
+    private static List<DateRange> missingDays(DateRange range, List<StatisticsEntry> entries) {
+        Set<LocalDate> present = new HashSet<>();
+        entries.forEach(entry -> present.add(dayOf(entry)));
+
+        List<DateRange> missing = new ArrayList<>();
+        LocalDate runStart = null;
+
+        for (LocalDate day = range.firstDay(); !day.isAfter(range.lastDay()); day = day.plusDays(1)) {
+            if (!present.contains(day)) {
+                runStart = runStart == null ? day : runStart;
+                continue;
+            }
+
+            if (runStart != null) {
+                missing.add(clamp(range, runStart, day));
+                runStart = null;
+            }
+        }
+
+        if (runStart != null) {
+            missing.add(clamp(range, runStart, range.lastDay().plusDays(1)));
+        }
+
+        return missing;
+    }
+
+    // Entries are stamped at the interval end, the midnight stamp belongs to the day before
+    private static LocalDate dayOf(StatisticsEntry entry) {
+        return entry.getDateTime().minusNanos(1).toLocalDate();
+    }
+
+    private static DateRange clamp(DateRange range, LocalDate from, LocalDate to) {
+        LocalDateTime start = from.atStartOfDay();
+        LocalDateTime end = to.atStartOfDay();
+
+        return new DateRange(start.isAfter(range.from()) ? start : range.from(), end.isBefore(range.to()) ? end : range.to());
+    }
+
+    private static boolean apiConfigured(SolaxApiClient solaxApiClient) {
+        if (!solaxApiClient.isConfigured()) {
+            log.warn("Solax API source selected but solax.api is not configured, using the UI export only");
+            return false;
+        }
+
+        return true;
+    }
 }
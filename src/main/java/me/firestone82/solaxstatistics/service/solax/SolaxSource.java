@@ -0,0 +1,22 @@
+package me.firestone82.solaxstatistics.service.solax;
+
+import me.firestone82.solaxstatistics.model.StatisticsEntry;
+import me.firestone82.solaxstatistics.service.source.DataSource;
+
+/**
+ * Live source of Solax interval statistics. Entries are deltas per interval, not cumulative counters.
+ */
+public interface SolaxSource extends DataSource<StatisticsEntry> {
+
+    enum Type {
+        /**
+         * JSON endpoints behind the Solax Cloud portal, using a token captured from one UI login.
+         */
+        API,
+
+        /**
+         * Advanced export through the portal UI, downloaded as an Excel report.
+         */
+        UI
+    }
+}
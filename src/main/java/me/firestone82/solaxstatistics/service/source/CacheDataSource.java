@@ -0,0 +1,105 @@
+package me.firestone82.solaxstatistics.service.source;
+
+import lombok.extern.slf4j.Slf4j;
+import me.firestone82.solaxstatistics.model.DateRange;
+import me.firestone82.solaxstatistics.model.Timeline;
+import me.firestone82.solaxstatistics.utils.CsvUtils;
+import me.firestone82.solaxstatistics.utils.SafeFiles;
+
+import java.io.File;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Data source over the cache directory, one CSV file per month named {@code <prefix>_<yyyy-MM>.csv}.
+ * Loaded months are kept sorted by time, so ranges are cut out of them by binary search.
+ */
+@Slf4j
+public class CacheDataSource<T> implements DataSource<T> {
+    private final File directory;
+    private final String prefix;
+    private final Class<T> type;
+    private final Function<T, LocalDateTime> timeOf;
+    private final boolean endStamped;
+
+    public CacheDataSource(File directory, String prefix, Class<T> type, Function<T, LocalDateTime> timeOf, boolean endStamped) {
+        this.directory = directory;
+        this.prefix = prefix;
+        this.type = type;
+        this.timeOf = timeOf;
+        this.endStamped = endStamped;
+    }
+
+    @Override
+    public String getName() {
+        return "cache:" + prefix;
+    }
+
+    public File getFile(YearMonth yearMonth) {
+        return new File(directory, String.format("%s_%s.csv", prefix, yearMonth));
+    }
+
+    public boolean contains(YearMonth yearMonth) {
+        return getFile(yearMonth).exists();
+    }
+
+    /**
+     * Entries of a cached month, empty if it is not cached or the file is corrupt.
+     */
+    public Optional<List<T>> load(YearMonth yearMonth) {
+        File file = getFile(yearMonth);
+
+        if (!file.exists()) {
+            return Optional.empty();
+        }
+
+        log.trace("Found cached file {}, loading data from it", file.getPath());
+        Optional<List<T>> entries = CsvUtils.loadFromCsv(file, type).map(this::sorted);
+
+        // Unreadable months are moved aside, so they are no longer cached and get fetched again
+        if (entries.isEmpty()) {
+            SafeFiles.quarantine(file);
+        }
+
+        return entries;
+    }
+
+    public void store(YearMonth yearMonth, List<T> entries) {
+        File file = getFile(yearMonth);
+
+        CsvUtils.saveToCsv(sorted(entries), file);
+        log.debug("Saved data to file: {}", file.getAbsolutePath());
+    }
+
+    /**
+     * Loads every month overlapping the range. Fails if any of them is not cached.
+     */
+    @Override
+    public Optional<List<T>> fetch(DateRange range) {
+        List<T> entries = new ArrayList<>();
+
+        for (YearMonth month : range.months()) {
+            Optional<List<T>> monthEntries = load(month);
+            if (monthEntries.isEmpty()) {
+                log.debug("Month {} is not cached in {}", month, directory.getPath());
+                return Optional.empty();
+            }
+
+            entries.addAll(range.slice(monthEntries.get(), timeOf, endStamped));
+        }
+
+        return Optional.of(entries);
+    }
+
+    /**
+     * Returns the entries sorted by instant, reusing the list when it already is (the common case). The
+     * repeated autumn hour stays after the first one instead of being interleaved with it.
+     */
+    public List<T> sorted(List<T> entries) {
+        return Timeline.PRAGUE.sorted(entries, timeOf);
+    }
+}
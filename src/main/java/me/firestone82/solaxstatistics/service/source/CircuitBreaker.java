@@ -0,0 +1,111 @@
+package me.firestone82.solaxstatistics.service.source;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Breaker of one source. It opens after {@code failureThreshold} consecutive failures and rejects calls
+ * for the cool-down, then lets a single trial call through. A successful trial closes it again, a failed
+ * one opens it for another cool-down.
+ */
+@Slf4j
+public class CircuitBreaker {
+    private final String name;
+    private final int failureThreshold;
+    private final Duration coolDown;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedNanos;
+    private LocalDateTime openUntil;
+    private String lastError;
+    private long calls;
+    private long failures;
+    private long shortCircuited;
+    private long rejected;
+
+    public CircuitBreaker(String name, int failureThreshold, Duration coolDown) {
+        this.name = name;
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.coolDown = coolDown;
+    }
+
+    /**
+     * Whether a call may go through. In the half-open state only one call is let through at a time.
+     */
+    public synchronized boolean tryAcquire() {
+        if (state == State.OPEN && System.nanoTime() - openedNanos >= coolDown.toNanos()) {
+            log.info("Circuit of '{}' is half-open, trying a call", name);
+            state = State.HALF_OPEN;
+        } else if (state != State.CLOSED) {
+            shortCircuited++;
+            return false;
+        }
+
+        calls++;
+        return true;
+    }
+
+    public synchronized void onSuccess() {
+        if (state != State.CLOSED) {
+            log.info("Circuit of '{}' closed", name);
+        }
+
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+        openUntil = null;
+    }
+
+    public synchronized void onFailure(String reason) {
+        failures++;
+        consecutiveFailures++;
+        lastError = reason;
+
+        if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+            state = State.OPEN;
+            openedNanos = System.nanoTime();
+            openUntil = LocalDateTime.now().plus(coolDown);
+            log.warn("Circuit of '{}' opened after {} failures ({}), calls are skipped until {}", name, consecutiveFailures, reason, openUntil);
+        }
+    }
+
+    /**
+     * Acquired call that never ran, e.g. because the bulkhead was full. Counts neither way.
+     */
+    public synchronized void onRejected() {
+        rejected++;
+
+        if (state == State.HALF_OPEN) {
+            state = State.OPEN;
+        }
+    }
+
+    public synchronized Snapshot snapshot(int active, int queued) {
+        // An expired cool-down is only noticed by the next call, report it as it will be seen
+        State current = state == State.OPEN && System.nanoTime() - openedNanos >= coolDown.toNanos() ? State.HALF_OPEN : state;
+        return new Snapshot(name, current, consecutiveFailures, calls, failures, shortCircuited, rejected, active, queued, openUntil, lastError);
+    }
+
+    public record Snapshot(
+            String source,
+            State state,
+            int consecutiveFailures,
+            long calls,
+            long failures,
+            long shortCircuited,
+            long rejected,
+            int active,
+            int queued,
+            LocalDateTime openUntil,
+            String lastError
+    ) {
+    }
+
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+}
@@ -0,0 +1,190 @@
+package me.firestone82.solaxstatistics.service.source;
+
+import lombok.Getter;
+import me.firestone82.solaxstatistics.model.Timeline;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+
+/**
+ * Streaming conversion of cumulative counters, reset at midnight, into interval deltas. Samples are fed
+ * one at a time in time order with the counters in a caller-owned array; the deltas and quality flags of
+ * the last accepted sample are read back from the engine, so nothing is allocated per sample.
+ * <p>
+ * Stamps are local interval ends, resolved in source order by a {@link Timeline.Resolver}, so the hour
+ * repeated in autumn is taken as two hours and intervals are measured in real time. A stamp of that hour
+ * equal to the one before it is a duplicate, not the later pass. A midnight sample
+ * closes the previous day. Within a day:
+ * <ul>
+ *     <li>a repeated stamp is a duplicate and is dropped, an earlier one is out of order and dropped too</li>
+ *     <li>a counter lower than before was reset, its delta is the new value and the sample is flagged {@link Flag#RESET}</li>
+ *     <li>a sample further than one interval from the previous one (or from midnight) covers missed intervals and is flagged {@link Flag#GAP}</li>
+ * </ul>
+ * A midnight sample without an earlier sample of its day, or already reset for the next day, does not tell
+ * the last interval and is dropped.
+ */
+public class CounterDeltaEngine {
+    // Counters are decimal readings, ignore float noise when comparing them
+    private static final double TOLERANCE = 1e-9;
+
+    private final long intervalSeconds;
+    private final double[] previous;
+    private final double[] deltas;
+    private final Timeline.Resolver resolver;
+
+    private long previousEnd = Long.MIN_VALUE;
+    private long previousDay = Long.MIN_VALUE;
+    private int flags;
+
+    // Epoch seconds bounding the local day of the last sample, 23 or 25 hours apart on DST changes
+    private long day = Long.MIN_VALUE;
+    private long dayStart;
+    private long dayEnd;
+
+    @Getter
+    private int duplicates;
+    @Getter
+    private int outOfOrder;
+    @Getter
+    private int unanchored;
+    @Getter
+    private int resets;
+    @Getter
+    private int gaps;
+
+    public CounterDeltaEngine(int counters, Duration interval) {
+        this.intervalSeconds = interval.toSeconds();
+        this.resolver = Timeline.PRAGUE.resolver(interval);
+        this.previous = new double[counters];
+        this.deltas = new double[counters];
+    }
+
+    /**
+     * Feeds the counters read at {@code end}.
+     *
+     * @return whether the sample produced an interval, read it with {@link #delta(int)} and {@link #flags()}
+     */
+    public boolean accept(LocalDateTime end, double[] counters) {
+        long endSecond = resolver.epochSecond(end);
+
+        if (endSecond == previousEnd) {
+            duplicates++;
+            return false;
+        }
+
+        if (endSecond < previousEnd) {
+            outOfOrder++;
+            return false;
+        }
+
+        // The interval ending at midnight belongs to the day before
+        long localDay = Math.floorDiv(end.toEpochSecond(ZoneOffset.UTC) - 1, 86400);
+        if (localDay != day) {
+            day = localDay;
+            dayStart = Timeline.PRAGUE.dayStart(LocalDate.ofEpochDay(localDay));
+            dayEnd = Timeline.PRAGUE.dayStart(LocalDate.ofEpochDay(localDay + 1));
+        }
+
+        flags = 0;
+        boolean closesDay = endSecond == dayEnd;
+
+        if (day != previousDay) {
+            if (closesDay) {
+                unanchored++;
+                return false;
+            }
+
+            // Counted from midnight
+            Arrays.fill(previous, 0);
+
+            if (endSecond - dayStart > intervalSeconds) {
+                flags |= Flag.GAP.mask();
+            }
+        } else {
+            if (closesDay && isBelowPrevious(counters)) {
+                // Already reset for the next day, the last interval of the day is unknown
+                unanchored++;
+                return false;
+            }
+
+            if (endSecond - previousEnd > intervalSeconds) {
+                flags |= Flag.GAP.mask();
+            }
+        }
+
+        for (int i = 0; i < counters.length; i++) {
+            double delta = counters[i] - previous[i];
+
+            if (delta < -TOLERANCE) {
+                flags |= Flag.RESET.mask();
+                delta = counters[i];
+            }
+
+            deltas[i] = delta;
+            previous[i] = counters[i];
+        }
+
+        if (Flag.RESET.isSet(flags)) {
+            resets++;
+        }
+
+        if (Flag.GAP.isSet(flags)) {
+            gaps++;
+        }
+
+        previousEnd = endSecond;
+        previousDay = day;
+        return true;
+    }
+
+    private boolean isBelowPrevious(double[] counters) {
+        for (int i = 0; i < counters.length; i++) {
+            if (counters[i] - previous[i] < -TOLERANCE) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    public double delta(int counter) {
+        return deltas[counter];
+    }
+
+    /**
+     * Quality of the last accepted interval, a mask of {@link Flag}s.
+     */
+    public int flags() {
+        return flags;
+    }
+
+    public boolean hasAnomalies() {
+        return duplicates + outOfOrder + unanchored + resets + gaps > 0;
+    }
+
+    @Override
+    public String toString() {
+        return "duplicates=" + duplicates + ", outOfOrder=" + outOfOrder + ", unanchored=" + unanchored + ", resets=" + resets + ", gaps=" + gaps;
+    }
+
+    /**
+     * Interval quality, stored as a bit mask.
+     */
+    public enum Flag {
+        // Covers more than one interval, earlier samples are missing
+        GAP,
+        // A counter went backwards and was taken as restarted from zero
+        RESET;
+
+        public int mask() {
+            return 1 << ordinal();
+        }
+
+        public boolean isSet(int flags) {
+            return (flags & mask()) != 0;
+        }
+    }
+}
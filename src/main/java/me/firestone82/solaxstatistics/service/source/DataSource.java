@@ -0,0 +1,41 @@
+package me.firestone82.solaxstatistics.service.source;
+
+import me.firestone82.solaxstatistics.model.DateRange;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Source of a time series. Implementations are the live scrapers, the cache directory and the
+ * synthetic generator used for offline runs and benchmarks.
+ *
+ * @param <T> entry type of the series
+ */
+public interface DataSource<T> {
+
+    String getName();
+
+    /**
+     * Fetches all entries whose timestamp falls into the range.
+     *
+     * @return entries sorted by time, or empty if the source failed or has no data for the range
+     */
+    Optional<List<T>> fetch(DateRange range);
+
+    enum Mode {
+        /**
+         * Read through the cache directory, scraping the portals for anything missing.
+         */
+        LIVE,
+
+        /**
+         * Only the cache directory, the portals are never contacted.
+         */
+        CACHE,
+
+        /**
+         * Deterministic generated data, nothing is read from or written to the cache.
+         */
+        SYNTHETIC
+    }
+}
@@ -0,0 +1,77 @@
+package me.firestone82.solaxstatistics.service.source;
+
+import lombok.extern.slf4j.Slf4j;
+import me.firestone82.solaxstatistics.model.DateRange;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.*;
+
+/**
+ * Source running its calls behind a circuit breaker, on the bounded executor of the source (bulkhead).
+ * A source that keeps failing or hanging is skipped for the cool-down instead of burning its timeouts on
+ * every month, and a full bulkhead rejects calls instead of queueing them without limit. Skipped and
+ * failed calls return empty, so callers fall back to their next source as they already do.
+ */
+@Slf4j
+public class GuardedDataSource<T> implements DataSource<T> {
+    private final DataSource<T> delegate;
+    private final CircuitBreaker breaker;
+    private final ThreadPoolExecutor executor;
+    private final Duration timeout;
+
+    GuardedDataSource(DataSource<T> delegate, CircuitBreaker breaker, ThreadPoolExecutor executor, Duration timeout) {
+        this.delegate = delegate;
+        this.breaker = breaker;
+        this.executor = executor;
+        this.timeout = timeout;
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    @Override
+    public Optional<List<T>> fetch(DateRange range) {
+        if (!breaker.tryAcquire()) {
+            log.debug("Circuit of '{}' is open, skipping {}", getName(), range);
+            return Optional.empty();
+        }
+
+        Future<Optional<List<T>>> future;
+        try {
+            future = executor.submit(() -> delegate.fetch(range));
+        } catch (RejectedExecutionException e) {
+            log.warn("Source '{}' is busy ({} running, {} waiting), rejecting {}", getName(), executor.getActiveCount(), executor.getQueue().size(), range);
+            breaker.onRejected();
+            return Optional.empty();
+        }
+
+        try {
+            Optional<List<T>> entries = future.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+            if (entries.isPresent()) {
+                breaker.onSuccess();
+            } else {
+                breaker.onFailure("no data for " + range);
+            }
+
+            return entries;
+        } catch (TimeoutException e) {
+            // The worker is interrupted, a call ignoring it keeps its slot until it ends on its own
+            future.cancel(true);
+            log.warn("Source '{}' did not finish {} within {} ms", getName(), range, timeout.toMillis());
+            breaker.onFailure("timed out after " + timeout.toMillis() + " ms");
+        } catch (ExecutionException e) {
+            log.error("Source '{}' failed for {}: {}", getName(), range, e.getCause().getMessage(), e.getCause());
+            breaker.onFailure(String.valueOf(e.getCause().getMessage()));
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            breaker.onRejected();
+            Thread.currentThread().interrupt();
+        }
+
+        return Optional.empty();
+    }
+}
@@ -0,0 +1,73 @@
+package me.firestone82.solaxstatistics.service.source;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Circuit breakers and bulkheads of the live sources, one of each per source name. Limits are taken from
+ * {@code sources.guard}, per source overrides first.
+ */
+@Slf4j
+@Component
+public class SourceGuard {
+    private final SourceGuardProperties properties;
+    private final Map<String, Guard> guards = new ConcurrentSkipListMap<>();
+
+    public SourceGuard(@Autowired SourceGuardProperties properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * The source running behind its breaker and bulkhead, or the source itself when guarding is disabled.
+     */
+    public <T> DataSource<T> guard(DataSource<T> source) {
+        if (!properties.isEnabled()) {
+            return source;
+        }
+
+        Guard guard = guards.computeIfAbsent(source.getName(), this::create);
+        return new GuardedDataSource<>(source, guard.breaker(), guard.executor(), properties.limitsOf(source.getName()).getTimeout());
+    }
+
+    public List<CircuitBreaker.Snapshot> snapshot() {
+        return guards.values().stream()
+                .map(guard -> guard.breaker().snapshot(guard.executor().getActiveCount(), guard.executor().getQueue().size()))
+                .toList();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        guards.values().forEach(guard -> guard.executor().shutdownNow());
+    }
+
+    private Guard create(String name) {
+        SourceGuardProperties.Limits limits = properties.limitsOf(name);
+        int concurrency = Math.max(1, limits.getConcurrency());
+        AtomicInteger threads = new AtomicInteger();
+
+        // Daemon workers, a call stuck in a portal must not keep the application from exiting
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                concurrency, concurrency, 1, TimeUnit.MINUTES,
+                limits.getQueue() > 0 ? new ArrayBlockingQueue<>(limits.getQueue()) : new SynchronousQueue<>(),
+                task -> {
+                    Thread thread = new Thread(task, "source-" + name.replace(':', '-') + "-" + threads.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+        );
+        executor.allowCoreThreadTimeOut(true);
+
+        log.debug("Guarding source '{}': {}", name, limits);
+        return new Guard(new CircuitBreaker(name, limits.getFailureThreshold(), limits.getCoolDown()), executor);
+    }
+
+    private record Guard(CircuitBreaker breaker, ThreadPoolExecutor executor) {
+    }
+}
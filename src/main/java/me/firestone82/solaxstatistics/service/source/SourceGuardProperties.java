@@ -0,0 +1,34 @@
+package me.firestone82.solaxstatistics.service.source;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+@Data
+@ConfigurationProperties(prefix = "sources.guard")
+public class SourceGuardProperties {
+    private boolean enabled = true;
+    private Limits defaults = new Limits();
+    // Keyed by source name, e.g. "[live:cez]"
+    private Map<String, Limits> overrides = new HashMap<>();
+
+    public Limits limitsOf(String source) {
+        return overrides.getOrDefault(source, defaults);
+    }
+
+    @Data
+    public static class Limits {
+        // Consecutive failed calls that open the breaker
+        private int failureThreshold = 3;
+        // How long an open breaker rejects calls before letting a trial call through
+        private Duration coolDown = Duration.ofMinutes(15);
+        // Longest a single call may take, it counts as failed afterwards
+        private Duration timeout = Duration.ofMinutes(10);
+        // Calls running at once and calls waiting for them, anything above is rejected
+        private int concurrency = 1;
+        private int queue = 4;
+    }
+}
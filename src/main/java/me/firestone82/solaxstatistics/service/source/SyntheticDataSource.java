@@ -0,0 +1,183 @@
+package me.firestone82.solaxstatistics.service.source;
+
+import lombok.extern.slf4j.Slf4j;
+import me.firestone82.solaxstatistics.model.DateRange;
+import me.firestone82.solaxstatistics.model.EnergyEntry;
+import me.firestone82.solaxstatistics.model.PriceEntry;
+import me.firestone82.solaxstatistics.model.StatisticsEntry;
+import me.firestone82.solaxstatistics.model.Timeline;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.SplittableRandom;
+
+/**
+ * Deterministic generator of all three series from one household model: a seasonal solar curve with
+ * day-level cloudiness, a load profile with morning and evening peaks and a spot price curve with a
+ * midday solar dip. Values depend only on the seed and the timestamp, so any range always yields the
+ * same data no matter how it is split.
+ */
+@Slf4j
+@Component
+public class SyntheticDataSource {
+    private final SyntheticProperties properties;
+
+    public SyntheticDataSource(@Autowired SyntheticProperties properties) {
+        this.properties = properties;
+        log.info("Synthetic data source ready (seed={}, solax={}, cez={}, prices={})",
+                properties.getSeed(), properties.getSolaxResolution(), properties.getCezResolution(), properties.getPriceResolution());
+    }
+
+    /**
+     * Solax-like interval deltas in MWh, stamped at the interval end. The midnight sample is omitted
+     * like in the portal export.
+     */
+    public DataSource<StatisticsEntry> solax() {
+        return new Generator<>("synthetic:solax", properties.getSolaxResolution(), true, (start, stamp, hours) -> {
+            double yield = yieldKw(start, hours) * hours;
+            double consumption = loadKw(start, hours) * hours;
+            double export = Math.max(yield - consumption, 0);
+            double importEnergy = Math.max(consumption - yield, 0);
+
+            return new StatisticsEntry(stamp, yield / 1000d, export / 1000d, consumption / 1000d, importEnergy / 1000d);
+        });
+    }
+
+    /**
+     * CEZ-like average grid power in kW per interval, stamped at the interval end.
+     */
+    public DataSource<EnergyEntry> cez() {
+        return new Generator<>("synthetic:cez", properties.getCezResolution(), true, (start, stamp, hours) -> {
+            double balance = loadKw(start, hours) - yieldKw(start, hours);
+            return new EnergyEntry(stamp, Math.max(balance, 0), Math.max(-balance, 0));
+        });
+    }
+
+    /**
+     * Spot prices in CZK/MWh and EUR/MWh, stamped at the interval start.
+     */
+    public DataSource<PriceEntry> prices() {
+        return new Generator<>("synthetic:prices", properties.getPriceResolution(), false, (start, stamp, hours) -> {
+            double czk = priceCzk(start, hours);
+            return new PriceEntry(stamp, czk, czk / 25d);
+        });
+    }
+
+    private double yieldKw(LocalDateTime start, double hours) {
+        LocalDate day = start.toLocalDate();
+        double hour = hourOfDay(start, hours);
+        double season = Math.cos(2 * Math.PI * (day.getDayOfYear() - 172) / 365d);
+
+        double dayLength = 12 + 4 * season;
+        double sunrise = 12.5 - dayLength / 2;
+        if (hour < sunrise || hour > sunrise + dayLength) {
+            return 0;
+        }
+
+        double elevation = Math.sin(Math.PI * (hour - sunrise) / dayLength);
+        double amplitude = 0.55 + 0.45 * season;
+        double cloudiness = 0.2 + 0.8 * dayRandom(day).nextDouble();
+
+        return properties.getPeakYieldKw() * amplitude * elevation * cloudiness;
+    }
+
+    private double loadKw(LocalDateTime start, double hours) {
+        double hour = hourOfDay(start, hours);
+        double morning = 1.2 * Math.exp(-Math.pow(hour - 7.5, 2) / 1.5);
+        double evening = 2.0 * Math.exp(-Math.pow(hour - 19, 2) / 3);
+        double noise = 0.3 * intervalRandom(start).nextDouble();
+
+        return properties.getBaseLoadKw() + morning + evening + noise;
+    }
+
+    private double priceCzk(LocalDateTime start, double hours) {
+        LocalDate day = start.toLocalDate();
+        double hour = hourOfDay(start, hours);
+        double season = Math.cos(2 * Math.PI * (day.getDayOfYear() - 172) / 365d);
+
+        double morning = 1200 * Math.exp(-Math.pow(hour - 8, 2) / 3);
+        double evening = 1800 * Math.exp(-Math.pow(hour - 19.5, 2) / 2);
+        double solarDip = (1000 + 1000 * season) * Math.exp(-Math.pow(hour - 13, 2) / 6);
+        double noise = 400 * (intervalRandom(start).nextDouble() - 0.5);
+
+        return 2300 + morning + evening - solarDip + noise;
+    }
+
+    /**
+     * Hour of day at the middle of the interval.
+     */
+    private static double hourOfDay(LocalDateTime start, double hours) {
+        return start.getHour() + start.getMinute() / 60d + hours / 2;
+    }
+
+    private SplittableRandom dayRandom(LocalDate day) {
+        return new SplittableRandom(properties.getSeed() ^ (day.toEpochDay() * 0x9E3779B97F4A7C15L));
+    }
+
+    private SplittableRandom intervalRandom(LocalDateTime start) {
+        long minute = start.toLocalDate().toEpochDay() * 1440 + start.getHour() * 60L + start.getMinute();
+        return new SplittableRandom(properties.getSeed() * 31 + minute * 0xBF58476D1CE4E5B9L);
+    }
+
+    @FunctionalInterface
+    private interface IntervalFactory<T> {
+        T create(LocalDateTime intervalStart, LocalDateTime stamp, double intervalHours);
+    }
+
+    private static final class Generator<T> implements DataSource<T> {
+        private final String name;
+        private final Duration resolution;
+        private final boolean endStamped;
+        private final IntervalFactory<T> factory;
+
+        private Generator(String name, Duration resolution, boolean endStamped, IntervalFactory<T> factory) {
+            this.name = name;
+            this.resolution = resolution;
+            this.endStamped = endStamped;
+            this.factory = factory;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public Optional<List<T>> fetch(DateRange range) {
+            long stepMinutes = resolution.toMinutes();
+            double hours = stepMinutes / 60d;
+            List<T> entries = new ArrayList<>((int) (ChronoUnit.MINUTES.between(range.from(), range.to()) / stepMinutes) + 1);
+
+            long stepSeconds = stepMinutes * 60;
+            Timeline.Resolver resolver = Timeline.PRAGUE.resolver();
+
+            // Intervals are aligned to midnight and follow the Prague clock, so DST days have 23 or 25
+            // hours and the repeated hour is stamped twice. Stamps are filtered against the range.
+            for (LocalDate day = range.firstDay(); !day.isAfter(range.lastDay()); day = day.plusDays(1)) {
+                long dayEnd = Timeline.PRAGUE.dayStart(day.plusDays(1));
+
+                for (long instant = Timeline.PRAGUE.dayStart(day); instant < dayEnd; instant += stepSeconds) {
+                    if (endStamped && instant + stepSeconds == dayEnd) {
+                        continue; // Midnight sample is not reported by the portals
+                    }
+
+                    LocalDateTime start = resolver.local(instant);
+                    LocalDateTime stamp = endStamped ? resolver.local(instant + stepSeconds) : start;
+
+                    if (range.containsStamp(stamp, endStamped)) {
+                        entries.add(factory.create(start, stamp, hours));
+                    }
+                }
+            }
+
+            return Optional.of(entries);
+        }
+    }
+}
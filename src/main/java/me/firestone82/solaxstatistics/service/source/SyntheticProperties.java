@@ -0,0 +1,19 @@
+package me.firestone82.solaxstatistics.service.source;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "data.synthetic")
+public class SyntheticProperties {
+    private long seed = 42;
+    private Duration solaxResolution = Duration.ofMinutes(5);
+    private Duration cezResolution = Duration.ofMinutes(15);
+    private Duration priceResolution = Duration.ofHours(1);
+
+    // Household model, kW
+    private double peakYieldKw = 8.0;
+    private double baseLoadKw = 0.35;
+}
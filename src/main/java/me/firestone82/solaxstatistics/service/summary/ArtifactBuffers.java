@@ -0,0 +1,50 @@
+package me.firestone82.solaxstatistics.service.summary;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Pool of growable buffers artifacts are rendered into. A returned buffer keeps its grown array, so the
+ * next month renders without growing a new one. Buffers that grew past {@code maxRetainedBytes} are
+ * dropped instead of pooled.
+ */
+class ArtifactBuffers {
+    private static final int INITIAL_SIZE = 64 * 1024;
+
+    private final Deque<Buffer> pool = new ArrayDeque<>();
+    private final int maxPooled;
+    private final int maxRetainedBytes;
+
+    ArtifactBuffers(int maxPooled, int maxRetainedBytes) {
+        this.maxPooled = maxPooled;
+        this.maxRetainedBytes = maxRetainedBytes;
+    }
+
+    synchronized Buffer acquire() {
+        Buffer buffer = pool.pollFirst();
+        if (buffer == null) {
+            return new Buffer(INITIAL_SIZE);
+        }
+
+        buffer.reset();
+        return buffer;
+    }
+
+    synchronized void release(Buffer buffer) {
+        if (pool.size() < maxPooled && buffer.capacity() <= maxRetainedBytes) {
+            pool.addFirst(buffer);
+        }
+    }
+
+    static final class Buffer extends ByteArrayOutputStream {
+
+        private Buffer(int size) {
+            super(size);
+        }
+
+        int capacity() {
+            return buf.length;
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package me.firestone82.solaxstatistics.service.summary;
+
+import me.firestone82.solaxstatistics.model.summary.SummaryMetric;
+import me.firestone82.solaxstatistics.model.summary.SummaryTable;
+import me.firestone82.solaxstatistics.serialization.GsonService;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Writes summary rows as a compressed, self-describing columnar file. The layout follows Parquet without
+ * its dependencies: every column is one deflate block, and a JSON footer lists the columns with their type,
+ * encoding and byte range.
+ *
+ * <pre>
+ * "SCOL" version(1 byte) | column blocks... | footer JSON (UTF-8) | footer length (int) | "SCOL"
+ * </pre>
+ * <p>
+ * The {@code date} column holds minutes since the epoch (local time taken as UTC), delta encoded, so an
+ * hourly series compresses to almost nothing. Metrics are big-endian float64 values.
+ */
+public class SummaryColumnarExporter {
+    private static final byte[] MAGIC = "SCOL".getBytes(StandardCharsets.US_ASCII);
+    private static final byte VERSION = 1;
+
+    public void export(SummaryTable rows, OutputStream output) throws IOException {
+        SummaryMetric[] metrics = SummaryMetric.values();
+
+        List<Map<String, Object>> columns = new ArrayList<>();
+        Deflater deflater = new Deflater();
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(output, 64 * 1024))) {
+            out.write(MAGIC);
+            out.writeByte(VERSION);
+
+            columns.add(writeBlock(out, deflater, "date", "int64", "delta-epoch-minutes", block -> {
+                long previous = 0;
+                for (int r = 0; r < rows.size(); r++) {
+                    block.writeLong(rows.minute(r) - previous);
+                    previous = rows.minute(r);
+                }
+            }));
+
+            for (SummaryMetric metric : metrics) {
+                columns.add(writeBlock(out, deflater, metric.getFieldName(), "float64", "plain", block -> {
+                    for (int r = 0; r < rows.size(); r++) {
+                        block.writeDouble(rows.get(metric, r));
+                    }
+                }));
+            }
+
+            Map<String, Object> footer = new LinkedHashMap<>();
+            footer.put("rows", rows.size());
+            footer.put("compression", "deflate");
+            footer.put("columns", columns);
+            byte[] footerBytes = GsonService.gson.toJson(footer).getBytes(StandardCharsets.UTF_8);
+
+            out.write(footerBytes);
+            out.writeInt(footerBytes.length);
+            out.write(MAGIC);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Writes one deflate compressed column block and returns its footer entry.
+     */
+    private static Map<String, Object> writeBlock(DataOutputStream out, Deflater deflater, String name, String type, String encoding, BlockWriter writer) throws IOException {
+        int offset = out.size();
+
+        deflater.reset();
+        DeflaterOutputStream deflated = new DeflaterOutputStream(out, deflater, 16 * 1024);
+        DataOutputStream block = new DataOutputStream(deflated);
+        writer.write(block);
+        block.flush();
+        deflated.finish(); // not closed, the output stays open
+
+        Map<String, Object> column = new LinkedHashMap<>();
+        column.put("name", name);
+        column.put("type", type);
+        column.put("encoding", encoding);
+        column.put("offset", offset);
+        column.put("length", out.size() - offset);
+        return column;
+    }
+
+    @FunctionalInterface
+    private interface BlockWriter {
+        void write(DataOutputStream block) throws IOException;
+    }
+}
@@ -0,0 +1,47 @@
+package me.firestone82.solaxstatistics.service.summary;
+
+import me.firestone82.solaxstatistics.model.summary.SummaryMetric;
+import me.firestone82.solaxstatistics.model.summary.SummaryRow;
+import me.firestone82.solaxstatistics.model.summary.SummaryTable;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Streams summary rows into a plain CSV file with the {@link SummaryRow} field names as header. The
+ * writer buffer is sized from the row count, so a month of hours goes out in a single flush.
+ */
+public class SummaryCsvExporter {
+    private static final DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+    private static final SummaryMetric[] METRICS = SummaryMetric.values();
+    private static final int ROW_LENGTH_ESTIMATE = 16 + METRICS.length * 20;
+
+    public void export(SummaryTable rows, OutputStream output) throws IOException {
+        int bufferSize = Math.clamp((long) (rows.size() + 1) * ROW_LENGTH_ESTIMATE, 8 * 1024, 4 * 1024 * 1024);
+        StringBuilder line = new StringBuilder(ROW_LENGTH_ESTIMATE);
+
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8), bufferSize)) {
+            line.append("date");
+            for (SummaryMetric metric : METRICS) {
+                line.append(',').append(metric.getFieldName());
+            }
+            writer.append(line).append('\n');
+
+            for (int r = 0; r < rows.size(); r++) {
+                line.setLength(0);
+                DATE_TIME_FORMATTER.formatTo(rows.date(r), line);
+
+                for (SummaryMetric metric : METRICS) {
+                    line.append(',').append(rows.get(metric, r));
+                }
+
+                writer.append(line).append('\n');
+            }
+        }
+    }
+}
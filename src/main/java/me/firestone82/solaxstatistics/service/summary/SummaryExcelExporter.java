@@ -2,65 +2,94 @@ package me.firestone82.solaxstatistics.service.summary;
 
 import lombok.extern.slf4j.Slf4j;
 import me.firestone82.solaxstatistics.model.summary.OverallSummary;
-import me.firestone82.solaxstatistics.model.summary.SummaryRow;
+import me.firestone82.solaxstatistics.model.summary.SummaryMetric;
+import me.firestone82.solaxstatistics.model.summary.SummaryTable;
 import org.apache.poi.ss.usermodel.*;
 import org.apache.poi.ss.util.CellRangeAddress;
 import org.apache.poi.xssf.usermodel.XSSFColor;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.apache.poi.xssf.streaming.DeferredSXSSFSheet;
+import org.apache.poi.xssf.streaming.DeferredSXSSFWorkbook;
 import org.jetbrains.annotations.Nullable;
 
-import java.io.File;
 import java.io.IOException;
 import java.io.OutputStream;
-import java.nio.file.Files;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.sql.Date;
 import java.sql.Timestamp;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.util.Collections;
 import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.IntStream;
 
+/**
+ * Writes the summary workbook in two phases. Sheet models (cell values and column widths) are computed
+ * in parallel, one task per sheet; the workbook itself is not thread safe, so it is written afterwards on
+ * the calling thread. Rows are generated while the workbook is written and streamed into the output, they
+ * are never held as cell objects, which keeps quarter-hour months as cheap as hourly ones. Cell styles
+ * are created once per column and shared.
+ */
 @Slf4j
 public class SummaryExcelExporter {
+    private static final String KWH = "#,###0.000 \"kWh\"";
+    private static final String CZK = "#,###0.000 \"CZK\"";
+    private static final String PERCENT = "#,##0.00 \"%\"";
+
+    // Columns after the date, spacers have no value
+    private static final List<Column> columns = List.of(
+            new Column("Yield", KWH, false, metric(SummaryMetric.YIELD)),
+            new Column("Consumption", KWH, true, metric(SummaryMetric.CONSUMPTION)),
+            new Column("OTE Export Price", CZK, true, metric(SummaryMetric.EXPORT_PRICE_GRID)),
+            Column.spacer(),
+            new Column("Import (Grid)", KWH, false, metric(SummaryMetric.IMPORT_GRID)),
+            new Column("Import (Self)", KWH, false, metric(SummaryMetric.IMPORT_SELF)),
+            new Column("Total Import", KWH, true, (t, r) -> t.get(SummaryMetric.IMPORT_GRID, r) + t.get(SummaryMetric.IMPORT_SELF, r)),
+            new Column("Import Cost (Grid)", CZK, false, metric(SummaryMetric.IMPORT_COST_GRID)),
+            new Column("Import Cost (Self)", CZK, false, metric(SummaryMetric.IMPORT_COST_SELF)),
+            new Column("Total Import Cost", CZK, true, SummaryExcelExporter::totalImportCost),
+            Column.spacer(),
+            new Column("Export (Grid)", KWH, false, metric(SummaryMetric.EXPORT_GRID)),
+            new Column("Export (Self)", KWH, false, metric(SummaryMetric.EXPORT_SELF)),
+            new Column("Total Export", KWH, true, (t, r) -> t.get(SummaryMetric.EXPORT_GRID, r) + t.get(SummaryMetric.EXPORT_SELF, r)),
+            new Column("Export Revenue (Grid)", CZK, false, metric(SummaryMetric.EXPORT_REVENUE_GRID)),
+            new Column("Export Revenue (Self)", CZK, false, metric(SummaryMetric.EXPORT_REVENUE_SELF)),
+            new Column("Total Export Revenue", CZK, true, SummaryExcelExporter::totalExportRevenue),
+            Column.spacer(),
+            new Column("Self consumption", KWH, false, metric(SummaryMetric.SELF_CONSUMMATED)),
+            new Column("Savings", CZK, false, metric(SummaryMetric.SAVINGS)),
+            new Column("Self-use Rate", PERCENT, true, metric(SummaryMetric.SELF_USE_PERCENTAGE)),
+            Column.spacer(),
+            new Column("Profit/Loss", CZK, true, (t, r) -> (totalExportRevenue(t, r) - totalImportCost(t, r)) + t.get(SummaryMetric.SAVINGS, r))
+    );
+
+    // Sheet of the rows at the summary resolution, "Hourly" or e.g. "15-minute"
+    private final String intervalSheet;
+
+    public SummaryExcelExporter(Duration resolution) {
+        this.intervalSheet = resolution.equals(Duration.ofHours(1)) ? "Hourly" : resolution.toMinutes() + "-minute";
+    }
 
-    // Header
-    private static final String[] headers = new String[]{
-            "Date",
-            "Yield",
-            "Consumption",
-            "OTE Export Price",
-            "",
-            "Import (Grid)",
-            "Import (Self)",
-            "Total Import",
-            "Import Cost (Grid)",
-            "Import Cost (Self)",
-            "Total Import Cost",
-            "",
-            "Export (Grid)",
-            "Export (Self)",
-            "Total Export",
-            "Export Revenue (Grid)",
-            "Export Revenue (Self)",
-            "Total Export Revenue",
-            "",
-            "Self consumption",
-            "Savings",
-            "Self-use Rate",
-            "",
-            "Profit/Loss"
-    };
-
-    public void exportToExcel(OverallSummary summary, List<SummaryRow> monthlyStatistics, File file) {
-        monthlyStatistics.addFirst(summary.getTotal());
-
-        // Yearly statistics
-        List<SummaryRow> yearlyStatistics = SummaryRow.aggregate(monthlyStatistics, SummaryRow.Granularity.YEAR);
-        yearlyStatistics = OverallSummary.preprocessExportSelf(yearlyStatistics, true);
-        Collections.reverse(yearlyStatistics);
-
-        try (Workbook workbook = new XSSFWorkbook()) {
+    /**
+     * @param monthlyStatistics month totals up to the summary month, newest first
+     * @param yearlyStatistics  year totals up to the summary year, newest first
+     */
+    public void exportToExcel(OverallSummary summary, SummaryTable monthlyStatistics, SummaryTable yearlyStatistics, OutputStream output) throws IOException {
+        long startNanos = System.nanoTime();
+
+        List<CompletableFuture<SheetModel>> futures = List.of(
+                CompletableFuture.supplyAsync(() -> SheetModel.of(intervalSheet, "yyyy-mm-dd hh:mm", summary.getHourly())),
+                CompletableFuture.supplyAsync(() -> SheetModel.of("Daily", "yyyy-mm-dd", summary.getDaily())),
+                CompletableFuture.supplyAsync(() -> SheetModel.of("Monthly", "yyyy-mm", monthlyStatistics)),
+                CompletableFuture.supplyAsync(() -> SheetModel.of("Yearly", "yyyy", yearlyStatistics))
+        );
+        List<SheetModel> models = futures.stream().map(CompletableFuture::join).toList();
+        long modelNanos = System.nanoTime() - startNanos;
+
+        try (DeferredSXSSFWorkbook workbook = new DeferredSXSSFWorkbook()) {
             // Styles
             CellStyle headerStyle = workbook.createCellStyle();
             Font headerFont = workbook.createFont();
@@ -72,36 +101,28 @@ public class SummaryExcelExporter {
             headerStyle.setBorderRight(BorderStyle.MEDIUM);
             headerStyle.setAlignment(HorizontalAlignment.CENTER);
 
-            int hourlyDataSize = summary.getHourly().size();
-            Sheet hourlySheet = workbook.createSheet("Hourly");
-            hourlySheet.createFreezePane(0, 1);
-            writeRows(hourlySheet, summary.getHourly(), headerStyle, "yyyy-mm-dd hh:mm");
-            colorSheet(hourlyDataSize, hourlySheet);
-
-            int dailyDataSize = summary.getDaily().size();
-            Sheet dailySheet = workbook.createSheet("Daily");
-            dailySheet.createFreezePane(0, 1);
-            writeRows(dailySheet, summary.getDaily(), headerStyle, "yyyy-mm-dd");
-            colorSheet(dailyDataSize, dailySheet);
-
-            int monthlyDataSize = monthlyStatistics.size();
-            Sheet monthlySheet = workbook.createSheet("Monthly");
-            monthlySheet.createFreezePane(0, 1);
-            writeRows(monthlySheet, monthlyStatistics, headerStyle, "yyyy-mm");
-            colorSheet(monthlyDataSize, monthlySheet);
-
-            int yearlyDataSize = yearlyStatistics.size();
-            Sheet yearlySheet = workbook.createSheet("Yearly");
-            yearlySheet.createFreezePane(0, 1);
-            writeRows(yearlySheet, yearlyStatistics, headerStyle, "yyyy");
-            colorSheet(yearlyDataSize, yearlySheet);
-
-            try (OutputStream os = Files.newOutputStream(file.toPath())) {
-                workbook.write(os);
+            CellStyle[] columnStyles = createColumnStyles(workbook);
+
+            for (SheetModel model : models) {
+                DeferredSXSSFSheet sheet = workbook.createSheet(model.name());
+                sheet.createFreezePane(0, 1);
+                for (int c = 0; c < model.widths().length; c++) {
+                    sheet.setColumnWidth(c, model.widths()[c]);
+                }
+                colorSheet(model.rows().size(), sheet);
+
+                // Styles have to exist before the workbook is written, the rows are generated during it
+                CellStyle dateStyle = createDateStyle(workbook, model.dateFormat());
+                sheet.setRowGenerator(generated -> writeRows(generated, model, headerStyle, dateStyle, columnStyles));
             }
-        } catch (IOException e) {
-            log.error("Failed to write Excel file {}: {}", file.getPath(), e.getMessage(), e);
+
+            workbook.write(output);
         }
+
+        log.debug(
+                "Excel workbook of {} written in {} ms ({} ms sheet models)",
+                summary.getRange(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos), TimeUnit.NANOSECONDS.toMillis(modelNanos)
+        );
     }
 
     private void colorSheet(int monthlyDataSize, Sheet monthlySheet) {
@@ -112,68 +133,56 @@ public class SummaryExcelExporter {
         applyColorScaleFormatting(monthlySheet, 17, monthlyDataSize, false);
         applyColorScaleFormatting(monthlySheet, 21, monthlyDataSize, false);
         applyColorScaleFormatting(monthlySheet, 23, monthlyDataSize, false);
-        autoSizeAllColumns(monthlySheet);
     }
 
-    private void writeRows(Sheet sheet, List<SummaryRow> rows, CellStyle headerStyle, String dateFormat) {
-        Row header = sheet.createRow(0);
-        IntStream.range(0, headers.length).forEach(i -> writeCell(header, i, headers[i], headerStyle));
+    private CellStyle[] createColumnStyles(Workbook workbook) {
+        DataFormat dataFormat = workbook.createDataFormat();
+        CellStyle[] styles = new CellStyle[columns.size()];
 
-        CellStyle lightBorder = sheet.getWorkbook().createCellStyle();
-        lightBorder.setBorderRight(BorderStyle.THIN);
+        for (int i = 0; i < columns.size(); i++) {
+            Column column = columns.get(i);
 
-        CellStyle thickBorder = sheet.getWorkbook().createCellStyle();
-        thickBorder.setBorderRight(BorderStyle.MEDIUM);
+            CellStyle style = workbook.createCellStyle();
+            style.setBorderRight(column.thickBorder() ? BorderStyle.MEDIUM : BorderStyle.THIN);
+            if (column.format() != null) {
+                style.setDataFormat(dataFormat.getFormat(column.format()));
+            }
+
+            styles[i] = style;
+        }
 
-        CellStyle dateStyle = sheet.getWorkbook().createCellStyle();
-        dateStyle.setDataFormat(sheet.getWorkbook().getCreationHelper().createDataFormat().getFormat(dateFormat));
+        return styles;
+    }
+
+    private CellStyle createDateStyle(Workbook workbook, String dateFormat) {
+        CellStyle dateStyle = workbook.createCellStyle();
+        dateStyle.setDataFormat(workbook.getCreationHelper().createDataFormat().getFormat(dateFormat));
         dateStyle.setAlignment(HorizontalAlignment.CENTER);
         dateStyle.setBorderRight(BorderStyle.MEDIUM);
 
-        int rowIndex = 1;
-        for (SummaryRow summaryRow : rows) {
-            Row row = sheet.createRow(rowIndex++);
-            int colIndex = 0;
+        return dateStyle;
+    }
 
-            double totalImport = summaryRow.getImportGrid() + summaryRow.getImportSelf();
-            double totalExport = summaryRow.getExportGrid() + summaryRow.getExportSelf();
-            double totalImportCost = summaryRow.getImportCostGrid() + summaryRow.getImportCostSelf();
-            double totalExportRevenue = summaryRow.getExportRevenueGrid() + summaryRow.getExportRevenueSelf();
-            double profitLoss = (totalExportRevenue - totalImportCost) + summaryRow.getSavings();
+    private void writeRows(Sheet sheet, SheetModel model, CellStyle headerStyle, CellStyle dateStyle, CellStyle[] columnStyles) {
+        Row header = sheet.createRow(0);
+        writeCell(header, 0, "Date", headerStyle);
+        IntStream.range(0, columns.size()).forEach(i -> writeCell(header, i + 1, columns.get(i).header(), headerStyle));
+
+        for (int r = 0; r < model.rows().size(); r++) {
+            Row row = sheet.createRow(r + 1);
+            double[] values = model.values()[r];
 
             // Date/DateTime -> Excel date (double)
-            writeCell(row, colIndex++, summaryRow.getDate(), dateStyle);
-            writeCell(row, colIndex++, summaryRow.getYield(), "#,###0.000 \"kWh\"", lightBorder);
-            writeCell(row, colIndex++, summaryRow.getConsumption(), "#,###0.000 \"kWh\"", thickBorder);
-            writeCell(row, colIndex++, summaryRow.getExportPriceGrid(), "#,###0.000 \"CZK\"", thickBorder);
-            writeCell(row, colIndex++, "", thickBorder);
-            writeCell(row, colIndex++, summaryRow.getImportGrid(), "#,###0.000 \"kWh\"", lightBorder);
-            writeCell(row, colIndex++, summaryRow.getImportSelf(), "#,###0.000 \"kWh\"", lightBorder);
-            writeCell(row, colIndex++, totalImport, "#,###0.000 \"kWh\"", thickBorder);
-            writeCell(row, colIndex++, summaryRow.getImportCostGrid(), "#,###0.000 \"CZK\"", lightBorder);
-            writeCell(row, colIndex++, summaryRow.getImportCostSelf(), "#,###0.000 \"CZK\"", lightBorder);
-            writeCell(row, colIndex++, totalImportCost, "#,###0.000 \"CZK\"", thickBorder);
-            writeCell(row, colIndex++, "", thickBorder);
-            writeCell(row, colIndex++, summaryRow.getExportGrid(), "#,###0.000 \"kWh\"", lightBorder);
-            writeCell(row, colIndex++, summaryRow.getExportSelf(), "#,###0.000 \"kWh\"", lightBorder);
-            writeCell(row, colIndex++, totalExport, "#,###0.000 \"kWh\"", thickBorder);
-            writeCell(row, colIndex++, summaryRow.getExportRevenueGrid(), "#,###0.000 \"CZK\"", lightBorder);
-            writeCell(row, colIndex++, summaryRow.getExportRevenueSelf(), "#,###0.000 \"CZK\"", lightBorder);
-            writeCell(row, colIndex++, totalExportRevenue, "#,###0.000 \"CZK\"", thickBorder);
-            writeCell(row, colIndex++, "", thickBorder);
-            writeCell(row, colIndex++, summaryRow.getSelfConsummated(), "#,###0.000 \"kWh\"", lightBorder);
-            writeCell(row, colIndex++, summaryRow.getSavings(), "#,###0.000 \"CZK\"", lightBorder);
-            writeCell(row, colIndex++, summaryRow.getSelfUsePercentage(), "#,##0.00 \"%\"", thickBorder);
-            writeCell(row, colIndex++, "", thickBorder);
-            writeCell(row, colIndex++, profitLoss, "#,###0.000 \"CZK\"", thickBorder);
+            writeCell(row, 0, model.rows().date(r), dateStyle);
+
+            for (int c = 0; c < columns.size(); c++) {
+                Object value = columns.get(c).isSpacer() ? "" : values[c];
+                writeCell(row, c + 1, value, columnStyles[c]);
+            }
         }
     }
 
     private <T> Cell writeCell(Row row, int colIndex, T value, @Nullable CellStyle cellStyle) {
-        return writeCell(row, colIndex, value, null, cellStyle);
-    }
-
-    private <T> Cell writeCell(Row row, int colIndex, T value, @Nullable String dataFormat, @Nullable CellStyle cellStyle) {
         Cell cell = row.createCell(colIndex);
 
         switch (value) {
@@ -188,38 +197,101 @@ public class SummaryExcelExporter {
         }
 
         if (cellStyle != null) {
-            Workbook wb = row.getSheet().getWorkbook();
+            cell.setCellStyle(cellStyle);
+        }
 
-            CellStyle style = wb.createCellStyle();
-            style.cloneStyleFrom(cellStyle);
+        return cell;
+    }
+
+    private static double totalImportCost(SummaryTable rows, int row) {
+        return rows.get(SummaryMetric.IMPORT_COST_GRID, row) + rows.get(SummaryMetric.IMPORT_COST_SELF, row);
+    }
 
-            if (dataFormat != null) {
-                DataFormat format = wb.createDataFormat();
-                style.setDataFormat(format.getFormat(dataFormat));
+    private static double totalExportRevenue(SummaryTable rows, int row) {
+        return rows.get(SummaryMetric.EXPORT_REVENUE_GRID, row) + rows.get(SummaryMetric.EXPORT_REVENUE_SELF, row);
+    }
+
+    private static ColumnValue metric(SummaryMetric metric) {
+        return (rows, row) -> rows.get(metric, row);
+    }
+
+    @FunctionalInterface
+    private interface ColumnValue {
+        double of(SummaryTable rows, int row);
+    }
+
+    private record Column(String header, @Nullable String format, boolean thickBorder, @Nullable ColumnValue value) {
+
+        static Column spacer() {
+            return new Column("", null, true, null);
+        }
+
+        boolean isSpacer() {
+            return value == null;
+        }
+
+        /**
+         * Approximate rendered width in characters, e.g. {@code 1,234.567 kWh}.
+         */
+        int textLength(double cellValue) {
+            if (isSpacer()) {
+                return 0;
             }
 
-            cell.setCellStyle(style);
+            int unit = format.endsWith("\"%\"") ? 2 : 4;
+            int decimals = format.endsWith("\"%\"") ? 2 : 3;
+            return formattedLength(cellValue, decimals) + unit;
         }
 
-        return cell;
-    }
+        /**
+         * Length of {@code String.format("%,.<decimals>f", value)} without formatting, it runs for every cell.
+         */
+        private static int formattedLength(double value, int decimals) {
+            if (!Double.isFinite(value) || Math.abs(value) >= 1e12) {
+                return String.format(Locale.ROOT, "%,." + decimals + "f", value).length();
+            }
 
-    private void autoSizeAllColumns(Sheet sheet) {
-        if (sheet.getPhysicalNumberOfRows() == 0) {
-            return;
+            BigDecimal rounded = BigDecimal.valueOf(Math.abs(value)).setScale(decimals, RoundingMode.HALF_UP);
+            int digits = Math.max(rounded.precision() - rounded.scale(), 1);
+            int sign = Math.copySign(1.0, value) < 0 ? 1 : 0;
+
+            return sign + digits + (digits - 1) / 3 + 1 + decimals;
         }
+    }
 
-        Row header = sheet.getRow(0);
-        if (header == null) return;
+    /**
+     * Precomputed content of one sheet: numeric values per row and column and the column widths.
+     */
+    private record SheetModel(String name, String dateFormat, SummaryTable rows, double[][] values, int[] widths) {
 
-        int lastCol = header.getLastCellNum();
-        for (int c = 0; c < lastCol; c++) {
-            sheet.autoSizeColumn(c);
+        static SheetModel of(String name, String dateFormat, SummaryTable rows) {
+            double[][] values = new double[rows.size()][columns.size()];
+            int[] lengths = new int[columns.size() + 1];
 
-            int current = sheet.getColumnWidth(c);
-            int padding = 256 * 2; // 2 characters padding
+            lengths[0] = Math.max("Date".length(), dateFormat.length());
+            for (int c = 0; c < columns.size(); c++) {
+                lengths[c + 1] = columns.get(c).header().length();
+            }
+
+            for (int r = 0; r < rows.size(); r++) {
+                for (int c = 0; c < columns.size(); c++) {
+                    Column column = columns.get(c);
+                    if (column.isSpacer()) {
+                        continue;
+                    }
+
+                    values[r][c] = column.value().of(rows, r);
+                    lengths[c + 1] = Math.max(lengths[c + 1], column.textLength(values[r][c]));
+                }
+            }
+
+            // Same as auto size: text width plus 2 characters padding, capped at Excel max
+            int[] widths = new int[lengths.length];
+            for (int c = 0; c < lengths.length; c++) {
+                widths[c] = Math.min((lengths[c] + 2) * 256, 255 * 256);
+            }
 
-            sheet.setColumnWidth(c, Math.min(current + padding, 255 * 256)); // cap at Excel max
+            return new SheetModel(name, dateFormat, rows, values, widths);
         }
     }
 
@@ -0,0 +1,32 @@
+package me.firestone82.solaxstatistics.service.summary;
+
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonWriter;
+import me.firestone82.solaxstatistics.model.summary.SummaryRow;
+import me.firestone82.solaxstatistics.model.summary.SummaryTable;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Streams summary rows into a JSON array of {@link SummaryRow} objects. Rows go from the table columns
+ * straight into the file buffer, memory use does not grow with the row count.
+ */
+public class SummaryJsonExporter {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Gson gson;
+
+    public SummaryJsonExporter(Gson gson) {
+        this.gson = gson;
+    }
+
+    public void export(SummaryTable rows, OutputStream output) throws IOException {
+        try (JsonWriter writer = gson.newJsonWriter(new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8), BUFFER_SIZE))) {
+            gson.toJson(rows, SummaryTable.class, writer);
+        }
+    }
+}
@@ -0,0 +1,301 @@
+package me.firestone82.solaxstatistics.service.summary;
+
+import lombok.extern.slf4j.Slf4j;
+import me.firestone82.solaxstatistics.model.DateRange;
+import me.firestone82.solaxstatistics.model.Timeline;
+import me.firestone82.solaxstatistics.model.summary.OverallSummary;
+import me.firestone82.solaxstatistics.model.summary.SummaryRow;
+import me.firestone82.solaxstatistics.model.summary.SummaryTable;
+import me.firestone82.solaxstatistics.service.source.CacheDataSource;
+import me.firestone82.solaxstatistics.service.tariff.TariffService;
+import me.firestone82.solaxstatistics.utils.CsvUtils;
+import me.firestone82.solaxstatistics.utils.FileUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.Year;
+import java.time.YearMonth;
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Persisted rollup tree of summary rows: hour, day, month and year. Every level is materialized once and
+ * stored under {@code summary/rollup}, hours and days in one file per month, months and years in a single
+ * file each. The hour level keeps the rows at the summary resolution, quarter-hours are summed into hours
+ * only when hours are read. Its files are named after the resolution, {@code hourly-15m_<yyyy-MM>.csv},
+ * so rows of another resolution are never read as rows of this one. Replacing hours of a month rebuilds only the days and the month above them, then the year
+ * of that month.
+ * <p>
+ * Level rules are those of {@link OverallSummary}: days apply the self export rules without the overflow
+ * charge, months and years with it. Hours and days are kept as one {@link SummaryTable} per month, rows
+ * are only created when they are written to or read from their files. Only the recently used months stay
+ * in memory, the others are read from their files again when needed.
+ */
+@Slf4j
+@Component
+public class SummaryRollup {
+    private static final List<Duration> RESOLUTIONS = List.of(Duration.ofMinutes(15), Duration.ofMinutes(30), Duration.ofHours(1));
+
+    private final TariffService tariffService;
+    private final Duration resolution;
+    private final boolean subHourly;
+    private final CacheDataSource<SummaryRow> hourlyFiles;
+    // Hours stored at the other resolutions, and last those stored before the resolution was in the file name
+    private final List<CacheDataSource<SummaryRow>> otherHourlyFiles = new ArrayList<>();
+    private final CacheDataSource<SummaryRow> dailyFiles;
+    private final File monthlyFile;
+    private final File yearlyFile;
+
+    // Least recently used months are evicted, both levels are always written to files first
+    private final Map<YearMonth, SummaryTable> hours;
+    private final Map<YearMonth, SummaryTable> days;
+    private final NavigableMap<LocalDateTime, SummaryRow> months = new TreeMap<>();
+    private final NavigableMap<LocalDateTime, SummaryRow> years = new TreeMap<>();
+    // Bumped on every change, lets readers tell that what they built from the tree is outdated
+    private long generation;
+
+    public SummaryRollup(
+            @Value("${data.directory}") String storagePath,
+            @Value("${summary.resolution:1h}") Duration resolution,
+            @Value("${summary.rollupCacheMonths:24}") int cachedMonths,
+            @Autowired TariffService tariffService
+    ) {
+        this.tariffService = tariffService;
+        this.hours = recentMonths(cachedMonths);
+        this.days = recentMonths(cachedMonths);
+        this.resolution = resolution;
+        this.subHourly = resolution.compareTo(Duration.ofHours(1)) < 0;
+
+        File dataDir = FileUtils.ensureFolderCreated(storagePath, "summary/rollup");
+
+        this.hourlyFiles = hourlyFiles(dataDir, resolution);
+        RESOLUTIONS.stream()
+                .filter(other -> !other.equals(resolution))
+                .forEach(other -> otherHourlyFiles.add(hourlyFiles(dataDir, other)));
+        this.otherHourlyFiles.add(new CacheDataSource<>(dataDir, "hourly", SummaryRow.class, SummaryRow::getDate, false));
+        this.dailyFiles = new CacheDataSource<>(dataDir, "daily", SummaryRow.class, SummaryRow::getDate, false);
+        this.monthlyFile = new File(dataDir, "monthly.csv");
+        this.yearlyFile = new File(dataDir, "yearly.csv");
+
+        loadLevel(monthlyFile, months);
+        loadLevel(yearlyFile, years);
+        log.debug("Loaded summary rollup with {} months and {} years", months.size(), years.size());
+    }
+
+    public synchronized boolean contains(YearMonth month) {
+        return months.containsKey(month.atDay(1).atStartOfDay());
+    }
+
+    /**
+     * Whether hours and days of the month are in the tree, not just its total. Files that turn out to be
+     * corrupt do not count.
+     */
+    public synchronized boolean hasHours(YearMonth month) {
+        return !loadMonth(month, hours, this::readHours).isEmpty() && !loadMonth(month, days, this::readDays).isEmpty();
+    }
+
+    public synchronized long generation() {
+        return generation;
+    }
+
+    public synchronized boolean isEmpty() {
+        return months.isEmpty();
+    }
+
+    /**
+     * Rows of the level whose bucket starts inside the range. Hours and days of months that are not in
+     * the tree are skipped.
+     */
+    public synchronized SummaryTable rows(DateRange range, SummaryRow.Granularity granularity) {
+        return switch (granularity) {
+            case HOUR -> subHourly ? monthRows(range, hours, this::readHours).aggregate(SummaryRow.Granularity.HOUR) : monthRows(range, hours, this::readHours);
+            case DAY -> monthRows(range, days, this::readDays);
+            case MONTH -> SummaryTable.of(List.copyOf(months.subMap(range.from(), true, range.to(), false).values()));
+            case YEAR -> SummaryTable.of(List.copyOf(years.subMap(range.from(), true, range.to(), false).values()));
+        };
+    }
+
+    /**
+     * Rows of the hour level as stored, at the summary resolution, whose bucket starts inside the range.
+     */
+    public synchronized SummaryTable intervals(DateRange range) {
+        return monthRows(range, hours, this::readHours);
+    }
+
+    /**
+     * Puts the rows of the summary into the tree. A summary of only part of a month replaces just the
+     * rows it covers.
+     */
+    public synchronized void update(OverallSummary summary) {
+        Set<Year> touchedYears = new TreeSet<>();
+
+        for (YearMonth month : summary.getRange().months()) {
+            DateRange monthRange = DateRange.of(month);
+            SummaryTable covered = summary.getHourly().slice(monthRange);
+
+            OverallSummary monthSummary = summary.getRange().equals(monthRange)
+                    ? summary
+                    : new OverallSummary(monthRange, mergeHours(month, summary.getRange(), covered), tariffService.getTariffs());
+
+            hours.put(month, monthSummary.getHourly());
+            days.put(month, monthSummary.getDaily());
+            months.put(monthRange.from(), monthSummary.getTotal());
+            hourlyFiles.store(month, monthSummary.getHourly().toRows());
+            dailyFiles.store(month, monthSummary.getDaily().toRows());
+            touchedYears.add(Year.of(month.getYear()));
+        }
+
+        touchedYears.forEach(this::rebuildYear);
+        CsvUtils.saveToCsv(List.copyOf(months.values()), monthlyFile);
+        CsvUtils.saveToCsv(List.copyOf(years.values()), yearlyFile);
+        generation++;
+    }
+
+    /**
+     * Adds month totals without hours and days, e.g. from summaries computed before the tree existed.
+     * Months already in the tree are kept.
+     */
+    public synchronized void seedMonths(List<SummaryRow> monthRows) {
+        Set<Year> touchedYears = new TreeSet<>();
+
+        for (SummaryRow row : monthRows) {
+            LocalDateTime key = YearMonth.from(row.getDate()).atDay(1).atStartOfDay();
+
+            if (months.putIfAbsent(key, row) == null) {
+                touchedYears.add(Year.of(key.getYear()));
+            }
+        }
+
+        if (!touchedYears.isEmpty()) {
+            touchedYears.forEach(this::rebuildYear);
+            CsvUtils.saveToCsv(List.copyOf(months.values()), monthlyFile);
+            CsvUtils.saveToCsv(List.copyOf(years.values()), yearlyFile);
+            generation++;
+            log.info("Seeded summary rollup with {} months", monthRows.size());
+        }
+    }
+
+    private void rebuildYear(Year year) {
+        LocalDateTime from = year.atDay(1).atStartOfDay();
+        SummaryTable yearMonths = SummaryTable.of(List.copyOf(months.subMap(from, true, from.plusYears(1), false).values()));
+
+        SummaryTable rolled = OverallSummary.preprocessExportSelf(yearMonths.aggregate(SummaryRow.Granularity.YEAR), true, tariffService.getTariffs());
+        years.put(from, rolled.row(0));
+    }
+
+    /**
+     * Hours of the month with the replaced part taken from the replacement. Both are sorted, so the
+     * result is the kept hours before, the replacement and the kept hours after.
+     */
+    private SummaryTable mergeHours(YearMonth month, DateRange replaced, SummaryTable replacement) {
+        SummaryTable existing = loadMonth(month, hours, this::readHours);
+
+        return SummaryTable.concat(List.of(
+                existing.slice(LocalDateTime.MIN, replaced.from()),
+                replacement,
+                existing.slice(replaced.to(), LocalDateTime.MAX)
+        ));
+    }
+
+    private SummaryTable monthRows(DateRange range, Map<YearMonth, SummaryTable> level, Function<YearMonth, SummaryTable> reader) {
+        List<SummaryTable> parts = new ArrayList<>();
+
+        for (YearMonth month : range.months()) {
+            parts.add(loadMonth(month, level, reader).slice(range));
+        }
+
+        return parts.size() == 1 ? parts.getFirst() : SummaryTable.concat(parts);
+    }
+
+    /**
+     * Rows of the month from memory or its file. Months without rows are not kept, a query over many
+     * missing months must not evict the months in use.
+     */
+    private SummaryTable loadMonth(YearMonth month, Map<YearMonth, SummaryTable> level, Function<YearMonth, SummaryTable> reader) {
+        SummaryTable table = level.get(month);
+        if (table != null) {
+            return table;
+        }
+
+        table = reader.apply(month);
+        if (!table.isEmpty()) {
+            level.put(month, table);
+        }
+
+        return table;
+    }
+
+    private SummaryTable readDays(YearMonth month) {
+        return read(month, dailyFiles);
+    }
+
+    /**
+     * Hours of the month at the summary resolution. Without a file of this resolution, finer rows stored
+     * at another one are summed into hours and written under this resolution. Rows that cannot be turned
+     * into rows of this resolution are not used, so the month is summarized again.
+     */
+    private SummaryTable readHours(YearMonth month) {
+        if (hourlyFiles.contains(month)) {
+            return read(month, hourlyFiles);
+        }
+
+        for (CacheDataSource<SummaryRow> files : otherHourlyFiles) {
+            SummaryTable stored = read(month, files);
+            if (stored.isEmpty()) {
+                continue;
+            }
+
+            long step = stored.stepSeconds().orElse(0);
+            SummaryTable table;
+
+            if (step == resolution.toSeconds()) {
+                table = stored;
+            } else if (step > 0 && step < Timeline.HOUR && resolution.toSeconds() == Timeline.HOUR) {
+                table = stored.aggregate(SummaryRow.Granularity.HOUR);
+            } else {
+                log.warn("Rollup hours of {} in {} are stored at {} s, not at the summary resolution {}, summarizing the month again", month, files.getFile(month).getName(), step, resolution);
+                return new SummaryTable(0);
+            }
+
+            hourlyFiles.store(month, table.toRows());
+            log.info("Converted rollup hours of {} from {} to the summary resolution {}", month, files.getFile(month).getName(), resolution);
+            return table;
+        }
+
+        return new SummaryTable(0);
+    }
+
+    private static SummaryTable read(YearMonth month, CacheDataSource<SummaryRow> files) {
+        if (!files.contains(month)) {
+            return new SummaryTable(0);
+        }
+
+        return SummaryTable.of(files.load(month).orElse(List.of()));
+    }
+
+    private static CacheDataSource<SummaryRow> hourlyFiles(File dataDir, Duration resolution) {
+        return new CacheDataSource<>(dataDir, "hourly-" + resolution.toMinutes() + "m", SummaryRow.class, SummaryRow::getDate, false);
+    }
+
+    private static Map<YearMonth, SummaryTable> recentMonths(int capacity) {
+        return new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<YearMonth, SummaryTable> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    private static void loadLevel(File file, NavigableMap<LocalDateTime, SummaryRow> level) {
+        if (!file.exists()) {
+            return;
+        }
+
+        CsvUtils.loadFromCsv(file, SummaryRow.class)
+                .ifPresent(rows -> rows.forEach(row -> level.put(row.getDate(), row)));
+    }
+}
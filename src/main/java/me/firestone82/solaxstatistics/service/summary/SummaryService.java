@@ -1,17 +1,26 @@
 package me.firestone82.solaxstatistics.service.summary;
 
+import com.google.gson.Gson;
 import lombok.extern.slf4j.Slf4j;
+import me.firestone82.solaxstatistics.model.DateRange;
 import me.firestone82.solaxstatistics.model.EnergyEntry;
 import me.firestone82.solaxstatistics.model.PriceEntry;
 import me.firestone82.solaxstatistics.model.StatisticsEntry;
+import me.firestone82.solaxstatistics.model.Timeline;
+import me.firestone82.solaxstatistics.model.summary.HourCost;
+import me.firestone82.solaxstatistics.model.summary.HourlySeries;
 import me.firestone82.solaxstatistics.model.summary.OverallSummary;
+import me.firestone82.solaxstatistics.model.summary.SummaryMetric;
 import me.firestone82.solaxstatistics.model.summary.SummaryRow;
+import me.firestone82.solaxstatistics.model.summary.SummaryTable;
+import me.firestone82.solaxstatistics.model.tariff.Tariffs;
 import me.firestone82.solaxstatistics.serialization.GsonService;
 import me.firestone82.solaxstatistics.service.cez.CEZService;
-import me.firestone82.solaxstatistics.service.cez.CEZTariff;
 import me.firestone82.solaxstatistics.service.ote.OTEService;
+import me.firestone82.solaxstatistics.service.smtp.Attachment;
 import me.firestone82.solaxstatistics.service.smtp.EmailService;
 import me.firestone82.solaxstatistics.service.solax.SolaxService;
+import me.firestone82.solaxstatistics.service.tariff.TariffService;
 import me.firestone82.solaxstatistics.utils.FileUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
@@ -19,150 +28,285 @@ import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 
-import java.io.File;
-import java.io.FileReader;
-import java.io.FileWriter;
-import java.io.IOException;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.YearMonth;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 @Slf4j
 @Service
 public class SummaryService {
+    private static final String XLSX_TYPE = "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet";
+    private static final String JSON_TYPE = "application/json";
+
     private final SolaxService solaxService;
     private final CEZService cezService;
-    private final CEZTariff cezTariff;
+    private final TariffService tariffService;
     private final OTEService oteService;
     private final EmailService emailService;
+    private final SummaryRollup rollup;
     private final File dataDir;
+    private final boolean emailEnabled;
+    private final List<Artifact> artifacts;
+    private final List<Artifact> emailAttachments;
+    private final Gson gson;
+    private final Duration resolution;
+    private final ExecutorService artifactExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    private final ExecutorService seriesExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    private final ArtifactBuffers buffers = new ArtifactBuffers(8, 16 * 1024 * 1024);
+    private final Map<YearMonth, CompletableFuture<Optional<OverallSummary>>> inFlight = new ConcurrentHashMap<>();
 
     public SummaryService(
             @Value("${data.directory}") String storagePath,
+            @Value("${email.enabled:false}") boolean emailEnabled,
+            @Value("${summary.artifacts:EXCEL,JSON}") List<Artifact> artifacts,
+            @Value("${email.attachments:EXCEL}") List<Artifact> emailAttachments,
+            @Value("${json.pretty:false}") boolean prettyJson,
+            @Value("${summary.resolution:1h}") Duration resolution,
             @Autowired SolaxService solaxService,
             @Autowired CEZService cezService,
-            @Autowired CEZTariff cezTariff,
+            @Autowired TariffService tariffService,
             @Autowired OTEService oteService,
-            @Autowired EmailService emailService
+            @Autowired EmailService emailService,
+            @Autowired SummaryRollup rollup
     ) {
         log.info("Initializing Export service");
 
+        // CEZ meters quarter-hours and tariffs are per hour, so intervals are whole quarter-hours of an hour
+        long resolutionSeconds = resolution.toSeconds();
+        if (resolutionSeconds <= 0 || resolutionSeconds % (15 * 60) != 0 || Timeline.HOUR % resolutionSeconds != 0) {
+            throw new IllegalArgumentException("Summary resolution " + resolution + " is not 15m, 30m or 1h");
+        }
+
         this.solaxService = solaxService;
         this.cezService = cezService;
-        this.cezTariff = cezTariff;
+        this.tariffService = tariffService;
         this.oteService = oteService;
         this.emailService = emailService;
+        this.rollup = rollup;
         this.dataDir = FileUtils.ensureFolderCreated(storagePath, "summary");
+        this.emailEnabled = emailEnabled;
+        this.artifacts = artifacts;
+        this.emailAttachments = emailAttachments;
+        this.gson = GsonService.gson(prettyJson);
+        this.resolution = resolution;
+
+        // Month totals saved before the rollup existed
+        if (rollup.isEmpty()) {
+            rollup.seedMonths(getMonthlyHistory(YearMonth.now().plusMonths(1)));
+        }
 
-        log.info("Initialized Summary service. Data directory: {}", dataDir.getAbsolutePath());
+        log.info("Initialized Summary service. Data directory: {}, artifacts: {}, resolution: {}", dataDir.getAbsolutePath(), artifacts, resolution);
     }
 
+    /**
+     * Summarizes the month into the rollup and writes its artifacts. A month is processed once at a time, a
+     * caller asking for a month that is already being processed waits for that run and gets its result.
+     */
     public Optional<OverallSummary> processSummary(YearMonth yearMonth) {
+        CompletableFuture<Optional<OverallSummary>> run = new CompletableFuture<>();
+        CompletableFuture<Optional<OverallSummary>> running = inFlight.putIfAbsent(yearMonth, run);
+
+        if (running != null) {
+            log.debug("Summary of {} is already being processed, waiting for it", yearMonth);
+            return running.join();
+        }
+
+        try {
+            Optional<OverallSummary> processed = process(yearMonth);
+            run.complete(processed);
+            return processed;
+        } catch (RuntimeException e) {
+            run.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(yearMonth, run);
+        }
+    }
+
+    private Optional<OverallSummary> process(YearMonth yearMonth) {
         log.debug("Processing FVE statistics for {}", yearMonth);
 
-        Optional<Map<LocalDateTime, EnergyEntry>> consumptionData = cezService.getConsumptionHourly(yearMonth);
-        if (consumptionData.isEmpty()) {
-            log.warn("Unable to process data for {}, since CEZ scraping failed!", yearMonth);
+        Optional<OverallSummary> processed = summarize(DateRange.of(yearMonth));
+        if (processed.isEmpty()) {
             return Optional.empty();
         }
 
-        Optional<Map<LocalDateTime, StatisticsEntry>> statisticsData = solaxService.getStatisticsHourly(yearMonth);
-        if (statisticsData.isEmpty()) {
-            log.warn("Unable to process data for {}, since Solax scraping failed!", yearMonth);
-            return Optional.empty();
+        OverallSummary summary = processed.get();
+        rollup.update(summary);
+
+        // Artifacts render in parallel into memory. Each is written to disk in the background as soon as it
+        // is rendered, the email is sent with the rendered bytes without waiting for the files.
+        Set<Artifact> rendered = EnumSet.noneOf(Artifact.class);
+        rendered.addAll(artifacts);
+        if (emailEnabled) {
+            rendered.addAll(emailAttachments);
         }
 
-        Optional<List<PriceEntry>> priceData = oteService.getPrices(yearMonth);
-        if (priceData.isEmpty()) {
-            log.warn("Unable to process data for {}, since OTE scraping failed!", yearMonth);
-            return Optional.empty();
+        Map<String, Long> timings = new ConcurrentSkipListMap<>();
+        Map<Artifact, CompletableFuture<Optional<Attachment>>> renders = new EnumMap<>(Artifact.class);
+        for (Artifact artifact : rendered) {
+            renders.put(artifact, timed(artifact.name().toLowerCase(), timings, () -> render(artifact, summary, yearMonth)));
         }
 
-        // Summary
-        List<SummaryRow> hourlyStatistics = mergeWithPrices(consumptionData.get(), statisticsData.get(), priceData.get());
-        List<SummaryRow> monthlyStatistics = getMonthlyHistory(yearMonth);
+        List<CompletableFuture<Optional<File>>> files = artifacts.stream()
+                .map(artifact -> renders.get(artifact).thenApplyAsync(content -> content.flatMap(this::persist), artifactExecutor))
+                .toList();
 
-        OverallSummary summary = new OverallSummary(yearMonth, hourlyStatistics);
-        double totalImport = summary.getTotal().getImportGrid() + summary.getTotal().getImportSelf();
-        double totalExport = summary.getTotal().getExportGrid() + summary.getTotal().getExportSelf();
-        log.info("Summary processing completed for {}. Total consumption/import/export: {}/{}/{} kWh", yearMonth, summary.getTotal().getConsumption(), totalImport, totalExport);
+        CompletableFuture<Optional<String>> emailHtml = emailEnabled
+                ? timed("email", timings, () -> renderEmail(yearMonth, summary))
+                : CompletableFuture.completedFuture(Optional.empty());
+
+        boolean renderFailed = renders.values().stream().map(CompletableFuture::join).anyMatch(Optional::isEmpty);
+        Optional<String> html = emailHtml.join();
+        log.debug("Summary artifacts for {} produced in {} (ms)", yearMonth, timings);
 
-        // Save summary to file
-        Optional<File> excelFile = saveToExcel(summary, monthlyStatistics, yearMonth);
-        Optional<File> jsonFile = saveToJson(summary.getTotal(), yearMonth);
+        if (!renderFailed) {
+            List<Attachment> attachments = emailAttachments.stream()
+                    .map(artifact -> renders.get(artifact).join().orElseThrow())
+                    .toList();
+            html.ifPresent(body -> sendEmail(yearMonth, body, attachments));
+        }
 
-        if (excelFile.isEmpty() || jsonFile.isEmpty()) {
+        if (renderFailed || files.stream().map(CompletableFuture::join).anyMatch(Optional::isEmpty)) {
             log.warn("Failed to save summary files for {}", yearMonth);
             return Optional.empty();
         }
 
-        // Send email with attachments
-//        sendEmail(yearMonth, summary, List.of(excelFile.get()));
-
         return Optional.of(summary);
     }
 
-    public Optional<File> saveToExcel(OverallSummary summary, List<SummaryRow> monthlyStatistics, YearMonth yearMonth) {
-        String filename = String.format("summary_%s.xlsx", yearMonth);
-        log.debug("Saving summary to Excel file: {}", filename);
+    /**
+     * Renders the configured artifacts of the month into memory, in parallel like {@link #processSummary}.
+     * Nothing is saved, sent or added to the rollup.
+     *
+     * @return the rendered artifacts, or empty if any failed to render
+     */
+    public Optional<List<Attachment>> renderArtifacts(OverallSummary summary, YearMonth yearMonth) {
+        List<CompletableFuture<Optional<Attachment>>> renders = artifacts.stream()
+                .map(artifact -> CompletableFuture.supplyAsync(() -> render(artifact, summary, yearMonth), artifactExecutor))
+                .toList();
+
+        List<Optional<Attachment>> rendered = renders.stream().map(CompletableFuture::join).toList();
+        if (rendered.stream().anyMatch(Optional::isEmpty)) {
+            return Optional.empty();
+        }
+
+        return Optional.of(rendered.stream().map(Optional::orElseThrow).toList());
+    }
 
-        File file = new File(dataDir, filename);
+    /**
+     * Builds a summary of an arbitrary range, e.g. month to date or a custom period. Nothing is saved or sent.
+     */
+    public Optional<OverallSummary> summarize(DateRange range) {
+        log.debug("Summarizing FVE statistics for {}", range);
 
-        try {
-            SummaryExcelExporter exporter = new SummaryExcelExporter();
-            exporter.exportToExcel(summary, monthlyStatistics, file);
-        } catch (Exception e) {
-            log.error("Failed to write summary to Excel file {}: {}", file.getPath(), e.getMessage(), e);
+        Optional<HourlySeries> series = loadSeries(range);
+        if (series.isEmpty()) {
             return Optional.empty();
         }
 
-        log.info("Successfully saved summary to Excel file: {}", file.getAbsolutePath());
-        return Optional.of(file);
+        SummaryTable hourlyStatistics = mergeWithPrices(series.get());
+        OverallSummary summary = new OverallSummary(range, hourlyStatistics, tariffService.getTariffs());
+        double totalImport = summary.getTotal().getImportGrid() + summary.getTotal().getImportSelf();
+        double totalExport = summary.getTotal().getExportGrid() + summary.getTotal().getExportSelf();
+        log.info("Summary processing completed for {}. Total consumption/import/export: {}/{}/{} kWh", range, summary.getTotal().getConsumption(), totalImport, totalExport);
+
+        return Optional.of(summary);
     }
 
-    public Optional<File> saveToJson(SummaryRow summaryRow, YearMonth yearMonth) {
-        String filename = String.format("summary_%s.json", yearMonth);
-        log.debug("Saving summary to JSON file: {}", filename);
+    /**
+     * Inputs of the cost model for the range at the summary resolution, empty if any source failed. The sources are loaded at
+     * the same time, a slow portal does not hold back the others.
+     */
+    public Optional<HourlySeries> loadSeries(DateRange range) {
+        CompletableFuture<Optional<NavigableMap<Long, EnergyEntry>>> consumptionFuture = CompletableFuture.supplyAsync(() -> cezService.getConsumptionIntervals(range, resolution), seriesExecutor);
+        CompletableFuture<Optional<NavigableMap<Long, StatisticsEntry>>> statisticsFuture = CompletableFuture.supplyAsync(() -> solaxService.getStatisticsIntervals(range, resolution), seriesExecutor);
+        CompletableFuture<Optional<List<PriceEntry>>> priceFuture = CompletableFuture.supplyAsync(() -> oteService.getPrices(range), seriesExecutor);
 
-        File file = new File(dataDir, filename);
+        Optional<NavigableMap<Long, EnergyEntry>> consumptionData = consumptionFuture.join();
+        if (consumptionData.isEmpty()) {
+            log.warn("Unable to process data for {}, since CEZ scraping failed!", range);
+            return Optional.empty();
+        }
 
-        try (FileWriter writer = new FileWriter(file)) {
-            GsonService.gson.toJson(summaryRow, writer);
-        } catch (IOException e) {
-            log.error("Failed to write summary to JSON file {}: {}", file.getPath(), e.getMessage(), e);
+        Optional<NavigableMap<Long, StatisticsEntry>> statisticsData = statisticsFuture.join();
+        if (statisticsData.isEmpty()) {
+            log.warn("Unable to process data for {}, since Solax scraping failed!", range);
             return Optional.empty();
         }
 
-        log.info("Successfully saved summary to JSON file: {}", file.getAbsolutePath());
-        return Optional.of(file);
+        Optional<List<PriceEntry>> priceData = priceFuture.join();
+        if (priceData.isEmpty()) {
+            log.warn("Unable to process data for {}, since OTE scraping failed!", range);
+            return Optional.empty();
+        }
+
+        return Optional.of(HourlySeries.align(consumptionData.get(), statisticsData.get(), priceData.get(), resolution));
     }
 
-    public void sendEmail(YearMonth yearMonth, OverallSummary summary, List<File> attachments) {
-        log.debug("Sending summary email for {}", yearMonth);
+    private Optional<Attachment> render(Artifact artifact, OverallSummary summary, YearMonth yearMonth) {
+        return switch (artifact) {
+            case EXCEL -> render(String.format("summary_%s.xlsx", yearMonth), XLSX_TYPE, output -> writeExcel(summary, yearMonth, output));
+            case JSON -> render(String.format("summary_%s.json", yearMonth), JSON_TYPE, output -> writeJson(summary.getTotal(), output));
+            case CSV -> renderHourly(summary, yearMonth, "csv", "text/csv", new SummaryCsvExporter()::export);
+            case COLUMNAR -> renderHourly(summary, yearMonth, "scol", "application/octet-stream", new SummaryColumnarExporter()::export);
+            case HOURLY_JSON -> renderHourly(summary, yearMonth, "json", JSON_TYPE, new SummaryJsonExporter(gson)::export);
+        };
+    }
+
+    private void writeExcel(OverallSummary summary, YearMonth yearMonth, OutputStream output) throws IOException {
+        // History up to the summary month, newest first
+        LocalDateTime start = LocalDateTime.MIN;
+        LocalDateTime yearStart = yearMonth.atDay(1).atStartOfDay().withDayOfYear(1);
+        LocalDateTime monthEnd = yearMonth.plusMonths(1).atDay(1).atStartOfDay();
+
+        SummaryTable monthlyStatistics = rollup.rows(new DateRange(start, monthEnd), SummaryRow.Granularity.MONTH).reversed();
 
+        // The summary year only counts months up to the summary month, like when it was first processed
+        SummaryTable currentYear = rollup.rows(new DateRange(yearStart, monthEnd), SummaryRow.Granularity.MONTH).aggregate(SummaryRow.Granularity.YEAR);
+        SummaryTable yearlyStatistics = SummaryTable.concat(List.of(
+                rollup.rows(new DateRange(start, yearStart), SummaryRow.Granularity.YEAR),
+                OverallSummary.preprocessExportSelf(currentYear, true, tariffService.getTariffs())
+        )).reversed();
+
+        new SummaryExcelExporter(resolution).exportToExcel(summary, monthlyStatistics, yearlyStatistics, output);
+    }
+
+    private void writeJson(SummaryRow summaryRow, OutputStream output) throws IOException {
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8))) {
+            gson.toJson(summaryRow, SummaryRow.class, writer);
+        }
+    }
+
+    public Optional<String> renderEmail(YearMonth yearMonth, OverallSummary summary) {
+        SummaryTable totals = summary.getTotals();
+
+        // Every metric under its field name, plus the grid and self sums
         Map<String, Object> variables = new HashMap<>();
+        for (SummaryMetric metric : SummaryMetric.values()) {
+            variables.put(metric.getFieldName(), totals.get(metric, 0));
+        }
+
         variables.put("date", yearMonth);
         variables.put("year", yearMonth.getYear());
-        variables.put("consumption", summary.getTotal().getConsumption());
-        variables.put("yield", summary.getTotal().getYield());
-        variables.put("importGrid", summary.getTotal().getImportGrid());
-        variables.put("exportGrid", summary.getTotal().getExportGrid());
-        variables.put("importSelf", summary.getTotal().getImportSelf());
-        variables.put("exportSelf", summary.getTotal().getExportSelf());
-        variables.put("totalImport", summary.getTotal().getImportGrid() + summary.getTotal().getImportSelf());
-        variables.put("totalExport", summary.getTotal().getExportGrid() + summary.getTotal().getExportSelf());
-        variables.put("importCostGrid", summary.getTotal().getImportCostGrid());
-        variables.put("importCostSelf", summary.getTotal().getImportCostSelf());
-        variables.put("exportRevenueGrid", summary.getTotal().getExportRevenueGrid());
-        variables.put("exportRevenueSelf", summary.getTotal().getExportRevenueSelf());
-        variables.put("totalImportCost", summary.getTotal().getImportCostGrid() + summary.getTotal().getImportCostSelf());
-        variables.put("totalExportRevenue", summary.getTotal().getExportRevenueGrid() + summary.getTotal().getExportRevenueSelf());
-        variables.put("selfConsummated", summary.getTotal().getSelfConsummated());
-        variables.put("savings", summary.getTotal().getSavings());
-        variables.put("selfUsePercentage", summary.getTotal().getSelfUsePercentage());
+        variables.put("totalImport", totals.get(SummaryMetric.IMPORT_GRID, 0) + totals.get(SummaryMetric.IMPORT_SELF, 0));
+        variables.put("totalExport", totals.get(SummaryMetric.EXPORT_GRID, 0) + totals.get(SummaryMetric.EXPORT_SELF, 0));
+        variables.put("totalImportCost", totals.get(SummaryMetric.IMPORT_COST_GRID, 0) + totals.get(SummaryMetric.IMPORT_COST_SELF, 0));
+        variables.put("totalExportRevenue", totals.get(SummaryMetric.EXPORT_REVENUE_GRID, 0) + totals.get(SummaryMetric.EXPORT_REVENUE_SELF, 0));
         variables.put("timestamp", LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")));
 
         // Round all double values to 3 decimal places
@@ -174,8 +318,54 @@ public class SummaryService {
             return v;
         });
 
+        return emailService.render("energy-report.html", variables);
+    }
+
+    /**
+     * Rows at the summary resolution as {@code summary_<yyyy-MM>_hourly.<extension>}.
+     */
+    private Optional<Attachment> renderHourly(OverallSummary summary, YearMonth yearMonth, String extension, String contentType, HourlyExporter exporter) {
+        return render(String.format("summary_%s_hourly.%s", yearMonth, extension), contentType, output -> exporter.export(summary.getHourly(), output));
+    }
+
+    /**
+     * Renders the artifact into a pooled buffer. The content is copied out once, the copy is attached and
+     * persisted as it is.
+     */
+    private Optional<Attachment> render(String filename, String contentType, ArtifactWriter writer) {
+        log.debug("Rendering summary artifact {}", filename);
+        ArtifactBuffers.Buffer buffer = buffers.acquire();
+
+        try {
+            writer.write(buffer);
+            return Optional.of(new Attachment(filename, contentType, buffer.toByteArray()));
+        } catch (IOException | RuntimeException e) {
+            log.error("Failed to render summary artifact {}: {}", filename, e.getMessage(), e);
+            return Optional.empty();
+        } finally {
+            buffers.release(buffer);
+        }
+    }
+
+    private Optional<File> persist(Attachment artifact) {
+        File file = new File(dataDir, artifact.name());
+
+        try {
+            Files.write(file.toPath(), artifact.content());
+        } catch (IOException e) {
+            log.error("Failed to write summary file {}: {}", file.getPath(), e.getMessage(), e);
+            return Optional.empty();
+        }
+
+        log.info("Successfully saved summary file: {}", file.getAbsolutePath());
+        return Optional.of(file);
+    }
+
+    public void sendEmail(YearMonth yearMonth, String html, List<Attachment> attachments) {
+        log.debug("Sending summary email for {}", yearMonth);
+
         String subject = "FVE - Monthly report of " + yearMonth;
-        emailService.sendEmail("energy-report.html", subject, variables, attachments);
+        emailService.sendEmail(subject, html, attachments);
         log.info("Summary email for {} sent successfully", yearMonth);
     }
 
@@ -207,104 +397,34 @@ public class SummaryService {
                 .collect(Collectors.toList());
     }
 
-    private List<SummaryRow> mergeWithPrices(Map<LocalDateTime, EnergyEntry> cezData, Map<LocalDateTime, StatisticsEntry> solaxData, List<PriceEntry> priceData) {
-        // Build a NavigableMap for "previous value" lookups
-        final NavigableMap<LocalDateTime, StatisticsEntry> solaxNav = new TreeMap<>(solaxData);
-        final Map<LocalDateTime, PriceEntry> priceMap = priceData.stream()
-                .collect(Collectors.toMap(PriceEntry::getDateTime, p -> p));
-
-        return cezData.entrySet().stream()
-                .map(e -> {
-                    LocalDateTime dt = e.getKey();
-                    EnergyEntry energyEntry = e.getValue();
-                    PriceEntry priceEntry = priceMap.get(dt);
-
-                    // Try exact match first; otherwise take the previous (floor) entry.
-                    StatisticsEntry statisticsEntry = solaxData.get(dt);
-                    if (statisticsEntry == null) {
-                        Map.Entry<LocalDateTime, StatisticsEntry> floor = solaxNav.floorEntry(dt);
-
-                        statisticsEntry = (floor != null) ? floor.getValue() : null;
-                        if (statisticsEntry != null) {
-                            log.debug("Using previous StatisticsEntry from {} for {}", floor.getKey(), dt);
-                        }
-                    }
+    private SummaryTable mergeWithPrices(HourlySeries series) {
+        // Tariffs as per-hour prices aligned with the slots of the series
+        final Tariffs tariffs = tariffService.getTariffs();
+        final double[] gridImportPrices = series.prices(tariffs.gridImport());
+        final double[] gridExportFees = series.prices(tariffs.gridExportFee());
+        final double[] selfImportPrices = series.prices(tariffs.selfImport());
 
-                    if (energyEntry == null || priceEntry == null || statisticsEntry == null) {
-                        log.warn("Missing data for date: {} (energy={}, price={}, stats={})", dt, energyEntry != null, priceEntry != null, statisticsEntry != null);
-                        return null; // Skip this entry if any data is missing
-                    }
+        SummaryTable rows = new SummaryTable(series.getSize());
+        HourCost cost = new HourCost();
 
-                    // Before 2025-02, no export to grid was possible
-                    boolean noExport = dt.getYear() < 2025 || (dt.getYear() == 2025 && dt.getMonthValue() < 2);
-
-                    // Solax (convert MWh -> kWh where appropriate)
-                    double consumption = statisticsEntry.getConsumptionMWh() * 1000;
-                    double yield = statisticsEntry.getYieldMWh() * 1000;
-
-                    // Prices
-                    double importPriceGrid = cezTariff.getImportPrice().getCzk() > 0
-                            ? cezTariff.getImportPrice().getCzk()
-                            : priceEntry.getCzkPriceMWh();
-                    double importPriceSelf = getDayNightPrice(dt.getHour(), 2.1, 1.1); // CZK/kWh
-                    double exportPriceGrid = priceEntry.getCzkPriceMWh() / 1000;
-                    double exportPriceSelf = 0.0; // Late calculation
-
-                    // Import
-                    double importGrid = noExport
-                            ? (statisticsEntry.getImportMWh() * 1000)
-                            : energyEntry.getImportMWh();
-                    double importSelf = Math.max((statisticsEntry.getImportMWh() * 1000) - importGrid, 0);
-                    double importCostGrid = importGrid * importPriceGrid;
-                    double importCostSelf = importSelf * importPriceSelf;
-
-                    // Export
-                    double exportGrid = noExport
-                            ? (statisticsEntry.getExportMWh() * 1000)
-                            : energyEntry.getExportMWh();
-                    double exportRest = Math.max((statisticsEntry.getExportMWh() * 1000) - exportGrid, 0);
-                    double exportRevenueGrid = (exportGrid * exportPriceGrid) - (exportGrid * cezTariff.getExportFee().getCzk());
-                    double exportRevenueSelf = exportRest * exportPriceSelf;
-
-                    if (noExport) {
-                        exportRevenueGrid = 0.0;
-                        exportRevenueSelf = 0.0;
-                    }
+        for (int i = 0; i < series.getSize(); i++) {
+            cost.compute(series, i, gridImportPrices[i], selfImportPrices[i], gridExportFees[i], 0.0, 0.0)
+                    .writeTo(rows, i, series.getMinutes()[i]);
+        }
 
-                    // Self consumption
-                    double selfConsumed = consumption - importGrid - importSelf;
-                    double savings = selfConsumed * importPriceGrid;
-                    double selfUsePercentage = consumption == 0 ? 100.0 : Math.max((selfConsumed / consumption) * 100.0, 0);
-
-                    return SummaryRow.builder()
-                            .date(dt)
-                            .yield(yield)
-                            .consumption(consumption)
-                            .exportPriceGrid(exportPriceGrid)
-                            .importGrid(importGrid)
-                            .importSelf(importSelf)
-                            .importCostGrid(importCostGrid)
-                            .importCostSelf(importCostSelf)
-                            .exportGrid(exportGrid)
-                            .exportSelf(exportRest)
-                            .exportRevenueGrid(exportRevenueGrid)
-                            .exportRevenueSelf(exportRevenueSelf)
-                            .selfConsummated(selfConsumed)
-                            .savings(savings)
-                            .selfUsePercentage(selfUsePercentage)
-                            .build();
-                })
-                .filter(Objects::nonNull)
-                .sorted(Comparator.comparing(SummaryRow::getDate))
-                .collect(Collectors.toList());
+        return rows;
     }
 
-    private double getDayNightPrice(int hour, double dayPrice, double nightPrice) {
-        if (hour < 6 || hour >= 19 && hour <= 21) {
-            return nightPrice;
-        }
+    private <T> CompletableFuture<T> timed(String artifact, Map<String, Long> timings, Supplier<T> task) {
+        return CompletableFuture.supplyAsync(() -> {
+            long startNanos = System.nanoTime();
 
-        return dayPrice;
+            try {
+                return task.get();
+            } finally {
+                timings.put(artifact, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+            }
+        }, artifactExecutor);
     }
 
     @EventListener(ApplicationReadyEvent.class)
@@ -317,4 +437,25 @@ public class SummaryService {
             start = start.plusMonths(1);
         }
     }
+
+    /**
+     * Files produced for every processed month, selected with {@code summary.artifacts}.
+     */
+    public enum Artifact {
+        EXCEL,
+        JSON,
+        CSV,
+        COLUMNAR,
+        HOURLY_JSON
+    }
+
+    @FunctionalInterface
+    public interface HourlyExporter {
+        void export(SummaryTable rows, OutputStream output) throws IOException;
+    }
+
+    @FunctionalInterface
+    private interface ArtifactWriter {
+        void write(OutputStream output) throws IOException;
+    }
 }
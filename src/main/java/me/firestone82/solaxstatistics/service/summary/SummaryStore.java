@@ -0,0 +1,150 @@
+package me.firestone82.solaxstatistics.service.summary;
+
+import lombok.extern.slf4j.Slf4j;
+import me.firestone82.solaxstatistics.model.DateRange;
+import me.firestone82.solaxstatistics.model.summary.OverallSummary;
+import me.firestone82.solaxstatistics.model.summary.SummaryRow;
+import me.firestone82.solaxstatistics.model.summary.SummaryTable;
+import me.firestone82.solaxstatistics.service.tariff.TariffService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.Year;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Answers summary queries from the {@link SummaryRollup} only. Months get into the rollup when they are
+ * processed by {@link SummaryService#processSummary}; queries never fetch, compute or write anything, a
+ * month that has not been processed yet makes the query empty.
+ */
+@Slf4j
+@Component
+public class SummaryStore {
+    private final SummaryRollup rollup;
+    private final TariffService tariffService;
+
+    public SummaryStore(
+            @Autowired SummaryRollup rollup,
+            @Autowired TariffService tariffService
+    ) {
+        this.rollup = rollup;
+        this.tariffService = tariffService;
+    }
+
+    /**
+     * Rows of the given granularity for the range. Hourly and daily rows are the ones starting inside
+     * the range, months and years only partially covered by the range are summarized over the covered part.
+     *
+     * @return rows sorted by date, or empty if any month needed has not been processed
+     */
+    public Optional<List<SummaryRow>> rows(DateRange range, SummaryRow.Granularity granularity) {
+        return table(range, granularity).map(SummaryTable::toRows);
+    }
+
+    /**
+     * Same as {@link #rows} without creating the rows.
+     */
+    public Optional<SummaryTable> table(DateRange range, SummaryRow.Granularity granularity) {
+        return switch (granularity) {
+            case HOUR, DAY -> hasHours(range.months()) ? Optional.of(rollup.rows(range, granularity)) : Optional.empty();
+            case MONTH -> monthTotals(range);
+            case YEAR -> yearTotals(range);
+        };
+    }
+
+    /**
+     * Changes whenever the rollup does, anything built from an older generation is outdated.
+     */
+    public long generation() {
+        return rollup.generation();
+    }
+
+    private Optional<SummaryTable> monthTotals(DateRange range) {
+        List<SummaryTable> rows = new ArrayList<>();
+
+        for (YearMonth month : range.months()) {
+            DateRange monthRange = DateRange.of(month);
+
+            if (covers(range, monthRange)) {
+                if (!rollup.contains(month)) {
+                    return missing(month);
+                }
+
+                rows.add(rollup.rows(monthRange, SummaryRow.Granularity.MONTH));
+                continue;
+            }
+
+            // Partially covered month, summarized from its stored rows and not kept
+            if (!rollup.hasHours(month)) {
+                return missing(month);
+            }
+
+            DateRange part = intersect(range, monthRange);
+            rows.add(new OverallSummary(part, rollup.intervals(part), tariffService.getTariffs()).getTotals());
+        }
+
+        return Optional.of(SummaryTable.concat(rows));
+    }
+
+    private Optional<SummaryTable> yearTotals(DateRange range) {
+        List<SummaryTable> rows = new ArrayList<>();
+
+        for (int year = range.firstDay().getYear(); year <= range.lastDay().getYear(); year++) {
+            LocalDateTime start = Year.of(year).atDay(1).atStartOfDay();
+            DateRange yearRange = new DateRange(start, start.plusYears(1));
+
+            if (covers(range, yearRange)) {
+                // Months after the current one cannot have been processed yet
+                for (YearMonth month : yearRange.months()) {
+                    if (!month.isAfter(YearMonth.now()) && !rollup.contains(month)) {
+                        return missing(month);
+                    }
+                }
+
+                rows.add(rollup.rows(yearRange, SummaryRow.Granularity.YEAR));
+                continue;
+            }
+
+            Optional<SummaryTable> months = monthTotals(intersect(range, yearRange));
+            if (months.isEmpty()) {
+                return Optional.empty();
+            }
+
+            SummaryTable rolled = months.get().aggregate(SummaryRow.Granularity.YEAR);
+            rows.add(OverallSummary.preprocessExportSelf(rolled, true, tariffService.getTariffs()));
+        }
+
+        return Optional.of(SummaryTable.concat(rows));
+    }
+
+    private boolean hasHours(List<YearMonth> months) {
+        for (YearMonth month : months) {
+            if (!rollup.hasHours(month)) {
+                log.debug("Summary of {} has not been processed, not in the rollup", month);
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static Optional<SummaryTable> missing(YearMonth month) {
+        log.debug("Summary of {} has not been processed, not in the rollup", month);
+        return Optional.empty();
+    }
+
+    private static boolean covers(DateRange range, DateRange inner) {
+        return !range.from().isAfter(inner.from()) && !range.to().isBefore(inner.to());
+    }
+
+    private static DateRange intersect(DateRange a, DateRange b) {
+        LocalDateTime from = a.from().isAfter(b.from()) ? a.from() : b.from();
+        LocalDateTime to = a.to().isBefore(b.to()) ? a.to() : b.to();
+
+        return new DateRange(from, to);
+    }
+}
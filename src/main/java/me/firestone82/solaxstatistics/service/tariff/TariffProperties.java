@@ -0,0 +1,43 @@
+package me.firestone82.solaxstatistics.service.tariff;
+
+import lombok.Data;
+import me.firestone82.solaxstatistics.model.tariff.DayType;
+import me.firestone82.solaxstatistics.model.tariff.Tariffs;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+@Data
+@ConfigurationProperties(prefix = "tariff")
+public class TariffProperties {
+    // "MM-dd" for every year or "yyyy-MM-dd" for a single date
+    private List<String> holidays = new ArrayList<>();
+    private boolean easterHolidays = true;
+    private Map<Tariffs.Rate, List<Period>> rates = new EnumMap<>(Tariffs.Rate.class);
+
+    /**
+     * Prices valid from {@code validFrom} (inclusive) to {@code validTo} (exclusive), both optional.
+     * Hours not covered by any band cost {@code price}.
+     */
+    @Data
+    public static class Period {
+        private LocalDate validFrom;
+        private LocalDate validTo;
+        private double price;
+        private List<Band> bands = new ArrayList<>();
+    }
+
+    /**
+     * Price for hour ranges such as {@code "0-6,19-22"} (end exclusive) on the given day types.
+     */
+    @Data
+    public static class Band {
+        private String hours;
+        private List<DayType> days = List.of(DayType.values());
+        private double price;
+    }
+}
@@ -0,0 +1,132 @@
+package me.firestone82.solaxstatistics.service.tariff;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import me.firestone82.solaxstatistics.model.tariff.DayType;
+import me.firestone82.solaxstatistics.model.tariff.HolidayCalendar;
+import me.firestone82.solaxstatistics.model.tariff.TariffSchedule;
+import me.firestone82.solaxstatistics.model.tariff.Tariffs;
+import me.firestone82.solaxstatistics.service.cez.CEZTariff;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.MonthDay;
+import java.util.*;
+
+/**
+ * Compiles the configured tariffs into {@link TariffSchedule} lookup tables. Grid rates that are not
+ * configured under {@code tariff.rates} fall back to the flat {@code cez.tariff} prices.
+ */
+@Slf4j
+@Service
+public class TariffService {
+    private final CEZTariff cezTariff;
+    private final HolidayCalendar calendar;
+
+    @Getter
+    private final Tariffs tariffs;
+
+    public TariffService(
+            @Autowired TariffProperties properties,
+            @Autowired CEZTariff cezTariff
+    ) {
+        this.cezTariff = cezTariff;
+        this.calendar = createCalendar(properties);
+        this.tariffs = compile(properties.getRates());
+
+        log.info("Initialized tariffs: {}", properties.getRates().keySet());
+    }
+
+    /**
+     * Compiles a set of rates, e.g. an alternative tariff. Missing rates are filled in like the configured ones.
+     */
+    public Tariffs compile(Map<Tariffs.Rate, List<TariffProperties.Period>> rates) {
+        Map<Tariffs.Rate, TariffSchedule> schedules = new EnumMap<>(Tariffs.Rate.class);
+
+        for (Tariffs.Rate rate : Tariffs.Rate.values()) {
+            List<TariffProperties.Period> periods = rates.get(rate);
+            schedules.put(rate, periods == null || periods.isEmpty() ? fallback(rate) : compile(periods));
+        }
+
+        return new Tariffs(schedules);
+    }
+
+    private TariffSchedule compile(List<TariffProperties.Period> periods) {
+        List<TariffSchedule.Period> compiled = new ArrayList<>();
+
+        for (TariffProperties.Period period : periods) {
+            double[][] profiles = new double[DayType.values().length][24];
+
+            for (double[] profile : profiles) {
+                Arrays.fill(profile, period.getPrice());
+            }
+
+            // Later bands win where they overlap
+            for (TariffProperties.Band band : period.getBands()) {
+                boolean[] hours = parseHours(band.getHours());
+
+                for (DayType day : band.getDays()) {
+                    for (int hour = 0; hour < 24; hour++) {
+                        if (hours[hour]) {
+                            profiles[day.ordinal()][hour] = band.getPrice();
+                        }
+                    }
+                }
+            }
+
+            compiled.add(new TariffSchedule.Period(period.getValidFrom(), period.getValidTo(), profiles));
+        }
+
+        return new TariffSchedule(compiled, calendar);
+    }
+
+    private TariffSchedule fallback(Tariffs.Rate rate) {
+        double price = switch (rate) {
+            case GRID_IMPORT -> cezTariff.getImportPrice() != null ? cezTariff.getImportPrice().getCzk() : 0.0;
+            case GRID_EXPORT_FEE -> cezTariff.getExportFee() != null ? cezTariff.getExportFee().getCzk() : 0.0;
+            default -> {
+                log.warn("Tariff rate {} is not configured, pricing it at 0", rate);
+                yield 0.0;
+            }
+        };
+
+        return TariffSchedule.flat(price, calendar);
+    }
+
+    /**
+     * Parses {@code "0-6,19-22"} into a mask of hours, range ends are exclusive.
+     */
+    private static boolean[] parseHours(String text) {
+        boolean[] hours = new boolean[24];
+
+        for (String part : text.split(",")) {
+            String[] bounds = part.trim().split("-");
+            int from = Integer.parseInt(bounds[0].trim());
+            int to = bounds.length > 1 ? Integer.parseInt(bounds[1].trim()) : from + 1;
+
+            if (from < 0 || to > 24 || from >= to) {
+                throw new IllegalArgumentException("Invalid tariff hours '" + part + "' in '" + text + "'");
+            }
+
+            Arrays.fill(hours, from, to, true);
+        }
+
+        return hours;
+    }
+
+    private static HolidayCalendar createCalendar(TariffProperties properties) {
+        Set<MonthDay> everyYear = new HashSet<>();
+        Set<LocalDate> dates = new HashSet<>();
+
+        for (String holiday : properties.getHolidays()) {
+            if (holiday.length() == 5) {
+                everyYear.add(MonthDay.parse("--" + holiday));
+            } else {
+                dates.add(LocalDate.parse(holiday));
+            }
+        }
+
+        return new HolidayCalendar(everyYear, dates, properties.isEasterHolidays());
+    }
+}
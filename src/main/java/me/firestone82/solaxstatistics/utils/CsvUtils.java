@@ -7,12 +7,9 @@ import org.apache.commons.csv.CSVPrinter;
 import org.apache.commons.csv.CSVRecord;
 import org.jetbrains.annotations.NotNull;
 
-import java.io.File;
-import java.io.IOException;
-import java.io.Reader;
-import java.io.Writer;
+import java.io.*;
 import java.lang.reflect.Field;
-import java.nio.file.Files;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
@@ -36,33 +33,49 @@ public class CsvUtils {
                 .setHeader(getFieldNames(data.getFirst().getClass()))
                 .get();
 
-        try (
-                Writer writer = Files.newBufferedWriter(file.toPath());
-                CSVPrinter printer = new CSVPrinter(writer, csvFormat)
-        ) {
-            for (T item : data) {
-                List<String> values = new ArrayList<>();
+        try {
+            // Temp file, checksum footer and atomic rename, a crash never leaves a truncated cache behind
+            SafeFiles.write(file, writer -> {
+                CSVPrinter printer = new CSVPrinter(writer, csvFormat);
+                Field[] fields = data.getFirst().getClass().getDeclaredFields();
+                List<String> values = new ArrayList<>(fields.length);
 
-                for (Field field : item.getClass().getDeclaredFields()) {
+                for (Field field : fields) {
                     field.setAccessible(true);
-                    Object value = field.get(item);
+                }
+
+                for (T item : data) {
+                    values.clear();
 
-                    if (value instanceof LocalDateTime dt) {
-                        values.add(dt.format(DEFAULT_FORMATTER));
-                    } else {
-                        values.add(value != null ? value.toString() : "");
+                    for (Field field : fields) {
+                        Object value = get(field, item);
+
+                        if (value instanceof LocalDateTime dt) {
+                            values.add(dt.format(DEFAULT_FORMATTER));
+                        } else {
+                            values.add(value != null ? value.toString() : "");
+                        }
                     }
+
+                    printer.printRecord(values);
                 }
 
-                printer.printRecord(values);
-            }
+                printer.flush();
+            });
 
             log.info("Successfully saved {} records to CSV file: {}", data.size(), file.getPath());
-        } catch (IOException | IllegalAccessException e) {
+        } catch (IOException e) {
             log.error("Failed to write CSV file {}: {}", file.getPath(), e.getMessage(), e);
         }
     }
 
+    private static Object get(Field field, Object item) {
+        try {
+            return field.get(item);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Field " + field.getName() + " is not accessible", e);
+        }
+    }
 
     public static <T> Optional<List<T>> loadFromCsv(File file, Class<T> clazz) {
         log.debug("Loading records of type '{}' from CSV file: {}", clazz.getSimpleName(), file.getPath());
@@ -72,10 +85,15 @@ public class CsvUtils {
                 .setSkipHeaderRecord(true)
                 .get();
 
+        Optional<byte[]> content = SafeFiles.read(file);
+        if (content.isEmpty()) {
+            return Optional.empty();
+        }
+
         List<T> result = new ArrayList<>();
 
         try (
-                Reader reader = Files.newBufferedReader(file.toPath());
+                Reader reader = new InputStreamReader(new ByteArrayInputStream(content.get()), StandardCharsets.UTF_8);
                 CSVParser parser = CSVParser.builder()
                         .setReader(reader)
                         .setFormat(csvFormat)
@@ -85,6 +103,11 @@ public class CsvUtils {
                 T instance = clazz.getDeclaredConstructor().newInstance();
 
                 for (Field field : clazz.getDeclaredFields()) {
+                    // Columns added after the file was written keep their defaults
+                    if (!record.isMapped(field.getName())) {
+                        continue;
+                    }
+
                     field.setAccessible(true);
                     String value = record.get(field.getName());
                     Object converted = convertValue(field.getType(), value);
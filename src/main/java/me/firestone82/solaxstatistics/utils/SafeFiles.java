@@ -0,0 +1,168 @@
+package me.firestone82.solaxstatistics.utils;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Crash-safe text files. Content is streamed through a large buffer into a temporary file next to the
+ * target, followed by a {@code #checksum crc32c:<hex> length:<bytes>} footer line, synced to disk and
+ * renamed over the target in one step. A crash leaves either the old file or the new one, never a
+ * truncated mix, and {@link #read} rejects any file whose content does not match its footer.
+ */
+@Slf4j
+public class SafeFiles {
+    private static final int BUFFER_SIZE = 1 << 20;
+    private static final String FOOTER_PREFIX = "#checksum ";
+
+    public static void write(File target, ContentWriter content) throws IOException {
+        Path targetPath = target.toPath();
+        Path temp = targetPath.resolveSibling(target.getName() + ".tmp");
+
+        try (FileOutputStream file = new FileOutputStream(temp.toFile())) {
+            CheckedOutputStream checked = new CheckedOutputStream(file, new CRC32C());
+            CountingOutputStream counted = new CountingOutputStream(checked);
+            Writer writer = new OutputStreamWriter(new BufferedOutputStream(counted, BUFFER_SIZE), StandardCharsets.UTF_8);
+
+            content.write(writer);
+            writer.flush();
+
+            // The footer has to start its own line
+            if (counted.count > 0 && counted.last != '\n') {
+                writer.write('\n');
+                writer.flush();
+            }
+
+            String footer = String.format("%scrc32c:%08x length:%d%n", FOOTER_PREFIX, checked.getChecksum().getValue(), counted.count);
+            file.write(footer.getBytes(StandardCharsets.UTF_8));
+            file.getFD().sync();
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+
+        Files.move(temp, targetPath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        syncDirectory(targetPath.toAbsolutePath().getParent());
+    }
+
+    /**
+     * Content of the file without its footer. Files written before footers existed are returned as they are.
+     *
+     * @return content, or empty if the file cannot be read or does not match its checksum
+     */
+    public static Optional<byte[]> read(File file) {
+        byte[] bytes;
+        try {
+            bytes = Files.readAllBytes(file.toPath());
+        } catch (IOException e) {
+            log.error("Failed to read file {}: {}", file.getPath(), e.getMessage(), e);
+            return Optional.empty();
+        }
+
+        int footerStart = footerStart(bytes);
+        if (footerStart < 0) {
+            log.debug("File {} has no checksum footer, accepting it unverified", file.getPath());
+            return Optional.of(bytes);
+        }
+
+        String footer = new String(bytes, footerStart, bytes.length - footerStart, StandardCharsets.UTF_8).trim();
+        CRC32C crc = new CRC32C();
+        crc.update(bytes, 0, footerStart);
+        String expected = String.format("%scrc32c:%08x length:%d", FOOTER_PREFIX, crc.getValue(), footerStart);
+
+        if (!footer.equals(expected)) {
+            log.warn("File {} is corrupt, footer '{}' does not match its content", file.getPath(), footer);
+            return Optional.empty();
+        }
+
+        return Optional.of(Arrays.copyOf(bytes, footerStart));
+    }
+
+    /**
+     * Moves a corrupt file out of the way, so it is not found again and can be written anew.
+     */
+    public static void quarantine(File file) {
+        File corrupt = new File(file.getParentFile(), file.getName() + ".corrupt");
+
+        try {
+            Files.move(file.toPath(), corrupt.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            log.warn("Moved corrupt file {} to {}", file.getPath(), corrupt.getName());
+        } catch (IOException e) {
+            log.error("Failed to move corrupt file {} aside: {}", file.getPath(), e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Start of the checksum footer on the last line, -1 if there is none. Files written before the footer
+     * got its own line (e.g. Gson output without a trailing newline) have it glued to the end of the content.
+     */
+    private static int footerStart(byte[] bytes) {
+        int end = bytes.length;
+        while (end > 0 && (bytes[end - 1] == '\n' || bytes[end - 1] == '\r')) {
+            end--;
+        }
+
+        int start = end;
+        while (start > 0 && bytes[start - 1] != '\n') {
+            start--;
+        }
+
+        byte[] prefix = FOOTER_PREFIX.getBytes(StandardCharsets.UTF_8);
+        for (int at = end - prefix.length; at >= start; at--) {
+            if (Arrays.equals(bytes, at, at + prefix.length, prefix, 0, prefix.length)) {
+                return at;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Makes the rename itself durable. Not every platform can open a directory, there it is skipped.
+     */
+    private static void syncDirectory(Path directory) {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            log.trace("Directory {} could not be synced: {}", directory, e.getMessage());
+        }
+    }
+
+    @FunctionalInterface
+    public interface ContentWriter {
+        void write(Writer writer) throws IOException;
+    }
+
+    private static final class CountingOutputStream extends FilterOutputStream {
+        private long count;
+        private int last = -1;
+
+        private CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+            last = b & 0xFF;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+
+            if (len > 0) {
+                last = b[off + len - 1] & 0xFF;
+            }
+        }
+    }
+}
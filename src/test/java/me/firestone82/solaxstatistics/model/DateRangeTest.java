@@ -0,0 +1,75 @@
+package me.firestone82.solaxstatistics.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DateRangeTest {
+    private static final LocalDate AUTUMN_DAY = LocalDate.of(2024, 10, 27);
+
+    @Test
+    void sliceKeepsBothPassesOfTheRepeatedHour() {
+        List<LocalDateTime> stamps = endStamps(AUTUMN_DAY);
+        DateRange range = new DateRange(AUTUMN_DAY.atStartOfDay(), AUTUMN_DAY.atTime(3, 0));
+
+        List<LocalDateTime> sliced = range.slice(stamps, Function.identity(), true);
+
+        assertEquals(4 * 12, sliced.size());
+        assertEquals(AUTUMN_DAY.atTime(0, 5), sliced.getFirst());
+        assertEquals(AUTUMN_DAY.atTime(3, 0), sliced.getLast());
+    }
+
+    @Test
+    void sliceBoundInsideTheRepeatedHourIsItsFirstPass() {
+        List<LocalDateTime> stamps = endStamps(AUTUMN_DAY);
+
+        List<LocalDateTime> before = new DateRange(AUTUMN_DAY.atStartOfDay(), AUTUMN_DAY.atTime(2, 30)).slice(stamps, Function.identity(), true);
+        List<LocalDateTime> after = new DateRange(AUTUMN_DAY.atTime(2, 30), AUTUMN_DAY.atTime(3, 0)).slice(stamps, Function.identity(), true);
+
+        assertEquals(30, before.size());
+        assertEquals(5 + 12 + 1, after.size());
+        assertEquals(AUTUMN_DAY.atTime(2, 35), after.getFirst());
+    }
+
+    @Test
+    void sliceAfterTheRepeatedHour() {
+        List<LocalDateTime> stamps = endStamps(AUTUMN_DAY);
+        DateRange range = new DateRange(AUTUMN_DAY.atTime(3, 0), AUTUMN_DAY.plusDays(1).atStartOfDay());
+
+        List<LocalDateTime> sliced = range.slice(stamps, Function.identity(), true);
+
+        assertEquals(21 * 12, sliced.size());
+        assertEquals(AUTUMN_DAY.atTime(3, 5), sliced.getFirst());
+    }
+
+    @Test
+    void sliceOfStartStampedHours() {
+        List<LocalDateTime> hours = new ArrayList<>();
+        endStamps(AUTUMN_DAY).stream().filter(stamp -> stamp.getMinute() == 0).forEach(stamp -> hours.add(stamp.minusHours(1)));
+
+        DateRange range = DateRange.ofDays(AUTUMN_DAY, AUTUMN_DAY);
+        assertEquals(25, range.slice(hours, Function.identity(), false).size());
+    }
+
+    /**
+     * Local end stamps of the day's 5 minute intervals in source order, the repeated hour twice.
+     */
+    static List<LocalDateTime> endStamps(LocalDate day) {
+        ZoneId zone = Timeline.PRAGUE.zone();
+        List<LocalDateTime> stamps = new ArrayList<>();
+
+        for (long end = Timeline.PRAGUE.dayStart(day) + 300; end <= Timeline.PRAGUE.dayStart(day.plusDays(1)); end += 300) {
+            stamps.add(LocalDateTime.ofInstant(Instant.ofEpochSecond(end), zone));
+        }
+
+        return stamps;
+    }
+}
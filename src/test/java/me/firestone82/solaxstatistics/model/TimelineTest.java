@@ -0,0 +1,115 @@
+package me.firestone82.solaxstatistics.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimelineTest {
+    private static final LocalDate SPRING_DAY = LocalDate.of(2024, 3, 31);
+    private static final LocalDate AUTUMN_DAY = LocalDate.of(2024, 10, 27);
+    private static final Duration INTERVAL = Duration.ofMinutes(5);
+
+    @Test
+    void daysOfTheChangesHave23And25Hours() {
+        assertEquals(23, Timeline.PRAGUE.hoursIn(SPRING_DAY));
+        assertEquals(24, Timeline.PRAGUE.hoursIn(SPRING_DAY.plusDays(1)));
+        assertEquals(25, Timeline.PRAGUE.hoursIn(AUTUMN_DAY));
+    }
+
+    @Test
+    void resolverTakesTheRepeatedHourInSourceOrder() {
+        List<LocalDateTime> stamps = endStamps(AUTUMN_DAY);
+        Timeline.Resolver resolver = Timeline.PRAGUE.resolver();
+        long expected = Timeline.PRAGUE.dayStart(AUTUMN_DAY);
+
+        for (LocalDateTime stamp : stamps) {
+            expected += INTERVAL.toSeconds();
+            assertEquals(expected, resolver.epochSecond(stamp), "stamp " + stamp);
+            assertEquals(stamp, resolver.local(expected));
+        }
+    }
+
+    @Test
+    void resolverShiftsStampsOfTheSpringGapForward() {
+        Timeline.Resolver resolver = Timeline.PRAGUE.resolver();
+        long gapStamp = resolver.epochSecond(SPRING_DAY.atTime(2, 30));
+
+        assertEquals(SPRING_DAY.atTime(3, 30).atZone(Timeline.PRAGUE.zone()).toEpochSecond(), gapStamp);
+        assertEquals(SPRING_DAY.atTime(3, 30), resolver.local(gapStamp));
+    }
+
+    @Test
+    void resolverAfterTheFirstPassStartsInTheSecondOne() {
+        long firstPass = AUTUMN_DAY.atTime(2, 0).atZone(Timeline.PRAGUE.zone()).withEarlierOffsetAtOverlap().toEpochSecond();
+
+        assertEquals(firstPass, Timeline.PRAGUE.resolver().epochSecond(AUTUMN_DAY.atTime(2, 0)));
+        assertEquals(firstPass + Timeline.HOUR, Timeline.PRAGUE.resolver(firstPass + 30 * 60).epochSecond(AUTUMN_DAY.atTime(2, 0)));
+    }
+
+    @Test
+    void intervalResolverKeepsARepeatedStampOnItsPass() {
+        LocalDateTime stamp = AUTUMN_DAY.atTime(2, 10);
+
+        // Without the interval the same stamp again is the later pass, as for hourly start stamps
+        Timeline.Resolver plain = Timeline.PRAGUE.resolver();
+        long first = plain.epochSecond(stamp);
+        assertEquals(first + Timeline.HOUR, plain.epochSecond(stamp));
+
+        Timeline.Resolver interval = Timeline.PRAGUE.resolver(INTERVAL);
+        assertEquals(first, interval.epochSecond(stamp));
+        assertEquals(first, interval.epochSecond(stamp));
+    }
+
+    @Test
+    void bucketsOfEndStampsFollowTheLocalHours() {
+        assertHours(SPRING_DAY, 23);
+        assertHours(AUTUMN_DAY, 25);
+    }
+
+    @Test
+    void sortedKeepsTheRepeatedHourAfterTheFirstOne() {
+        List<LocalDateTime> stamps = endStamps(AUTUMN_DAY);
+
+        assertSame(stamps, Timeline.PRAGUE.sorted(stamps, Function.identity()));
+
+        List<LocalDateTime> swapped = new ArrayList<>(stamps);
+        swapped.add(0, swapped.remove(swapped.size() - 1));
+        assertEquals(stamps, Timeline.PRAGUE.sorted(swapped, Function.identity()));
+    }
+
+    /**
+     * Every hour of the day holds twelve intervals, the hour keys are consecutive instants.
+     */
+    private static void assertHours(LocalDate day, int hours) {
+        long[] buckets = Timeline.PRAGUE.hours(endStamps(day), Function.identity(), INTERVAL.toSeconds());
+        long[] distinct = Arrays.stream(buckets).distinct().toArray();
+
+        assertEquals(hours, distinct.length);
+        for (int h = 0; h < hours; h++) {
+            assertEquals(Timeline.PRAGUE.dayStart(day) + h * Timeline.HOUR, distinct[h]);
+            long hour = distinct[h];
+            assertEquals(12, Arrays.stream(buckets).filter(b -> b == hour).count());
+        }
+    }
+
+    /**
+     * Local end stamps of the day's five-minute intervals in source order, the repeated hour stamped twice.
+     */
+    private static List<LocalDateTime> endStamps(LocalDate day) {
+        ZoneId zone = Timeline.PRAGUE.zone();
+        Instant end = day.plusDays(1).atStartOfDay(zone).toInstant();
+        List<LocalDateTime> stamps = new ArrayList<>();
+
+        for (Instant at = day.atStartOfDay(zone).toInstant().plus(INTERVAL); !at.isAfter(end); at = at.plus(INTERVAL)) {
+            stamps.add(LocalDateTime.ofInstant(at, zone));
+        }
+
+        return stamps;
+    }
+}
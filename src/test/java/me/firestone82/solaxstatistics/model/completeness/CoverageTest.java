@@ -0,0 +1,85 @@
+package me.firestone82.solaxstatistics.model.completeness;
+
+import me.firestone82.solaxstatistics.model.DateRange;
+import me.firestone82.solaxstatistics.model.Timeline;
+import org.junit.jupiter.api.Test;
+
+import java.time.*;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CoverageTest {
+    private static final LocalDate SPRING_DAY = LocalDate.of(2024, 3, 31);
+    private static final LocalDate AUTUMN_DAY = LocalDate.of(2024, 10, 27);
+    private static final ZoneId ZONE = Timeline.PRAGUE.zone();
+    private static final Coverage QUARTER_HOURS = new Coverage(Duration.ofMinutes(15), true);
+    private static final Coverage HOURS = new Coverage(Duration.ofHours(1), false);
+
+    @Test
+    void springDayDoesNotExpectTheSkippedHour() {
+        assertEquals(23 * 4, stampsOf(SPRING_DAY, QUARTER_HOURS).size());
+        assertEquals(Map.of(), missing(QUARTER_HOURS, stampsOf(SPRING_DAY, QUARTER_HOURS), SPRING_DAY));
+        assertEquals(Map.of(), missing(HOURS, stampsOf(SPRING_DAY, HOURS), SPRING_DAY));
+    }
+
+    @Test
+    void autumnDayExpectsTheRepeatedHourOnce() {
+        Set<LocalDateTime> stamps = stampsOf(AUTUMN_DAY, QUARTER_HOURS);
+
+        // Wall-clock stamps of both passes are the same
+        assertEquals(24 * 4, stamps.size());
+        assertEquals(Map.of(), missing(QUARTER_HOURS, stamps, AUTUMN_DAY));
+        assertEquals(Map.of(), missing(HOURS, stampsOf(AUTUMN_DAY, HOURS), AUTUMN_DAY));
+    }
+
+    @Test
+    void missingStampsAroundTheChangesAreCounted() {
+        Set<LocalDateTime> spring = stampsOf(SPRING_DAY, QUARTER_HOURS);
+        spring.remove(SPRING_DAY.atTime(3, 15));
+        spring.remove(SPRING_DAY.atTime(1, 45));
+        assertEquals(Map.of(SPRING_DAY, 2), missing(QUARTER_HOURS, spring, SPRING_DAY));
+
+        Set<LocalDateTime> autumn = stampsOf(AUTUMN_DAY, HOURS);
+        autumn.remove(AUTUMN_DAY.atTime(2, 0));
+        assertEquals(Map.of(AUTUMN_DAY, 1), missing(HOURS, autumn, AUTUMN_DAY));
+    }
+
+    @Test
+    void closingMidnightIsOptional() {
+        Set<LocalDateTime> stamps = stampsOf(AUTUMN_DAY, QUARTER_HOURS);
+        stamps.remove(AUTUMN_DAY.plusDays(1).atStartOfDay());
+
+        assertEquals(Map.of(), missing(QUARTER_HOURS, stamps, AUTUMN_DAY));
+    }
+
+    @Test
+    void onlyStampsUntilTheLimitAreExpected() {
+        Set<LocalDateTime> stamps = stampsOf(AUTUMN_DAY, HOURS);
+        stamps.removeIf(stamp -> stamp.getHour() >= 12);
+
+        assertEquals(Map.of(), HOURS.missing(stamps, DateRange.ofDays(AUTUMN_DAY, AUTUMN_DAY), AUTUMN_DAY.atTime(11, 0), ZONE));
+        assertEquals(Map.of(AUTUMN_DAY, 12), HOURS.missing(stamps, DateRange.ofDays(AUTUMN_DAY, AUTUMN_DAY), LocalDateTime.MAX, ZONE));
+    }
+
+    private static Map<LocalDate, Integer> missing(Coverage coverage, Set<LocalDateTime> stamps, LocalDate day) {
+        return coverage.missing(stamps, DateRange.ofDays(day, day), LocalDateTime.MAX, ZONE);
+    }
+
+    /**
+     * Local stamps of every interval of the day as a source reports them.
+     */
+    private static Set<LocalDateTime> stampsOf(LocalDate day, Coverage coverage) {
+        Instant start = day.atStartOfDay(ZONE).toInstant();
+        Instant end = day.plusDays(1).atStartOfDay(ZONE).toInstant();
+        Set<LocalDateTime> stamps = new HashSet<>();
+
+        for (Instant at = start; at.isBefore(end); at = at.plus(coverage.resolution())) {
+            stamps.add(LocalDateTime.ofInstant(coverage.endStamped() ? at.plus(coverage.resolution()) : at, ZONE));
+        }
+
+        return stamps;
+    }
+}
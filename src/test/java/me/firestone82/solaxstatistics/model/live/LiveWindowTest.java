@@ -0,0 +1,53 @@
+package me.firestone82.solaxstatistics.model.live;
+
+import me.firestone82.solaxstatistics.model.Timeline;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LiveWindowTest {
+    private static final LocalDate AUTUMN_DAY = LocalDate.of(2024, 10, 27);
+
+    @Test
+    void repeatedAutumnHourIsKept() {
+        LiveWindow window = new LiveWindow(5, 2);
+        long dayStart = Timeline.PRAGUE.dayStart(AUTUMN_DAY);
+        long dayEnd = Timeline.PRAGUE.dayStart(AUTUMN_DAY.plusDays(1));
+
+        for (long end = dayStart + 300; end <= dayEnd; end += 300) {
+            assertTrue(window.append(end, 1, 0, 1, 0, 0));
+        }
+
+        LiveWindow.Totals day = window.day(dayStart).orElseThrow();
+        assertEquals(25 * 12, day.intervals());
+        assertEquals(25 * 12, day.yield(), 1e-9);
+
+        // 02:00 local twice, one hour apart
+        long firstPass = dayStart + 2 * Timeline.HOUR;
+        LiveWindow.Totals first = window.hour(firstPass).orElseThrow();
+        LiveWindow.Totals second = window.hour(firstPass + Timeline.HOUR).orElseThrow();
+        assertEquals(first.from(), second.from());
+        assertEquals(12, first.intervals());
+        assertEquals(12, second.intervals());
+    }
+
+    @Test
+    void lateIntervalIsMergedAndRepeatsAreIgnored() {
+        LiveWindow window = new LiveWindow(5, 2);
+        long dayStart = Timeline.PRAGUE.dayStart(AUTUMN_DAY);
+        long late = dayStart + 10 * 300;
+
+        for (long end = dayStart + 300; end <= dayStart + 20 * 300; end += 300) {
+            if (end != late) {
+                window.append(end, 1, 0, 0, 0, 0);
+            }
+        }
+
+        assertTrue(window.append(late, 1, 0, 0, 0, 0));
+        assertFalse(window.append(late, 1, 0, 0, 0, 0));
+        assertEquals(dayStart + 20 * 300, window.getLatest().orElseThrow());
+        assertEquals(20, window.day(dayStart).orElseThrow().intervals());
+    }
+}
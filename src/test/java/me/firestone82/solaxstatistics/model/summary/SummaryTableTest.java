@@ -0,0 +1,96 @@
+package me.firestone82.solaxstatistics.model.summary;
+
+import me.firestone82.solaxstatistics.model.Timeline;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SummaryTableTest {
+    private static final LocalDate SPRING_DAY = LocalDate.of(2024, 3, 31);
+    private static final LocalDate AUTUMN_DAY = LocalDate.of(2024, 10, 27);
+
+    @Test
+    void sliceSearchesQuarterHoursOfTheRepeatedHourByInstant() {
+        SummaryTable table = quarterHours(AUTUMN_DAY);
+        assertEquals(25 * 4, table.size());
+
+        // Bounds inside the repeated hour are its first pass
+        SummaryTable repeated = table.slice(at(2, 30), at(3, 0));
+        assertEquals(6, repeated.size());
+        assertEquals(at(2, 30), repeated.date(0));
+        assertEquals(at(2, 0), repeated.date(2));
+
+        assertEquals(10, table.slice(AUTUMN_DAY.atStartOfDay(), at(2, 30)).size());
+        assertEquals(21 * 4, table.slice(at(3, 0), LocalDateTime.MAX).size());
+        assertEquals(100, table.slice(LocalDateTime.MIN, LocalDateTime.MAX).size());
+    }
+
+    @Test
+    void hoursOfTheAutumnDayKeepTheRepeatedHourApart() {
+        SummaryTable hours = quarterHours(AUTUMN_DAY).aggregate(SummaryRow.Granularity.HOUR);
+
+        assertEquals(25, hours.size());
+        assertEquals(at(2, 0), hours.date(2));
+        assertEquals(at(2, 0), hours.date(3));
+        assertEquals(at(3, 0), hours.date(4));
+
+        for (int r = 0; r < hours.size(); r++) {
+            assertEquals(4, hours.get(SummaryMetric.CONSUMPTION, r), "hour " + r);
+        }
+    }
+
+    @Test
+    void hoursOfTheSpringDaySkipTheMissingHour() {
+        SummaryTable hours = quarterHours(SPRING_DAY).aggregate(SummaryRow.Granularity.HOUR);
+
+        assertEquals(23, hours.size());
+        assertEquals(SPRING_DAY.atTime(1, 0), hours.date(1));
+        assertEquals(SPRING_DAY.atTime(3, 0), hours.date(2));
+        assertEquals(23 * 4, hours.sum(SummaryMetric.CONSUMPTION));
+    }
+
+    @Test
+    void dayOfTheChangesSumsAllItsRows() {
+        SummaryTable autumn = quarterHours(AUTUMN_DAY).aggregate(SummaryRow.Granularity.DAY);
+        SummaryTable spring = quarterHours(SPRING_DAY).aggregate(SummaryRow.Granularity.DAY);
+
+        assertEquals(1, autumn.size());
+        assertEquals(25 * 4, autumn.get(SummaryMetric.CONSUMPTION, 0));
+        assertEquals(1, spring.size());
+        assertEquals(23 * 4, spring.get(SummaryMetric.CONSUMPTION, 0));
+    }
+
+    @Test
+    void stepOfQuarterHoursAcrossTheChanges() {
+        assertEquals(900, quarterHours(AUTUMN_DAY).stepSeconds().orElseThrow());
+        assertEquals(900, quarterHours(SPRING_DAY).stepSeconds().orElseThrow());
+        assertEquals(Timeline.HOUR, quarterHours(AUTUMN_DAY).aggregate(SummaryRow.Granularity.HOUR).stepSeconds().orElseThrow());
+        assertTrue(new SummaryTable(1).stepSeconds().isEmpty());
+    }
+
+    /**
+     * Quarter-hour rows of the day stamped at their local start, the repeated hour twice.
+     */
+    static SummaryTable quarterHours(LocalDate day) {
+        ZoneId zone = Timeline.PRAGUE.zone();
+        long start = Timeline.PRAGUE.dayStart(day);
+        int rows = Timeline.PRAGUE.hoursIn(day) * 4;
+        SummaryTable table = new SummaryTable(rows);
+
+        for (int r = 0; r < rows; r++) {
+            table.setDate(r, LocalDateTime.ofInstant(Instant.ofEpochSecond(start + r * 900L), zone));
+            table.set(SummaryMetric.CONSUMPTION, r, 1);
+        }
+
+        return table;
+    }
+
+    private static LocalDateTime at(int hour, int minute) {
+        return AUTUMN_DAY.atTime(hour, minute);
+    }
+}
@@ -0,0 +1,70 @@
+package me.firestone82.solaxstatistics.service.ote;
+
+import com.sun.net.httpserver.HttpServer;
+import me.firestone82.solaxstatistics.model.DateRange;
+import me.firestone82.solaxstatistics.model.PriceEntry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OTEApiClientTest {
+    private static final LocalDate AUTUMN_DAY = LocalDate.of(2024, 10, 27);
+
+    private HttpServer server;
+
+    @AfterEach
+    void stop() {
+        if (server != null) {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    void offsetStampIsConvertedToPragueTime() throws Exception {
+        List<PriceEntry> entries = fetch(DateRange.of(YearMonth.of(2024, 1)), "[{\"dateTime\":\"2024-01-10T11:00:00Z\",\"priceCZK\":1000}]");
+
+        assertEquals(List.of(LocalDateTime.of(2024, 1, 10, 12, 0)), entries.stream().map(PriceEntry::getDateTime).toList());
+    }
+
+    @Test
+    void autumnDayKeepsItsTwentyFifthHour() throws Exception {
+        String points = IntStream.range(0, 25)
+                .mapToObj(hour -> "{\"hour\":" + hour + ",\"priceCZK\":" + hour + "}")
+                .reduce((a, b) -> a + "," + b)
+                .orElseThrow();
+
+        List<PriceEntry> entries = fetch(DateRange.ofDays(AUTUMN_DAY, AUTUMN_DAY), "{\"date\":\"" + AUTUMN_DAY + "\",\"points\":[" + points + "]}");
+
+        assertEquals(25, entries.size());
+        assertEquals(AUTUMN_DAY.atTime(2, 0), entries.get(2).getDateTime());
+        assertEquals(AUTUMN_DAY.atTime(2, 0), entries.get(3).getDateTime());
+        assertEquals(AUTUMN_DAY.atTime(23, 0), entries.get(24).getDateTime());
+    }
+
+    private List<PriceEntry> fetch(DateRange range, String json) throws Exception {
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+
+        OTEApiClient client = new OTEApiClient(new OTEApiProperties(), "http://127.0.0.1:" + server.getAddress().getPort());
+
+        return client.fetch(range).orElseThrow();
+    }
+}
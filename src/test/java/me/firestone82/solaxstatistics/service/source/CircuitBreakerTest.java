@@ -0,0 +1,109 @@
+package me.firestone82.solaxstatistics.service.source;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CircuitBreakerTest {
+    private static final Duration LONG_COOL_DOWN = Duration.ofHours(1);
+    private static final Duration SHORT_COOL_DOWN = Duration.ofMillis(200);
+
+    @Test
+    void opensAfterConsecutiveFailures() {
+        CircuitBreaker breaker = new CircuitBreaker("test", 3, LONG_COOL_DOWN);
+
+        for (int i = 0; i < 2; i++) {
+            assertTrue(breaker.tryAcquire());
+            breaker.onFailure("timeout");
+            assertEquals(CircuitBreaker.State.CLOSED, state(breaker));
+        }
+
+        assertTrue(breaker.tryAcquire());
+        breaker.onFailure("timeout");
+
+        CircuitBreaker.Snapshot snapshot = breaker.snapshot(0, 0);
+        assertEquals(CircuitBreaker.State.OPEN, snapshot.state());
+        assertEquals(3, snapshot.consecutiveFailures());
+        assertEquals("timeout", snapshot.lastError());
+        assertNotNull(snapshot.openUntil());
+
+        assertFalse(breaker.tryAcquire());
+        assertEquals(1, breaker.snapshot(0, 0).shortCircuited());
+    }
+
+    @Test
+    void successResetsTheFailureCount() {
+        CircuitBreaker breaker = new CircuitBreaker("test", 2, LONG_COOL_DOWN);
+
+        breaker.onFailure("timeout");
+        breaker.onSuccess();
+        breaker.onFailure("timeout");
+
+        assertEquals(CircuitBreaker.State.CLOSED, state(breaker));
+        assertEquals(1, breaker.snapshot(0, 0).consecutiveFailures());
+        assertEquals(2, breaker.snapshot(0, 0).failures());
+    }
+
+    @Test
+    void halfOpenLetsOneTrialThroughAndClosesOnSuccess() throws InterruptedException {
+        CircuitBreaker breaker = halfOpenBreaker();
+
+        assertTrue(breaker.tryAcquire());
+        assertFalse(breaker.tryAcquire());
+
+        breaker.onSuccess();
+        CircuitBreaker.Snapshot snapshot = breaker.snapshot(0, 0);
+        assertEquals(CircuitBreaker.State.CLOSED, snapshot.state());
+        assertEquals(0, snapshot.consecutiveFailures());
+        assertNull(snapshot.openUntil());
+        assertTrue(breaker.tryAcquire());
+        assertTrue(breaker.tryAcquire());
+    }
+
+    @Test
+    void failedTrialOpensForAnotherCoolDown() throws InterruptedException {
+        CircuitBreaker breaker = halfOpenBreaker();
+
+        assertTrue(breaker.tryAcquire());
+        breaker.onFailure("still down");
+
+        assertEquals(CircuitBreaker.State.OPEN, state(breaker));
+        assertEquals("still down", breaker.snapshot(0, 0).lastError());
+        assertFalse(breaker.tryAcquire());
+    }
+
+    @Test
+    void rejectedTrialLetsAnotherTrialThrough() throws InterruptedException {
+        CircuitBreaker breaker = halfOpenBreaker();
+
+        assertTrue(breaker.tryAcquire());
+        breaker.onRejected();
+
+        // The cool-down is not restarted, a rejected trial never reached the source
+        assertEquals(1, breaker.snapshot(0, 0).rejected());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, state(breaker));
+        assertTrue(breaker.tryAcquire());
+    }
+
+    /**
+     * Breaker opened by failures whose short cool-down is already over.
+     */
+    private static CircuitBreaker halfOpenBreaker() throws InterruptedException {
+        CircuitBreaker breaker = new CircuitBreaker("test", 1, SHORT_COOL_DOWN);
+        assertTrue(breaker.tryAcquire());
+        breaker.onFailure("timeout");
+        assertEquals(CircuitBreaker.State.OPEN, state(breaker));
+
+        Thread.sleep(SHORT_COOL_DOWN.toMillis() + 50);
+
+        // The expired cool-down is reported as half-open before any call notices it
+        assertEquals(CircuitBreaker.State.HALF_OPEN, state(breaker));
+        return breaker;
+    }
+
+    private static CircuitBreaker.State state(CircuitBreaker breaker) {
+        return breaker.snapshot(0, 0).state();
+    }
+}
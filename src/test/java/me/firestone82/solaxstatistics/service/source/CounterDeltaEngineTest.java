@@ -0,0 +1,106 @@
+package me.firestone82.solaxstatistics.service.source;
+
+import me.firestone82.solaxstatistics.model.Timeline;
+import org.junit.jupiter.api.Test;
+
+import java.time.*;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CounterDeltaEngineTest {
+    private static final Duration INTERVAL = Duration.ofMinutes(5);
+    private static final LocalDate AUTUMN_DAY = LocalDate.of(2024, 10, 27);
+
+    @Test
+    void repeatedAutumnHourIsTakenAsTwoHours() {
+        List<LocalDateTime> stamps = stampsOf(AUTUMN_DAY);
+        CounterDeltaEngine engine = new CounterDeltaEngine(1, INTERVAL);
+        double[] counters = new double[1];
+
+        assertEquals(25 * 12, stamps.size());
+
+        for (int i = 0; i < stamps.size(); i++) {
+            counters[0] = i + 1;
+
+            assertTrue(engine.accept(stamps.get(i), counters), "sample " + stamps.get(i) + " dropped");
+            assertEquals(1, engine.delta(0), 1e-9);
+            assertEquals(0, engine.flags());
+        }
+
+        assertFalse(engine.hasAnomalies(), engine.toString());
+    }
+
+    @Test
+    void missingRepeatedHourIsFlaggedAsGap() {
+        List<LocalDateTime> stamps = stampsOf(AUTUMN_DAY);
+        CounterDeltaEngine engine = new CounterDeltaEngine(1, INTERVAL);
+        double[] counters = new double[1];
+
+        // The second pass stamped 02:00 to 02:55 is lost, it follows the first pass ending 02:55
+        int secondPass = 3 * 12 - 1;
+        stamps.subList(secondPass, secondPass + 12).clear();
+
+        for (int i = 0; i < stamps.size(); i++) {
+            counters[0] = i < secondPass ? i + 1 : i + 13;
+            assertTrue(engine.accept(stamps.get(i), counters));
+
+            if (i == secondPass) {
+                assertEquals(LocalDateTime.of(2024, 10, 27, 3, 0), stamps.get(i));
+                assertEquals(13, engine.delta(0), 1e-9);
+                assertTrue(CounterDeltaEngine.Flag.GAP.isSet(engine.flags()));
+            } else {
+                assertEquals(0, engine.flags(), "unexpected flags at " + stamps.get(i));
+            }
+        }
+
+        assertEquals(1, engine.getGaps());
+        assertEquals(0, engine.getOutOfOrder());
+        assertEquals(0, engine.getDuplicates());
+    }
+
+    @Test
+    void repeatedStampInsideTheRepeatedHourIsADuplicate() {
+        List<LocalDateTime> stamps = stampsOf(AUTUMN_DAY);
+        CounterDeltaEngine engine = new CounterDeltaEngine(1, INTERVAL);
+        double[] counters = new double[1];
+
+        // 02:10 of the first pass sent twice, and 02:00 opening the first pass sent twice
+        int duplicated = 2 * 12 + 2;
+        stamps.add(duplicated, stamps.get(duplicated - 1));
+        stamps.add(2 * 12, stamps.get(2 * 12 - 1));
+        assertEquals(LocalDateTime.of(2024, 10, 27, 2, 10), stamps.get(duplicated + 1));
+
+        int value = 0;
+        for (int i = 0; i < stamps.size(); i++) {
+            boolean repeated = i > 0 && stamps.get(i).equals(stamps.get(i - 1));
+            counters[0] = repeated ? value : ++value;
+
+            assertEquals(!repeated, engine.accept(stamps.get(i), counters), "sample " + i + " at " + stamps.get(i));
+            if (!repeated) {
+                assertEquals(1, engine.delta(0), 1e-9);
+                assertEquals(0, engine.flags(), "unexpected flags at " + stamps.get(i));
+            }
+        }
+
+        assertEquals(2, engine.getDuplicates());
+        assertEquals(0, engine.getGaps());
+        assertEquals(0, engine.getOutOfOrder());
+    }
+
+    /**
+     * Local end stamps of the day's intervals in source order, the repeated hour stamped twice.
+     */
+    private static List<LocalDateTime> stampsOf(LocalDate day) {
+        ZoneId zone = Timeline.PRAGUE.zone();
+        Instant end = day.plusDays(1).atStartOfDay(zone).toInstant();
+        List<LocalDateTime> stamps = new ArrayList<>();
+
+        for (Instant at = day.atStartOfDay(zone).toInstant().plus(INTERVAL); !at.isAfter(end); at = at.plus(INTERVAL)) {
+            stamps.add(LocalDateTime.ofInstant(at, zone));
+        }
+
+        return stamps;
+    }
+}
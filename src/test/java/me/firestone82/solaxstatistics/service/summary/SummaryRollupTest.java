@@ -0,0 +1,58 @@
+package me.firestone82.solaxstatistics.service.summary;
+
+import me.firestone82.solaxstatistics.model.DateRange;
+import me.firestone82.solaxstatistics.model.summary.SummaryRow;
+import me.firestone82.solaxstatistics.service.source.CacheDataSource;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SummaryRollupTest {
+    private static final YearMonth MONTH = YearMonth.of(2024, 1);
+
+    @TempDir
+    File directory;
+
+    @Test
+    void finerLegacyHoursAreSummedIntoHours() {
+        storeLegacyHours(Duration.ofMinutes(15));
+
+        SummaryRollup rollup = new SummaryRollup(directory.getPath(), Duration.ofHours(1), 24, null);
+
+        assertEquals(31 * 24, rollup.intervals(DateRange.of(MONTH)).size());
+        assertEquals(4.0, rollup.intervals(DateRange.of(MONTH)).row(0).getYield());
+        assertTrue(new File(directory, "summary/rollup/hourly-60m_" + MONTH + ".csv").exists());
+    }
+
+    @Test
+    void coarserLegacyHoursAreNotUsed() {
+        storeLegacyHours(Duration.ofHours(1));
+
+        SummaryRollup rollup = new SummaryRollup(directory.getPath(), Duration.ofMinutes(15), 24, null);
+
+        assertFalse(rollup.hasHours(MONTH));
+        assertTrue(rollup.intervals(DateRange.of(MONTH)).isEmpty());
+    }
+
+    /**
+     * Rows of the month with a yield of 1 each, in the file used before the resolution was in its name.
+     */
+    private void storeLegacyHours(Duration step) {
+        List<SummaryRow> rows = new ArrayList<>();
+        for (LocalDateTime date = MONTH.atDay(1).atStartOfDay(); date.isBefore(MONTH.plusMonths(1).atDay(1).atStartOfDay()); date = date.plus(step)) {
+            rows.add(SummaryRow.builder().date(date).yield(1).build());
+        }
+
+        File rollupDir = new File(directory, "summary/rollup");
+        assertTrue(rollupDir.mkdirs());
+        new CacheDataSource<>(rollupDir, "hourly", SummaryRow.class, SummaryRow::getDate, false).store(MONTH, rows);
+    }
+}
@@ -0,0 +1,56 @@
+package me.firestone82.solaxstatistics.utils;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.zip.CRC32C;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SafeFilesTest {
+    @TempDir
+    File directory;
+
+    @Test
+    void contentWithoutTrailingNewlineReadsBack() throws Exception {
+        File file = new File(directory, "gaps.json");
+        SafeFiles.write(file, writer -> writer.write("{\"solax\":{}}"));
+
+        assertEquals("{\"solax\":{}}\n", new String(SafeFiles.read(file).orElseThrow(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void footerGluedToTheLastLineIsVerified() throws Exception {
+        byte[] content = "{\"solax\":{}}".getBytes(StandardCharsets.UTF_8);
+        File file = new File(directory, "gaps.json");
+        Files.write(file.toPath(), withGluedFooter(content, content.length));
+
+        assertArrayEquals(content, SafeFiles.read(file).orElseThrow());
+    }
+
+    @Test
+    void gluedFooterOfOtherContentIsCorrupt() throws Exception {
+        byte[] content = "{\"solax\":{}}".getBytes(StandardCharsets.UTF_8);
+        File file = new File(directory, "gaps.json");
+        Files.write(file.toPath(), withGluedFooter(content, content.length + 1));
+
+        assertTrue(SafeFiles.read(file).isEmpty());
+    }
+
+    /**
+     * File as written before the footer got its own line.
+     */
+    private static byte[] withGluedFooter(byte[] content, int length) {
+        CRC32C crc = new CRC32C();
+        crc.update(content);
+        String footer = String.format("#checksum crc32c:%08x length:%d%n", crc.getValue(), length);
+
+        byte[] bytes = new byte[content.length + footer.length()];
+        System.arraycopy(content, 0, bytes, 0, content.length);
+        System.arraycopy(footer.getBytes(StandardCharsets.UTF_8), 0, bytes, content.length, footer.length());
+        return bytes;
+    }
+}